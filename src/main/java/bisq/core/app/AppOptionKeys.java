@@ -24,6 +24,8 @@ public class AppOptionKeys {
     public static final String PROVIDERS = "providers";
     public static final String MAX_MEMORY = "maxMemory";
     public static final String DUMP_STATISTICS = "dumpStatistics";
+    public static final String DUMP_STATISTICS_INCREMENTAL = "dumpStatisticsIncremental";
+    public static final String OFFER_PUBLISH_RATE = "offerPublishRate";
     public static final String IGNORE_DEV_MSG_KEY = "ignoreDevMsg";
     public static final String USE_DEV_PRIVILEGE_KEYS = "useDevPrivilegeKeys";
     public static final String USE_DEV_MODE = "useDevMode";
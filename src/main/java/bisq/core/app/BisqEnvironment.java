@@ -193,8 +193,8 @@ public class BisqEnvironment extends StandardEnvironment {
     protected List<String> bannedSeedNodes, bannedBtcNodes, bannedPriceRelayNodes;
 
     protected final String btcNodes, seedNodes, ignoreDevMsg, useDevPrivilegeKeys, useDevMode, useTorForBtc, rpcUser, rpcPassword,
-            rpcPort, rpcBlockNotificationPort, dumpBlockchainData, fullDaoNode,
-            myAddress, banList, dumpStatistics, maxMemory, socks5ProxyBtcAddress,
+            rpcPort, rpcBlockNotificationPort, rpcVerboseBlocks, dumpBlockchainData, fullDaoNode,
+            myAddress, banList, dumpStatistics, dumpStatisticsIncremental, offerPublishRate, maxMemory, socks5ProxyBtcAddress,
             socks5ProxyHttpAddress, useAllProvidedNodes, numConnectionForBtc, genesisTxId, genesisBlockHeight;
 
 
@@ -236,6 +236,12 @@ public class BisqEnvironment extends StandardEnvironment {
         dumpStatistics = commandLineProperties.containsProperty(AppOptionKeys.DUMP_STATISTICS) ?
                 (String) commandLineProperties.getProperty(AppOptionKeys.DUMP_STATISTICS) :
                 "";
+        dumpStatisticsIncremental = commandLineProperties.containsProperty(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL) ?
+                (String) commandLineProperties.getProperty(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL) :
+                "";
+        offerPublishRate = commandLineProperties.containsProperty(AppOptionKeys.OFFER_PUBLISH_RATE) ?
+                (String) commandLineProperties.getProperty(AppOptionKeys.OFFER_PUBLISH_RATE) :
+                "";
         maxMemory = commandLineProperties.containsProperty(AppOptionKeys.MAX_MEMORY) ?
                 (String) commandLineProperties.getProperty(AppOptionKeys.MAX_MEMORY) :
                 "";
@@ -274,6 +280,9 @@ public class BisqEnvironment extends StandardEnvironment {
         rpcBlockNotificationPort = commandLineProperties.containsProperty(DaoOptionKeys.RPC_BLOCK_NOTIFICATION_PORT) ?
                 (String) commandLineProperties.getProperty(DaoOptionKeys.RPC_BLOCK_NOTIFICATION_PORT) :
                 "";
+        rpcVerboseBlocks = commandLineProperties.containsProperty(DaoOptionKeys.RPC_VERBOSE_BLOCKS) ?
+                (String) commandLineProperties.getProperty(DaoOptionKeys.RPC_VERBOSE_BLOCKS) :
+                "";
         dumpBlockchainData = commandLineProperties.containsProperty(DaoOptionKeys.DUMP_BLOCKCHAIN_DATA) ?
                 (String) commandLineProperties.getProperty(DaoOptionKeys.DUMP_BLOCKCHAIN_DATA) :
                 "";
@@ -430,6 +439,8 @@ public class BisqEnvironment extends StandardEnvironment {
                 setProperty(AppOptionKeys.USE_DEV_PRIVILEGE_KEYS, useDevPrivilegeKeys);
                 setProperty(AppOptionKeys.USE_DEV_MODE, useDevMode);
                 setProperty(AppOptionKeys.DUMP_STATISTICS, dumpStatistics);
+                setProperty(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL, dumpStatisticsIncremental);
+                setProperty(AppOptionKeys.OFFER_PUBLISH_RATE, offerPublishRate);
                 setProperty(AppOptionKeys.APP_NAME_KEY, appName);
                 setProperty(AppOptionKeys.MAX_MEMORY, maxMemory);
                 setProperty(AppOptionKeys.USER_DATA_DIR_KEY, userDataDir);
@@ -439,6 +450,7 @@ public class BisqEnvironment extends StandardEnvironment {
                 setProperty(DaoOptionKeys.RPC_PASSWORD, rpcPassword);
                 setProperty(DaoOptionKeys.RPC_PORT, rpcPort);
                 setProperty(DaoOptionKeys.RPC_BLOCK_NOTIFICATION_PORT, rpcBlockNotificationPort);
+                setProperty(DaoOptionKeys.RPC_VERBOSE_BLOCKS, rpcVerboseBlocks);
                 setProperty(DaoOptionKeys.DUMP_BLOCKCHAIN_DATA, dumpBlockchainData);
                 setProperty(DaoOptionKeys.FULL_DAO_NODE, fullDaoNode);
                 setProperty(DaoOptionKeys.GENESIS_TX_ID, genesisTxId);
@@ -21,6 +21,7 @@ import bisq.core.btc.BtcOptionKeys;
 import bisq.core.btc.RegTestHost;
 import bisq.core.dao.DaoOptionKeys;
 import bisq.core.exceptions.BisqException;
+import bisq.core.offer.OfferPublishScheduler;
 import bisq.core.util.joptsimple.EnumValueConverter;
 
 import bisq.network.NetworkOptionKeys;
@@ -142,6 +143,16 @@ public abstract class BisqExecutable {
                 description("If set to true the trade statistics are stored as json file in the data dir.", false))
                 .withRequiredArg()
                 .ofType(boolean.class);
+        parser.accepts(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL,
+                description("If set to true new trade statistics are appended to trade_statistics.ndjson and the " +
+                        "trade_statistics json file is only rewritten periodically (requires dumpStatistics).", false))
+                .withRequiredArg()
+                .ofType(boolean.class);
+        parser.accepts(AppOptionKeys.OFFER_PUBLISH_RATE,
+                description("Max. number of republish and refresh messages for our offers per second",
+                        OfferPublishScheduler.DEFAULT_MESSAGES_PER_SEC))
+                .withRequiredArg()
+                .ofType(int.class);
         parser.accepts(AppOptionKeys.PROVIDERS,
                 description("Custom providers (comma separated)", false))
                 .withRequiredArg();
@@ -191,6 +202,11 @@ public abstract class BisqExecutable {
         parser.accepts(DaoOptionKeys.RPC_BLOCK_NOTIFICATION_PORT,
                 description("Bitcoind rpc port for block notifications", ""))
                 .withRequiredArg();
+        parser.accepts(DaoOptionKeys.RPC_VERBOSE_BLOCKS,
+                description("If set to true blocks are requested with all their transactions in one RPC call " +
+                        "(getblock with verbosity 2, requires Bitcoin Core 0.15 or later).", true))
+                .withRequiredArg()
+                .ofType(boolean.class);
         parser.accepts(DaoOptionKeys.DUMP_BLOCKCHAIN_DATA,
                 description("If set to true the blockchain data from RPC requests to Bitcoin Core are stored " +
                         "as json file in the data dir.", false))
@@ -33,5 +33,6 @@ public class ArbitratorModule extends AppModule {
         bind(ArbitratorManager.class).in(Singleton.class);
         bind(DisputeManager.class).in(Singleton.class);
         bind(ArbitratorService.class).in(Singleton.class);
+        bind(AttachmentStore.class).in(Singleton.class);
     }
 }
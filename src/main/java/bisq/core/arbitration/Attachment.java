@@ -17,33 +17,112 @@
 
 package bisq.core.arbitration;
 
+import bisq.common.crypto.Hash;
 import bisq.common.proto.network.NetworkPayload;
 
 import io.bisq.generated.protobuffer.PB;
 
 import com.google.protobuf.ByteString;
 
-import lombok.Value;
+import java.io.IOException;
 
-@Value
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Persisted attachments only contain a reference to the bytes in the AttachmentStore. The bytes are loaded at the
+ * first call of getBytes.
+ */
+@EqualsAndHashCode(of = {"fileName", "hash"})
+@ToString(of = {"fileName"})
 public final class Attachment implements NetworkPayload {
+    @Getter
     private final String fileName;
-    private final byte[] bytes;
+    // SHA-256 of the bytes
+    @Getter
+    private final byte[] hash;
+    // Null until loaded from the AttachmentStore
+    @Nullable
+    private volatile byte[] bytes;
+    // Only set if the bytes are loaded from the AttachmentStore
+    @Nullable
+    transient private final AttachmentStore attachmentStore;
 
     public Attachment(String fileName, byte[] bytes) {
+        this(fileName, Hash.getSha256Hash(bytes), bytes, null);
+    }
+
+    private Attachment(String fileName, byte[] hash, @Nullable byte[] bytes, @Nullable AttachmentStore attachmentStore) {
         this.fileName = fileName;
+        this.hash = hash;
         this.bytes = bytes;
+        this.attachmentStore = attachmentStore;
     }
 
+    /**
+     * @throws AttachmentNotAvailableException If the bytes cannot be loaded from the AttachmentStore. We must not
+     *                                         send an attachment without its bytes.
+     */
     @Override
     public PB.Attachment toProtoMessage() {
         return PB.Attachment.newBuilder()
                 .setFileName(fileName)
-                .setBytes(ByteString.copyFrom(bytes))
+                .setBytes(ByteString.copyFrom(getBytes()))
                 .build();
     }
 
     public static Attachment fromProto(PB.Attachment proto) {
         return new Attachment(proto.getFileName(), proto.getBytes().toByteArray());
     }
+
+    /**
+     * Used for persistence. The bytes are stored in the AttachmentStore and we only write a reference. If that fails
+     * we write the bytes as in toProtoMessage.
+     */
+    public PB.Attachment toPersistableProtoMessage(AttachmentStore attachmentStore) {
+        final byte[] bytes = this.bytes;
+        if (bytes != null && !attachmentStore.put(hash, bytes))
+            return toProtoMessage();
+
+        return PB.Attachment.newBuilder()
+                .setFileName(fileName)
+                .setBytes(ByteString.copyFrom(AttachmentStore.toReference(hash)))
+                .build();
+    }
+
+    public static Attachment fromPersistableProto(PB.Attachment proto, AttachmentStore attachmentStore) {
+        final byte[] bytes = proto.getBytes().toByteArray();
+        final byte[] hash = AttachmentStore.fromReference(bytes);
+        return hash != null ?
+                new Attachment(proto.getFileName(), hash, null, attachmentStore) :
+                new Attachment(proto.getFileName(), bytes);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @throws AttachmentNotAvailableException If the file in the AttachmentStore is missing or does not match the
+     *                                         hash.
+     */
+    public byte[] getBytes() {
+        byte[] result = bytes;
+        if (result == null) {
+            checkNotNull(attachmentStore, "attachmentStore must not be null if bytes are not set");
+            try {
+                result = attachmentStore.get(hash);
+            } catch (IOException e) {
+                throw new AttachmentNotAvailableException(e, "Could not load attachment %s", fileName);
+            }
+            bytes = result;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.arbitration;
+
+import bisq.common.crypto.Hash;
+import bisq.common.storage.Storage;
+import bisq.common.util.Utilities;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores the bytes of dispute attachments as files named by their SHA-256 hash, so the persisted disputes only
+ * contain a reference to them.
+ * <p>
+ * The PB.Attachment message has no field for the hash, so the reference is stored in the bytes field with
+ * REFERENCE_PREFIX in front of the hash. Each file is written once, identical attachments share the same file.
+ * <p>
+ * Called from the user thread and the storage thread.
+ */
+@Slf4j
+public class AttachmentStore {
+    static final String DIR_NAME = "attachments";
+    private static final byte[] REFERENCE_PREFIX = "bisq-attachment-sha256:".getBytes(StandardCharsets.US_ASCII);
+    private static final int HASH_LENGTH = 32;
+
+    // Null if we could not create the directory
+    @Nullable
+    private final File directory;
+    // Hashes as hex we have stored already
+    private final Set<String> storedHashes = ConcurrentHashMap.newKeySet();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public AttachmentStore(@Named(Storage.STORAGE_DIR) File storageDir) {
+        File dir = new File(storageDir, DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.error("Could not create directory {}. Attachments are stored inline.", dir);
+            dir = null;
+        }
+        directory = dir;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return True if the bytes are stored, false if we cannot store them and they have to be persisted inline.
+     */
+    boolean put(byte[] hash, byte[] bytes) {
+        if (directory == null)
+            return false;
+
+        final String hashAsHex = Utilities.encodeToHex(hash);
+        if (storedHashes.contains(hashAsHex))
+            return true;
+
+        final File file = new File(directory, hashAsHex);
+        try {
+            if (!file.exists()) {
+                Path tempFile = Files.createTempFile(directory.toPath(), hashAsHex, ".tmp");
+                Files.write(tempFile, bytes);
+                Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            storedHashes.add(hashAsHex);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not write attachment {}. {}", file, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * @throws IOException If the file cannot be read or does not match the hash.
+     */
+    byte[] get(byte[] hash) throws IOException {
+        final String hashAsHex = Utilities.encodeToHex(hash);
+        if (directory == null)
+            throw new IOException("Attachment directory is not available. We cannot load attachment " + hashAsHex);
+
+        final File file = new File(directory, hashAsHex);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (!Arrays.equals(hash, Hash.getSha256Hash(bytes)))
+            throw new IOException("Attachment " + file + " does not match its hash.");
+
+        storedHashes.add(hashAsHex);
+        return bytes;
+    }
+
+    static byte[] toReference(byte[] hash) {
+        byte[] reference = Arrays.copyOf(REFERENCE_PREFIX, REFERENCE_PREFIX.length + hash.length);
+        System.arraycopy(hash, 0, reference, REFERENCE_PREFIX.length, hash.length);
+        return reference;
+    }
+
+    /**
+     * @return The hash if the bytes are a reference, otherwise null.
+     */
+    @Nullable
+    static byte[] fromReference(byte[] bytes) {
+        if (bytes.length != REFERENCE_PREFIX.length + HASH_LENGTH ||
+                !Arrays.equals(REFERENCE_PREFIX, Arrays.copyOf(bytes, REFERENCE_PREFIX.length)))
+            return null;
+
+        return Arrays.copyOfRange(bytes, REFERENCE_PREFIX.length, bytes.length);
+    }
+}
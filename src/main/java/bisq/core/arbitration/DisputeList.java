@@ -19,7 +19,6 @@ package bisq.core.arbitration;
 
 import bisq.core.proto.CoreProtoResolver;
 
-import bisq.common.proto.ProtoUtil;
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.proto.persistable.PersistedDataHost;
 import bisq.common.storage.Storage;
@@ -51,16 +50,28 @@ import javax.annotation.Nullable;
  */
 public final class DisputeList implements PersistableEnvelope, PersistedDataHost {
     transient private final Storage<DisputeList> storage;
+    transient private final AttachmentStore attachmentStore;
+    // Null for the default file name
+    @Nullable
+    transient private final String fileName;
     @Getter
     private final ObservableList<Dispute> list = FXCollections.observableArrayList();
 
-    public DisputeList(Storage<DisputeList> storage) {
+    public DisputeList(Storage<DisputeList> storage, AttachmentStore attachmentStore) {
+        this(storage, attachmentStore, (String) null);
+    }
+
+    public DisputeList(Storage<DisputeList> storage, AttachmentStore attachmentStore, @Nullable String fileName) {
         this.storage = storage;
+        this.attachmentStore = attachmentStore;
+        this.fileName = fileName;
     }
 
     @Override
     public void readPersisted() {
-        DisputeList persisted = storage.initAndGetPersisted(this, 50);
+        DisputeList persisted = fileName != null ?
+                storage.initAndGetPersisted(this, fileName, 50) :
+                storage.initAndGetPersisted(this, 50);
         if (persisted != null)
             list.addAll(persisted.getList());
     }
@@ -69,28 +80,33 @@ public final class DisputeList implements PersistableEnvelope, PersistedDataHost
     // PROTO BUFFER
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private DisputeList(Storage<DisputeList> storage, List<Dispute> list) {
+    private DisputeList(Storage<DisputeList> storage, AttachmentStore attachmentStore, List<Dispute> list) {
         this.storage = storage;
+        this.attachmentStore = attachmentStore;
+        this.fileName = null;
         this.list.addAll(list);
     }
 
     @Override
     public Message toProtoMessage() {
         return PB.PersistableEnvelope.newBuilder().setDisputeList(PB.DisputeList.newBuilder()
-                .addAllDispute(ProtoUtil.collectionToProto(list))).build();
+                .addAllDispute(list.stream()
+                        .map(dispute -> dispute.toPersistableProtoMessage(attachmentStore))
+                        .collect(Collectors.toList()))).build();
     }
 
     @Nullable
     public static DisputeList fromProto(PB.DisputeList proto,
                                         CoreProtoResolver coreProtoResolver,
-                                        Storage<DisputeList> storage) {
+                                        Storage<DisputeList> storage,
+                                        AttachmentStore attachmentStore) {
         log.debug("DisputeList fromProto of {} ", proto);
 
         List<Dispute> list = proto.getDisputeList().stream()
-                .map(disputeProto -> Dispute.fromProto(disputeProto, coreProtoResolver))
+                .map(disputeProto -> Dispute.fromPersistableProto(disputeProto, coreProtoResolver, attachmentStore))
                 .collect(Collectors.toList());
         list.stream().forEach(e -> e.setStorage(storage));
-        return new DisputeList(storage, list);
+        return new DisputeList(storage, attachmentStore, list);
     }
 
 
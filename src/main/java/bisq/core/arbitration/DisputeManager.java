@@ -97,8 +97,12 @@ public class DisputeManager implements PersistedDataHost {
     private final OpenOfferManager openOfferManager;
     private final P2PService p2PService;
     private final KeyRing keyRing;
-    private final Storage<DisputeList> disputeStorage;
-    private DisputeList disputes;
+    private final PersistenceProtoResolver persistenceProtoResolver;
+    private final File storageDir;
+    private final AttachmentStore attachmentStore;
+    // Storage of the former single DisputeList file
+    private final Storage<DisputeList> legacyDisputeStorage;
+    private DisputeStore disputes;
     private final String disputeInfo;
     private final CopyOnWriteArraySet<DecryptedMessageWithPubKey> decryptedMailboxMessageWithPubKeys = new CopyOnWriteArraySet<>();
     private final CopyOnWriteArraySet<DecryptedMessageWithPubKey> decryptedDirectMessageWithPubKeys = new CopyOnWriteArraySet<>();
@@ -121,7 +125,8 @@ public class DisputeManager implements PersistedDataHost {
                           OpenOfferManager openOfferManager,
                           KeyRing keyRing,
                           PersistenceProtoResolver persistenceProtoResolver,
-                          @Named(Storage.STORAGE_DIR) File storageDir) {
+                          @Named(Storage.STORAGE_DIR) File storageDir,
+                          AttachmentStore attachmentStore) {
         this.p2PService = p2PService;
         this.tradeWalletService = tradeWalletService;
         this.walletService = walletService;
@@ -130,8 +135,11 @@ public class DisputeManager implements PersistedDataHost {
         this.closedTradableManager = closedTradableManager;
         this.openOfferManager = openOfferManager;
         this.keyRing = keyRing;
+        this.persistenceProtoResolver = persistenceProtoResolver;
+        this.storageDir = storageDir;
+        this.attachmentStore = attachmentStore;
 
-        disputeStorage = new Storage<>(storageDir, persistenceProtoResolver);
+        legacyDisputeStorage = new Storage<>(storageDir, persistenceProtoResolver);
 
         openDisputes = new HashMap<>();
         closedDisputes = new HashMap<>();
@@ -156,9 +164,8 @@ public class DisputeManager implements PersistedDataHost {
 
     @Override
     public void readPersisted() {
-        disputes = new DisputeList(disputeStorage);
+        disputes = new DisputeStore(storageDir, persistenceProtoResolver, legacyDisputeStorage, attachmentStore);
         disputes.readPersisted();
-        disputes.stream().forEach(dispute -> dispute.setStorage(getDisputeStorage()));
     }
 
     public void onAllServicesInitialized() {
@@ -186,7 +193,6 @@ public class DisputeManager implements PersistedDataHost {
 
     public void cleanupDisputes() {
         disputes.stream().forEach(dispute -> {
-            dispute.setStorage(getDisputeStorage());
             if (dispute.isClosed())
                 closedDisputes.put(dispute.getTradeId(), dispute);
             else
@@ -281,32 +287,39 @@ public class DisputeManager implements PersistedDataHost {
                     disputes.add(dispute);
                 }
 
-                p2PService.sendEncryptedMailboxMessage(dispute.getContract().getArbitratorNodeAddress(),
-                        dispute.getArbitratorPubKeyRing(),
-                        new OpenNewDisputeMessage(dispute, p2PService.getAddress(),
-                                UUID.randomUUID().toString()),
-                        new SendMailboxMessageListener() {
-                            @Override
-                            public void onArrived() {
-                                log.info("Message arrived at peer. tradeId={}", disputeCommunicationMessage.getTradeId());
-                                disputeCommunicationMessage.setArrived(true);
-                                resultHandler.handleResult();
+                // A re-opened dispute contains the attachments of the former messages. They are loaded from the
+                // AttachmentStore when the message gets serialized.
+                try {
+                    p2PService.sendEncryptedMailboxMessage(dispute.getContract().getArbitratorNodeAddress(),
+                            dispute.getArbitratorPubKeyRing(),
+                            new OpenNewDisputeMessage(dispute, p2PService.getAddress(),
+                                    UUID.randomUUID().toString()),
+                            new SendMailboxMessageListener() {
+                                @Override
+                                public void onArrived() {
+                                    log.info("Message arrived at peer. tradeId={}", disputeCommunicationMessage.getTradeId());
+                                    disputeCommunicationMessage.setArrived(true);
+                                    resultHandler.handleResult();
+                                }
+
+                                @Override
+                                public void onStoredInMailbox() {
+                                    log.info("Message stored in mailbox. tradeId={}", disputeCommunicationMessage.getTradeId());
+                                    disputeCommunicationMessage.setStoredInMailbox(true);
+                                    resultHandler.handleResult();
+                                }
+
+                                @Override
+                                public void onFault(String errorMessage) {
+                                    log.error("sendEncryptedMailboxMessage failed. disputeCommunicationMessage=" + disputeCommunicationMessage);
+                                    faultHandler.handleFault("Sending dispute message failed: " + errorMessage, new MessageDeliveryFailedException());
+                                }
                             }
-
-                            @Override
-                            public void onStoredInMailbox() {
-                                log.info("Message stored in mailbox. tradeId={}", disputeCommunicationMessage.getTradeId());
-                                disputeCommunicationMessage.setStoredInMailbox(true);
-                                resultHandler.handleResult();
-                            }
-
-                            @Override
-                            public void onFault(String errorMessage) {
-                                log.error("sendEncryptedMailboxMessage failed. disputeCommunicationMessage=" + disputeCommunicationMessage);
-                                faultHandler.handleFault("Sending dispute message failed: " + errorMessage, new MessageDeliveryFailedException());
-                            }
-                        }
-                );
+                    );
+                } catch (AttachmentNotAvailableException e) {
+                    log.error("sendEncryptedMailboxMessage failed. " + e.getMessage());
+                    faultHandler.handleFault("Sending dispute message failed: " + e.getMessage(), e);
+                }
             } else {
                 final String msg = "We got a dispute already open for that trade and trading peer.\n" +
                         "TradeId = " + dispute.getTradeId();
@@ -325,7 +338,7 @@ public class DisputeManager implements PersistedDataHost {
         Contract contractFromOpener = disputeFromOpener.getContract();
         PubKeyRing pubKeyRing = disputeFromOpener.isDisputeOpenerIsBuyer() ? contractFromOpener.getSellerPubKeyRing() : contractFromOpener.getBuyerPubKeyRing();
         Dispute dispute = new Dispute(
-                disputeStorage,
+                getStorageForNewDispute(),
                 disputeFromOpener.getTradeId(),
                 pubKeyRing.hashCode(),
                 !disputeFromOpener.isDisputeOpenerIsBuyer(),
@@ -555,7 +568,6 @@ public class DisputeManager implements PersistedDataHost {
             if (!disputes.contains(dispute)) {
                 final Optional<Dispute> storedDisputeOptional = findDispute(dispute.getTradeId(), dispute.getTraderId());
                 if (!storedDisputeOptional.isPresent()) {
-                    dispute.setStorage(getDisputeStorage());
                     disputes.add(dispute);
                     sendPeerOpenedDisputeMessage(dispute);
                 } else {
@@ -577,7 +589,6 @@ public class DisputeManager implements PersistedDataHost {
             if (!disputes.contains(dispute)) {
                 final Optional<Dispute> storedDisputeOptional = findDispute(dispute.getTradeId(), dispute.getTraderId());
                 if (!storedDisputeOptional.isPresent()) {
-                    dispute.setStorage(getDisputeStorage());
                     disputes.add(dispute);
                     Optional<Trade> tradeOptional = tradeManager.getTradeById(dispute.getTradeId());
                     if (tradeOptional.isPresent())
@@ -793,8 +804,10 @@ public class DisputeManager implements PersistedDataHost {
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public Storage<DisputeList> getDisputeStorage() {
-        return disputeStorage;
+    // Disputes get their opening date at construction, so they belong to the file of the current month.
+    // DisputeStore sets the storage again when the dispute is added.
+    public Storage<DisputeList> getStorageForNewDispute() {
+        return disputes.getStorage(new Date().getTime());
     }
 
     public ObservableList<Dispute> getDisputesAsObservableList() {
@@ -837,7 +850,7 @@ public class DisputeManager implements PersistedDataHost {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private Optional<Dispute> findDispute(String tradeId, int traderId) {
-        return disputes.stream().filter(e -> e.getTradeId().equals(tradeId) && e.getTraderId() == traderId).findAny();
+        return disputes.findDispute(tradeId, traderId);
     }
 
     public Optional<Dispute> findOwnDispute(String tradeId) {
@@ -845,7 +858,7 @@ public class DisputeManager implements PersistedDataHost {
     }
 
     private Stream<Dispute> getDisputeStream(String tradeId) {
-        return disputes.stream().filter(e -> e.getTradeId().equals(tradeId));
+        return disputes.getDisputesByTradeId(tradeId).stream();
     }
 
     private void cleanupRetryMap(String uid) {
@@ -0,0 +1,225 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.arbitration;
+
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.storage.Storage;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+
+import java.text.SimpleDateFormat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists the disputes in one DisputeList file per month of their opening date, so a change of a dispute only
+ * rewrites the disputes opened in the same month and not the whole history. Each dispute gets the storage of its file.
+ * <p>
+ * Disputes are indexed by tradeId and by their ID (tradeId and traderId).
+ * <p>
+ * The disputes of the former single DisputeList file are copied to the monthly files. The old file is cleared at the
+ * next start once all its disputes are found in the monthly files.
+ */
+@Slf4j
+class DisputeStore {
+    static final String SHARD_FILE_PREFIX = "DisputeList_";
+
+    private final File storageDir;
+    private final PersistenceProtoResolver persistenceProtoResolver;
+    // Storage of the former single file
+    private final Storage<DisputeList> legacyStorage;
+    private final AttachmentStore attachmentStore;
+    private final Map<String, DisputeList> shardsByKey = new HashMap<>();
+    private final Map<String, Storage<DisputeList>> storagesByKey = new HashMap<>();
+    private final SimpleDateFormat shardKeyFormat = new SimpleDateFormat("yyyy_MM");
+
+    // All disputes
+    @Getter
+    private final ObservableList<Dispute> list = FXCollections.observableArrayList();
+    // If there are several disputes with the same ID the first one is indexed
+    private final Map<String, Dispute> disputeById = new HashMap<>();
+    private final Map<String, List<Dispute>> disputesByTradeId = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    DisputeStore(File storageDir,
+                 PersistenceProtoResolver persistenceProtoResolver,
+                 Storage<DisputeList> legacyStorage,
+                 AttachmentStore attachmentStore) {
+        this.storageDir = storageDir;
+        this.persistenceProtoResolver = persistenceProtoResolver;
+        this.legacyStorage = legacyStorage;
+        this.attachmentStore = attachmentStore;
+        shardKeyFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void readPersisted() {
+        long ts = System.currentTimeMillis();
+        File[] files = storageDir.listFiles((dir, name) -> name.matches(SHARD_FILE_PREFIX + "\\d{4}_\\d{2}"));
+        if (files != null) {
+            // listFiles has no defined order, the file names differ only by the key
+            Arrays.sort(files, Comparator.comparing(File::getName));
+            for (File file : files) {
+                final String key = file.getName().substring(SHARD_FILE_PREFIX.length());
+                getShard(key).stream().forEach(dispute -> onAdded(dispute, key));
+            }
+        }
+
+        DisputeList legacyList = new DisputeList(legacyStorage, attachmentStore);
+        legacyList.readPersisted();
+        if (!legacyList.isEmpty()) {
+            // The legacy file might contain several disputes with the same ID, so we compare the number of disputes
+            // per ID. Disputes copied at an earlier start might have changed since, so we cannot compare by equals.
+            final Map<String, Long> numPersistedById = list.stream()
+                    .collect(Collectors.groupingBy(Dispute::getId, Collectors.counting()));
+            final List<Dispute> missing = new ArrayList<>();
+            legacyList.stream().collect(Collectors.groupingBy(Dispute::getId, LinkedHashMap::new, Collectors.toList()))
+                    .forEach((id, disputes) -> {
+                        final int numPersisted = numPersistedById.getOrDefault(id, 0L).intValue();
+                        if (numPersisted < disputes.size())
+                            missing.addAll(disputes.subList(numPersisted, disputes.size()));
+                    });
+
+            if (missing.isEmpty()) {
+                log.info("All {} disputes of the former DisputeList file are in the monthly files. We clear it.",
+                        legacyList.size());
+                legacyList.getList().clear();
+                legacyStorage.queueUpForSave();
+            } else {
+                // We keep the former file until we have read all its disputes from the monthly files at a later start
+                log.info("We copy {} disputes of the former DisputeList file to the monthly files.", missing.size());
+                missing.forEach(this::add);
+            }
+        }
+        log.info("Reading {} disputes from {} files took {} ms", list.size(), shardsByKey.size(),
+                System.currentTimeMillis() - ts);
+    }
+
+    boolean add(Dispute dispute) {
+        final String key = getShardKey(dispute);
+        if (!getShard(key).add(dispute))
+            return false;
+
+        onAdded(dispute, key);
+        return true;
+    }
+
+    boolean remove(Dispute dispute) {
+        final DisputeList shard = shardsByKey.get(getShardKey(dispute));
+        if (shard == null || !shard.remove(dispute))
+            return false;
+
+        list.remove(dispute);
+        final List<Dispute> disputesOfTrade = disputesByTradeId.get(dispute.getTradeId());
+        if (disputesOfTrade != null) {
+            disputesOfTrade.remove(dispute);
+            if (disputesOfTrade.isEmpty())
+                disputesByTradeId.remove(dispute.getTradeId());
+        }
+        if (disputeById.get(dispute.getId()) == dispute) {
+            disputeById.remove(dispute.getId());
+            list.stream().filter(e -> e.getId().equals(dispute.getId())).findFirst()
+                    .ifPresent(e -> disputeById.put(e.getId(), e));
+        }
+        return true;
+    }
+
+    boolean contains(Dispute dispute) {
+        return disputesByTradeId.getOrDefault(dispute.getTradeId(), Collections.emptyList()).contains(dispute);
+    }
+
+    Stream<Dispute> stream() {
+        return list.stream();
+    }
+
+    Optional<Dispute> findDispute(String tradeId, int traderId) {
+        final Dispute dispute = disputeById.get(tradeId + "_" + traderId);
+        if (dispute != null && dispute.getTradeId().equals(tradeId) && dispute.getTraderId() == traderId)
+            return Optional.of(dispute);
+
+        // The ID is ambiguous if the tradeId contains "_"
+        return getDisputesByTradeId(tradeId).stream().filter(e -> e.getTraderId() == traderId).findAny();
+    }
+
+    List<Dispute> getDisputesByTradeId(String tradeId) {
+        return disputesByTradeId.getOrDefault(tradeId, Collections.emptyList());
+    }
+
+    /**
+     * @return The storage of the file for disputes opened at openingDate.
+     */
+    Storage<DisputeList> getStorage(long openingDate) {
+        final String key = shardKeyFormat.format(new Date(openingDate));
+        getShard(key);
+        return storagesByKey.get(key);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onAdded(Dispute dispute, String key) {
+        dispute.setStorage(storagesByKey.get(key));
+        list.add(dispute);
+        disputeById.putIfAbsent(dispute.getId(), dispute);
+        disputesByTradeId.computeIfAbsent(dispute.getTradeId(), k -> new ArrayList<>()).add(dispute);
+    }
+
+    private DisputeList getShard(String key) {
+        DisputeList shard = shardsByKey.get(key);
+        if (shard == null) {
+            Storage<DisputeList> storage = new Storage<>(storageDir, persistenceProtoResolver);
+            shard = new DisputeList(storage, attachmentStore, SHARD_FILE_PREFIX + key);
+            shard.readPersisted();
+            shardsByKey.put(key, shard);
+            storagesByKey.put(key, storage);
+        }
+        return shard;
+    }
+
+    private String getShardKey(Dispute dispute) {
+        return shardKeyFormat.format(dispute.getOpeningDate());
+    }
+}
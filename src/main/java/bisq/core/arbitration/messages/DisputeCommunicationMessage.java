@@ -18,6 +18,7 @@
 package bisq.core.arbitration.messages;
 
 import bisq.core.arbitration.Attachment;
+import bisq.core.arbitration.AttachmentStore;
 
 import bisq.network.p2p.NodeAddress;
 
@@ -32,6 +33,7 @@ import javafx.beans.property.SimpleBooleanProperty;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import lombok.EqualsAndHashCode;
@@ -112,22 +114,30 @@ public final class DisputeCommunicationMessage extends DisputeMessage {
     @Override
     public PB.NetworkEnvelope toProtoNetworkEnvelope() {
         return getNetworkEnvelopeBuilder()
-                .setDisputeCommunicationMessage(PB.DisputeCommunicationMessage.newBuilder()
-                        .setTradeId(tradeId)
-                        .setTraderId(traderId)
-                        .setSenderIsTrader(senderIsTrader)
-                        .setMessage(message)
-                        .addAllAttachments(attachments.stream().map(Attachment::toProtoMessage).collect(Collectors.toList()))
-                        .setSenderNodeAddress(senderNodeAddress.toProtoMessage())
-                        .setDate(date)
-                        .setArrived(arrivedProperty.get())
-                        .setStoredInMailbox(storedInMailboxProperty.get())
-                        .setIsSystemMessage(isSystemMessage)
-                        .setUid(uid)
-                )
+                .setDisputeCommunicationMessage(getBuilder(Attachment::toProtoMessage))
                 .build();
     }
 
+    // Used for persistence, attachments are only referenced (see AttachmentStore)
+    public PB.DisputeCommunicationMessage toPersistableProtoMessage(AttachmentStore attachmentStore) {
+        return getBuilder(attachment -> attachment.toPersistableProtoMessage(attachmentStore)).build();
+    }
+
+    private PB.DisputeCommunicationMessage.Builder getBuilder(Function<Attachment, PB.Attachment> attachmentToProto) {
+        return PB.DisputeCommunicationMessage.newBuilder()
+                .setTradeId(tradeId)
+                .setTraderId(traderId)
+                .setSenderIsTrader(senderIsTrader)
+                .setMessage(message)
+                .addAllAttachments(attachments.stream().map(attachmentToProto).collect(Collectors.toList()))
+                .setSenderNodeAddress(senderNodeAddress.toProtoMessage())
+                .setDate(date)
+                .setArrived(arrivedProperty.get())
+                .setStoredInMailbox(storedInMailboxProperty.get())
+                .setIsSystemMessage(isSystemMessage)
+                .setUid(uid);
+    }
+
     public static DisputeCommunicationMessage fromProto(PB.DisputeCommunicationMessage proto, int messageVersion) {
         final DisputeCommunicationMessage disputeCommunicationMessage = new DisputeCommunicationMessage(
                 proto.getTradeId(),
@@ -146,6 +156,16 @@ public final class DisputeCommunicationMessage extends DisputeMessage {
     }
 
     public static DisputeCommunicationMessage fromPayloadProto(PB.DisputeCommunicationMessage proto) {
+        return fromPayloadProto(proto, Attachment::fromProto);
+    }
+
+    public static DisputeCommunicationMessage fromPersistableProto(PB.DisputeCommunicationMessage proto,
+                                                                   AttachmentStore attachmentStore) {
+        return fromPayloadProto(proto, attachmentProto -> Attachment.fromPersistableProto(attachmentProto, attachmentStore));
+    }
+
+    private static DisputeCommunicationMessage fromPayloadProto(PB.DisputeCommunicationMessage proto,
+                                                                Function<PB.Attachment, Attachment> attachmentFromProto) {
         // We have the case that an envelope got wrapped into a payload.
         // We don't check the message version here as it was checked in the carrier envelope already (in connection class)
         // Payloads dont have a message version and are also used for persistence
@@ -155,7 +175,7 @@ public final class DisputeCommunicationMessage extends DisputeMessage {
                 proto.getTraderId(),
                 proto.getSenderIsTrader(),
                 proto.getMessage(),
-                new ArrayList<>(proto.getAttachmentsList().stream().map(Attachment::fromProto).collect(Collectors.toList())),
+                new ArrayList<>(proto.getAttachmentsList().stream().map(attachmentFromProto).collect(Collectors.toList())),
                 NodeAddress.fromProto(proto.getSenderNodeAddress()),
                 proto.getDate(),
                 proto.getArrived(),
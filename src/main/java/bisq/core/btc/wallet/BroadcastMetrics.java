@@ -0,0 +1,157 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import bisq.core.util.LatencySamples;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters and latency histograms of our tx broadcasts.
+ * <p>
+ * We record the time until the first peer announced the tx back to us and the time until the broadcast completed.
+ * The completion latency is also recorded if the broadcast completed after the timeout, so the timeout derived from
+ * it grows if the peers are slow.
+ */
+class BroadcastMetrics {
+    static final long DEFAULT_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(8);
+    static final long MIN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(5);
+    static final long MAX_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    // Upper bounds of the histogram buckets, the last bucket takes all above
+    static final long[] BUCKET_BOUNDS_MS = {500, 1000, 2000, 4000, 8000, 16000, 32000, 64000};
+
+    private static final double TIMEOUT_PERCENTILE = 0.9;
+    private static final int TIMEOUT_FACTOR = 2;
+    private static final int NUM_SAMPLES = 50;
+    private static final int MIN_SAMPLES = 5;
+
+    private final long[] firstAckHistogram = new long[BUCKET_BOUNDS_MS.length + 1];
+    private final long[] completionHistogram = new long[BUCKET_BOUNDS_MS.length + 1];
+    // The last completion latencies
+    private final LatencySamples samples = new LatencySamples(NUM_SAMPLES);
+
+    private long numSuccesses;
+    private long numTimeouts;
+    private long numFailures;
+    private long numLateFailures;
+    private long numRejected;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    synchronized void onFirstPeerAck(long latencyMs) {
+        firstAckHistogram[getBucket(latencyMs)]++;
+    }
+
+    synchronized void onSuccess(long latencyMs) {
+        numSuccesses++;
+        addCompletionLatency(latencyMs);
+    }
+
+    // The broadcast completed after we had assumed success at the timeout
+    synchronized void onLateSuccess(long latencyMs) {
+        addCompletionLatency(latencyMs);
+    }
+
+    synchronized void onTimeout() {
+        numTimeouts++;
+    }
+
+    synchronized void onFailure() {
+        numFailures++;
+    }
+
+    // The broadcast failed after we had assumed success at the timeout
+    synchronized void onLateFailure() {
+        numLateFailures++;
+    }
+
+    synchronized void onRejected() {
+        numRejected++;
+    }
+
+    /**
+     * @return Twice the 90th percentile of the recent completion latencies, between MIN_TIMEOUT_MS and
+     * MAX_TIMEOUT_MS. DEFAULT_TIMEOUT_MS if we have too few samples.
+     */
+    synchronized long getTimeoutMs() {
+        if (samples.size() < MIN_SAMPLES)
+            return DEFAULT_TIMEOUT_MS;
+
+        return Math.max(MIN_TIMEOUT_MS, Math.min(MAX_TIMEOUT_MS, TIMEOUT_FACTOR * samples.getPercentile(TIMEOUT_PERCENTILE)));
+    }
+
+    synchronized long getNumSuccesses() {
+        return numSuccesses;
+    }
+
+    synchronized long getNumTimeouts() {
+        return numTimeouts;
+    }
+
+    synchronized long getNumFailures() {
+        return numFailures;
+    }
+
+    synchronized long getNumLateFailures() {
+        return numLateFailures;
+    }
+
+    synchronized long getNumRejected() {
+        return numRejected;
+    }
+
+    synchronized Map<Long, Long> getFirstAckHistogram() {
+        return toMap(firstAckHistogram);
+    }
+
+    synchronized Map<Long, Long> getCompletionHistogram() {
+        return toMap(completionHistogram);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void addCompletionLatency(long latencyMs) {
+        completionHistogram[getBucket(latencyMs)]++;
+        samples.add(latencyMs);
+    }
+
+    private static int getBucket(long latencyMs) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (latencyMs <= BUCKET_BOUNDS_MS[i])
+                return i;
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    // Key is the upper bound of the bucket in ms, Long.MAX_VALUE for the last bucket
+    private static Map<Long, Long> toMap(long[] histogram) {
+        Map<Long, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < histogram.length; i++)
+            map.put(i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : Long.MAX_VALUE, histogram[i]);
+        return map;
+    }
+}
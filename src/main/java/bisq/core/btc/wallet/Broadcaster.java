@@ -1,18 +1,18 @@
 /*
  * This file is part of Bisq.
  *
- * bisq is free software: you can redistribute it and/or modify it
+ * Bisq is free software: you can redistribute it and/or modify it
  * under the terms of the GNU Affero General Public License as published by
  * the Free Software Foundation, either version 3 of the License, or (at
  * your option) any later version.
  *
- * bisq is distributed in the hope that it will be useful, but WITHOUT
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
  * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
  * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
  * License for more details.
  *
  * You should have received a copy of the GNU Affero General Public License
- * along with bisq. If not, see <http://www.gnu.org/licenses/>.
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
  */
 
 package bisq.core.btc.wallet;
@@ -22,13 +22,20 @@ import bisq.common.UserThread;
 
 import org.bitcoinj.core.PeerGroup;
 import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionBroadcast;
 import org.bitcoinj.wallet.Wallet;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,69 +43,234 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
 
+/**
+ * Broadcasts txs to the bitcoin network.
+ * <p>
+ * At most MAX_CONCURRENT_BROADCASTS txs are broadcast at the same time, further txs are queued up to
+ * MAX_QUEUED_BROADCASTS. A tx which is already queued or broadcast is not broadcast again, the callback is added to the
+ * running broadcast.
+ * <p>
+ * If the broadcast does not complete within the timeout we optimistically assume that it succeeded. If the caller does
+ * not pass a timeout we derive it from the latency of the recent broadcasts (see BroadcastMetrics).
+ */
 @Slf4j
 public class Broadcaster {
-    private static final int DEFAULT_BROADCAST_TIMEOUT = 8;
-    private static Set<String> broadcastTimerSet = new HashSet<>();
+    private static final int MAX_CONCURRENT_BROADCASTS = 5;
+    private static final int MAX_QUEUED_BROADCASTS = 500;
+
+    private static final class Broadcast {
+        private final Wallet wallet;
+        private final PeerGroup peerGroup;
+        private final Transaction tx;
+        private final List<FutureCallback<Transaction>> callbacks = new CopyOnWriteArrayList<>();
+        private final long timeoutMs;
+        private long startTs;
+        private boolean firstPeerAckReceived;
+        private boolean completed;
+        @Nullable
+        private Timer timeoutTimer;
+
+        Broadcast(Wallet wallet, PeerGroup peerGroup, Transaction tx, FutureCallback<Transaction> callback, long timeoutMs) {
+            this.wallet = wallet;
+            this.peerGroup = peerGroup;
+            this.tx = tx;
+            this.timeoutMs = timeoutMs;
+            callbacks.add(callback);
+        }
+    }
+
+    // Queued and running broadcasts by txId
+    private static final Map<String, Broadcast> broadcastsByTxId = new ConcurrentHashMap<>();
+    // Guarded by the class lock
+    private static final Deque<Broadcast> queue = new ArrayDeque<>();
+    private static int numRunningBroadcasts;
+    private static final BroadcastMetrics metrics = new BroadcastMetrics();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
 
     public static void broadcastTx(Wallet wallet, PeerGroup peerGroup, Transaction tx, FutureCallback<Transaction> callback) {
-        broadcastTx(wallet, peerGroup, tx, callback, DEFAULT_BROADCAST_TIMEOUT);
+        enqueue(wallet, peerGroup, tx, callback, metrics.getTimeoutMs());
     }
 
     public static void broadcastTx(Wallet wallet, PeerGroup peerGroup, Transaction tx, FutureCallback<Transaction> callback, int timeoutInSec) {
-        final Timer timeoutTimer;
-        if (!broadcastTimerSet.contains(tx.getHashAsString())) {
-            timeoutTimer = UserThread.runAfter(() -> {
-                log.warn("Broadcast of tx {} not completed after {} sec. We optimistically assume that the tx broadcast succeeded and " +
-                        "call onSuccess on the callback handler.", tx.getHashAsString(), timeoutInSec);
+        enqueue(wallet, peerGroup, tx, callback, TimeUnit.SECONDS.toMillis(timeoutInSec));
+    }
 
-                wallet.maybeCommitTx(tx);
+    public static int getNumQueuedBroadcasts() {
+        synchronized (Broadcaster.class) {
+            return queue.size();
+        }
+    }
 
-                callback.onSuccess(tx);
+    public static int getNumRunningBroadcasts() {
+        synchronized (Broadcaster.class) {
+            return numRunningBroadcasts;
+        }
+    }
 
-                broadcastTimerSet.remove(tx.getHashAsString());
-            }, timeoutInSec);
-            broadcastTimerSet.add(tx.getHashAsString());
-        } else {
-            timeoutTimer = null;
+    public static long getNumSuccessfulBroadcasts() {
+        return metrics.getNumSuccesses();
+    }
+
+    public static long getNumTimedOutBroadcasts() {
+        return metrics.getNumTimeouts();
+    }
+
+    public static long getNumFailedBroadcasts() {
+        return metrics.getNumFailures();
+    }
+
+    // Broadcasts which failed after the timeout, they are counted as timed out as well
+    public static long getNumLateFailedBroadcasts() {
+        return metrics.getNumLateFailures();
+    }
+
+    public static long getNumRejectedBroadcasts() {
+        return metrics.getNumRejected();
+    }
+
+    /**
+     * @return Number of broadcasts by the upper bound in ms of the latency until the first peer announced the tx.
+     */
+    public static Map<Long, Long> getFirstPeerAckLatencyHistogram() {
+        return metrics.getFirstAckHistogram();
+    }
+
+    /**
+     * @return Number of broadcasts by the upper bound in ms of the latency until the broadcast completed.
+     */
+    public static Map<Long, Long> getCompletionLatencyHistogram() {
+        return metrics.getCompletionHistogram();
+    }
+
+    public static long getBroadcastTimeoutMs() {
+        return metrics.getTimeoutMs();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static synchronized void enqueue(Wallet wallet,
+                                             PeerGroup peerGroup,
+                                             Transaction tx,
+                                             FutureCallback<Transaction> callback,
+                                             long timeoutMs) {
+        final String txId = tx.getHashAsString();
+        Broadcast broadcast = broadcastsByTxId.get(txId);
+        if (broadcast != null) {
+            log.info("Tx {} is already getting broadcast. We add the callback to the running broadcast.", txId);
+            broadcast.callbacks.add(callback);
+            return;
+        }
+
+        if (queue.size() >= MAX_QUEUED_BROADCASTS) {
+            log.error("Broadcast of tx {} rejected as there are already {} txs waiting for broadcast.", txId, queue.size());
+            metrics.onRejected();
+            UserThread.execute(() -> callback.onFailure(new RejectedExecutionException("Too many txs waiting for broadcast.")));
+            return;
+        }
+
+        broadcast = new Broadcast(wallet, peerGroup, tx, callback, timeoutMs);
+        broadcastsByTxId.put(txId, broadcast);
+        queue.add(broadcast);
+        maybeStartBroadcasts();
+    }
+
+    private static synchronized void maybeStartBroadcasts() {
+        while (numRunningBroadcasts < MAX_CONCURRENT_BROADCASTS && !queue.isEmpty()) {
+            numRunningBroadcasts++;
+            start(queue.poll());
         }
+        if (!queue.isEmpty())
+            log.info("{} txs are waiting for broadcast", queue.size());
+    }
 
-        Futures.addCallback(peerGroup.broadcastTransaction(tx).future(), new FutureCallback<Transaction>() {
+    private static void start(Broadcast broadcast) {
+        final Transaction tx = broadcast.tx;
+        broadcast.startTs = System.currentTimeMillis();
+        broadcast.timeoutTimer = UserThread.runAfter(() -> onTimeout(broadcast), broadcast.timeoutMs, TimeUnit.MILLISECONDS);
+
+        TransactionBroadcast transactionBroadcast = broadcast.peerGroup.broadcastTransaction(tx);
+        transactionBroadcast.setProgressCallback(progress -> onProgress(broadcast, progress), UserThread.getExecutor());
+        Futures.addCallback(transactionBroadcast.future(), new FutureCallback<Transaction>() {
             @Override
             public void onSuccess(@Nullable Transaction result) {
                 // At regtest we get called immediately back but we want to make sure that the handler is not called
                 // before the caller is finished.
-                UserThread.execute(() -> {
-                    if (broadcastTimerSet.contains(tx.getHashAsString())) {
-                        // If the timeout has not been called we call the callback.onSuccess
-                        stopAndRemoveTimer(timeoutTimer, tx);
-
-                        if (result != null)
-                            wallet.maybeCommitTx(result);
-
-                        callback.onSuccess(tx);
-                    } else {
-                        // Timeout was triggered, nothing to do anymore.
-                        log.info("onSuccess for tx {} was already called from timeout handler. ", tx.getHashAsString());
-                    }
-                });
+                UserThread.execute(() -> Broadcaster.onSuccess(broadcast, result));
             }
 
             @Override
             public void onFailure(@NotNull Throwable t) {
-                UserThread.execute(() -> {
-                    stopAndRemoveTimer(timeoutTimer, tx);
-
-                    callback.onFailure(t);
-                });
+                UserThread.execute(() -> Broadcaster.onFailure(broadcast, t));
             }
         });
     }
 
-    private static void stopAndRemoveTimer(@Nullable Timer timer, Transaction tx) {
-        if (timer != null)
-            timer.stop();
+    private static void onProgress(Broadcast broadcast, double progress) {
+        if (progress > 0 && !broadcast.firstPeerAckReceived) {
+            broadcast.firstPeerAckReceived = true;
+            final long latency = System.currentTimeMillis() - broadcast.startTs;
+            metrics.onFirstPeerAck(latency);
+            log.debug("First peer announced tx {} after {} ms", broadcast.tx.getHashAsString(), latency);
+        }
+    }
+
+    private static void onSuccess(Broadcast broadcast, @Nullable Transaction result) {
+        final long latency = System.currentTimeMillis() - broadcast.startTs;
+        if (complete(broadcast)) {
+            metrics.onSuccess(latency);
+            if (result != null)
+                broadcast.wallet.maybeCommitTx(result);
+
+            broadcast.callbacks.forEach(callback -> callback.onSuccess(broadcast.tx));
+        } else {
+            // Timeout was triggered, nothing to do anymore.
+            metrics.onLateSuccess(latency);
+            log.info("onSuccess for tx {} was already called from timeout handler. Broadcast took {} ms.",
+                    broadcast.tx.getHashAsString(), latency);
+        }
+    }
+
+    private static void onFailure(Broadcast broadcast, Throwable t) {
+        if (complete(broadcast)) {
+            metrics.onFailure();
+        } else {
+            // Timeout was triggered and counted already. We still inform the callbacks about the failure.
+            metrics.onLateFailure();
+            log.warn("Broadcast of tx {} failed after the timeout handler assumed success. Error={}",
+                    broadcast.tx.getHashAsString(), t.toString());
+        }
+        broadcast.callbacks.forEach(callback -> callback.onFailure(t));
+    }
+
+    private static void onTimeout(Broadcast broadcast) {
+        if (!complete(broadcast))
+            return;
+
+        log.warn("Broadcast of tx {} not completed after {} ms. We optimistically assume that the tx broadcast succeeded and " +
+                "call onSuccess on the callback handler.", broadcast.tx.getHashAsString(), broadcast.timeoutMs);
+        metrics.onTimeout();
+        broadcast.wallet.maybeCommitTx(broadcast.tx);
+        broadcast.callbacks.forEach(callback -> callback.onSuccess(broadcast.tx));
+    }
+
+    // Returns false if the broadcast was completed already
+    private static synchronized boolean complete(Broadcast broadcast) {
+        if (broadcast.completed)
+            return false;
 
-        broadcastTimerSet.remove(tx.getHashAsString());
+        broadcast.completed = true;
+        if (broadcast.timeoutTimer != null)
+            broadcast.timeoutTimer.stop();
+        broadcastsByTxId.remove(broadcast.tx.getHashAsString());
+        numRunningBroadcasts--;
+        maybeStartBroadcasts();
+        return true;
     }
 }
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.wallet.Wallet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static org.bitcoinj.core.TransactionConfidence.ConfidenceType.PENDING;
+
+/**
+ * Keeps the available and unverified BSQ balance as the sum of the contributions of the single wallet transactions.
+ * <p>
+ * The available balance of a transaction is the value of its outputs which are spend candidates and accepted by the
+ * BsqCoinSelector, the unverified balance is the value of our outputs of a pending transaction. Both only depend on
+ * the transaction itself and on the transactions spending its outputs. So if a transaction changes we only
+ * recalculate it and the transactions it spends from and apply the difference to the totals.
+ * <p>
+ * The spendable state of the BSQ outputs can change for any transaction with a new BSQ block, so then we
+ * recalculate all transactions.
+ */
+@Slf4j
+class BsqBalanceTracker {
+    private static final class Balance {
+        private final long available;
+        private final long unverified;
+
+        Balance(long available, long unverified) {
+            this.available = available;
+            this.unverified = unverified;
+        }
+    }
+
+    private final BsqCoinSelector bsqCoinSelector;
+    private final Map<Sha256Hash, Balance> balanceByTxHash = new HashMap<>();
+    private long available;
+    private long unverified;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    BsqBalanceTracker(BsqCoinSelector bsqCoinSelector) {
+        this.bsqCoinSelector = bsqCoinSelector;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void recalculateAll(Wallet wallet, Collection<Transaction> transactions) {
+        long ts = System.currentTimeMillis();
+        balanceByTxHash.clear();
+        available = 0;
+        unverified = 0;
+        transactions.forEach(tx -> update(wallet, tx));
+        log.debug("Recalculating the BSQ balance of {} transactions took {} ms",
+                transactions.size(), System.currentTimeMillis() - ts);
+    }
+
+    /**
+     * Recalculates the given transactions and the wallet transactions they spend from.
+     */
+    void onTransactionsChanged(Wallet wallet, Collection<Transaction> transactions) {
+        Set<Sha256Hash> affectedTxHashes = new HashSet<>();
+        transactions.forEach(tx -> {
+            affectedTxHashes.add(tx.getHash());
+            // We use the outpoint as the inputs of a dead tx get disconnected
+            for (TransactionInput input : tx.getInputs())
+                affectedTxHashes.add(input.getOutpoint().getHash());
+        });
+
+        for (Sha256Hash hash : affectedTxHashes) {
+            Transaction tx = wallet.getTransaction(hash);
+            if (tx != null)
+                update(wallet, tx);
+            else
+                remove(hash);
+        }
+    }
+
+    Coin getAvailableBalance() {
+        return Coin.valueOf(available);
+    }
+
+    Coin getUnverifiedBalance() {
+        return Coin.valueOf(unverified);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void update(Wallet wallet, Transaction tx) {
+        remove(tx.getHash());
+        Balance balance = calculate(wallet, tx);
+        if (balance.available != 0 || balance.unverified != 0) {
+            balanceByTxHash.put(tx.getHash(), balance);
+            available += balance.available;
+            unverified += balance.unverified;
+        }
+    }
+
+    private void remove(Sha256Hash hash) {
+        Balance balance = balanceByTxHash.remove(hash);
+        if (balance != null) {
+            available -= balance.available;
+            unverified -= balance.unverified;
+        }
+    }
+
+    private Balance calculate(Wallet wallet, Transaction tx) {
+        // Same conditions as in wallet.calculateAllSpendCandidates and BisqDefaultCoinSelector.select
+        final boolean isTxSpendable = bsqCoinSelector.isTxSpendable(tx);
+        final boolean isPending = tx.getConfidence().getConfidenceType() == PENDING;
+        long availableValue = 0;
+        long unverifiedValue = 0;
+        for (TransactionOutput output : tx.getOutputs()) {
+            if (!output.isMine(wallet))
+                continue;
+
+            if (isPending)
+                unverifiedValue += output.getValue().value;
+            if (isTxSpendable && output.isAvailableForSpending() && bsqCoinSelector.isTxOutputSpendable(output))
+                availableValue += output.getValue().value;
+        }
+        return new Balance(availableValue, unverifiedValue);
+    }
+}
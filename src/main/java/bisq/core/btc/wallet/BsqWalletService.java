@@ -29,14 +29,17 @@ import bisq.core.dao.blockchain.vo.TxOutput;
 import bisq.core.provider.fee.FeeService;
 import bisq.core.user.Preferences;
 
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
 import org.bitcoinj.core.Address;
 import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.BlockChain;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.InsufficientMoneyException;
-import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.core.ScriptException;
+import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionConfidence;
 import org.bitcoinj.core.TransactionInput;
@@ -52,12 +55,14 @@ import javax.inject.Inject;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -68,13 +73,23 @@ import static org.bitcoinj.core.TransactionConfidence.ConfidenceType.PENDING;
 
 @Slf4j
 public class BsqWalletService extends WalletService implements BsqBlockChainListener {
+    // Wallet events within UPDATE_DELAY_MS are applied at once
+    private static final long UPDATE_DELAY_MS = 100;
+
     private final BsqCoinSelector bsqCoinSelector;
     private final BsqBlockChain bsqBlockChain;
     private final ObservableList<Transaction> walletTransactions = FXCollections.observableArrayList();
+    // Same transactions as walletTransactions, by hash
+    private final Map<Sha256Hash, Transaction> walletTransactionsByHash = new HashMap<>();
     private final CopyOnWriteArraySet<BsqBalanceListener> bsqBalanceListeners = new CopyOnWriteArraySet<>();
+    private final BsqBalanceTracker bsqBalanceTracker;
     private Coin availableBsqBalance = Coin.ZERO;
     private Coin unverifiedBalance = Coin.ZERO;
 
+    private final Set<Transaction> changedTransactions = new HashSet<>();
+    private boolean fullUpdateRequired = true;
+    private Timer updateTimer;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -93,6 +108,7 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
 
         this.bsqCoinSelector = bsqCoinSelector;
         this.bsqBlockChain = bsqBlockChain;
+        bsqBalanceTracker = new BsqBalanceTracker(bsqCoinSelector);
 
         if (BisqEnvironment.isBaseCurrencySupportingBsq()) {
             walletsSetup.addSetupCompletedHandler(() -> {
@@ -105,38 +121,39 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
                     wallet.addEventListener(new AbstractWalletEventListener() {
                         @Override
                         public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
-                            updateBsqWalletTransactions();
+                            onTransactionChanged(tx);
                         }
 
                         @Override
                         public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
-                            updateBsqWalletTransactions();
+                            onTransactionChanged(tx);
                         }
 
                         @Override
                         public void onReorganize(Wallet wallet) {
                             log.warn("onReorganize ");
-                            updateBsqWalletTransactions();
+                            requestFullUpdate();
                         }
 
                         @Override
                         public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
-                            updateBsqWalletTransactions();
+                            onTransactionChanged(tx);
                         }
 
                         @Override
                         public void onKeysAdded(List<ECKey> keys) {
-                            updateBsqWalletTransactions();
+                            requestFullUpdate();
                         }
 
                         @Override
                         public void onScriptsChanged(Wallet wallet, List<Script> scripts, boolean isAddingScripts) {
-                            updateBsqWalletTransactions();
+                            requestFullUpdate();
                         }
 
                         @Override
                         public void onWalletChanged(Wallet wallet) {
-                            updateBsqWalletTransactions();
+                            // Called after each of the tx events above, which tell us what has changed
+                            scheduleUpdate();
                         }
 
                     });
@@ -157,8 +174,9 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
 
     @Override
     public void onBsqBlockChainChanged() {
+        // The spendable state of any BSQ output might have changed
         if (isWalletReady())
-            updateBsqWalletTransactions();
+            requestFullUpdate();
     }
 
 
@@ -179,19 +197,8 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private void updateBsqBalance() {
-        availableBsqBalance = bsqCoinSelector.select(NetworkParameters.MAX_MONEY,
-                wallet.calculateAllSpendCandidates()).valueGathered;
-
-        unverifiedBalance = Coin.valueOf(getTransactions(false).stream()
-                .flatMap(tx -> tx.getOutputs().stream())
-                .filter(out -> {
-                    final Transaction parentTx = out.getParentTransaction();
-                    return parentTx != null &&
-                            out.isMine(wallet) &&
-                            parentTx.getConfidence().getConfidenceType() == PENDING;
-                })
-                .mapToLong(out -> out.getValue().value).sum());
-
+        availableBsqBalance = bsqBalanceTracker.getAvailableBalance();
+        unverifiedBalance = bsqBalanceTracker.getUnverifiedBalance();
         bsqBalanceListeners.stream().forEach(e -> e.updateAvailableBalance(availableBsqBalance, unverifiedBalance));
     }
 
@@ -221,12 +228,52 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
         return walletTransactions;
     }
 
+    private void onTransactionChanged(Transaction tx) {
+        changedTransactions.add(tx);
+        scheduleUpdate();
+    }
+
+    private void requestFullUpdate() {
+        fullUpdateRequired = true;
+        scheduleUpdate();
+    }
+
+    private void scheduleUpdate() {
+        if (updateTimer == null)
+            updateTimer = UserThread.runAfter(() -> {
+                updateTimer = null;
+                updateBsqWalletTransactions();
+            }, UPDATE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
     private void updateBsqWalletTransactions() {
-        walletTransactions.setAll(getTransactions(false));
-        // walletTransactions.setAll(getBsqWalletTransactions());
+        if (fullUpdateRequired) {
+            final Set<Transaction> transactions = getTransactions(false);
+            walletTransactionsByHash.clear();
+            transactions.forEach(tx -> walletTransactionsByHash.put(tx.getHash(), tx));
+            walletTransactions.setAll(transactions);
+            // walletTransactions.setAll(getBsqWalletTransactions());
+            bsqBalanceTracker.recalculateAll(wallet, transactions);
+        } else if (!changedTransactions.isEmpty()) {
+            changedTransactions.forEach(this::updateWalletTransaction);
+            bsqBalanceTracker.onTransactionsChanged(wallet, changedTransactions);
+        }
+        fullUpdateRequired = false;
+        changedTransactions.clear();
         updateBsqBalance();
     }
 
+    // Keeps walletTransactions equal to getTransactions(false)
+    private void updateWalletTransaction(Transaction tx) {
+        final boolean isDead = tx.getConfidence().getConfidenceType() == TransactionConfidence.ConfidenceType.DEAD;
+        if (isDead || wallet.getTransaction(tx.getHash()) == null) {
+            if (walletTransactionsByHash.remove(tx.getHash()) != null)
+                walletTransactions.remove(tx);
+        } else if (walletTransactionsByHash.put(tx.getHash(), tx) == null) {
+            walletTransactions.add(tx);
+        }
+    }
+
     private Set<Transaction> getBsqWalletTransactions() {
         return getTransactions(false).stream()
                 .filter(transaction -> transaction.getConfidence().getConfidenceType() == PENDING ||
@@ -341,7 +388,8 @@ public class BsqWalletService extends WalletService implements BsqBlockChainList
     }
 
     public Optional<Transaction> isWalletTransaction(String txId) {
-        return getWalletTransactions().stream().filter(e -> e.getHashAsString().equals(txId)).findAny();
+        Sha256Hash hash = getTxHash(txId);
+        return hash != null ? Optional.ofNullable(walletTransactionsByHash.get(hash)) : Optional.empty();
     }
 
 
@@ -181,10 +181,6 @@ public class BtcWalletService extends WalletService {
 
         // safety check counter to avoid endless loops
         int counter = 0;
-        // estimated size of input sig
-        final int sigSizePerInput = 106;
-        // typical size for a tx with 3 inputs
-        int txSizeWithUnsignedInputs = 300;
         final Coin txFeePerByte = feeService.getTxFeePerByte();
 
         Address changeAddress = getOrCreateAddressEntry(AddressEntry.Context.AVAILABLE).getAddress();
@@ -193,7 +189,9 @@ public class BtcWalletService extends WalletService {
         final BtcCoinSelector coinSelector = new BtcCoinSelector(walletsSetup.getAddressesByContext(AddressEntry.Context.AVAILABLE));
         final List<TransactionInput> preparedBsqTxInputs = preparedTx.getInputs();
         final List<TransactionOutput> preparedBsqTxOutputs = preparedTx.getOutputs();
-        int numInputs = preparedBsqTxInputs.size();
+        final List<TransactionOutput> candidates = wallet.calculateAllSpendCandidates();
+        final int opReturnOutputSize = TxSizeEstimator.getOutputSize(ScriptBuilder.createOpReturnScript(opReturnData));
+        Coin fee = null;
         Transaction resultTx = null;
         boolean isFeeOutsideTolerance;
         do {
@@ -214,7 +212,10 @@ public class BtcWalletService extends WalletService {
             // signInputs needs to be false as it would try to sign all inputs (BSQ inputs are not in this wallet)
             sendRequest.signInputs = false;
 
-            sendRequest.fee = txFeePerByte.multiply(txSizeWithUnsignedInputs + sigSizePerInput * numInputs);
+            // We estimate the fee from the inputs the coin selection will add, so usually the first round is final
+            if (fee == null)
+                fee = TxSizeEstimator.getFee(tx, coinSelector, candidates, txFeePerByte, false, opReturnOutputSize);
+            sendRequest.fee = fee;
             sendRequest.feePerKb = Coin.ZERO;
             sendRequest.ensureMinRequiredFee = false;
 
@@ -227,11 +228,10 @@ public class BtcWalletService extends WalletService {
             // add OP_RETURN output
             resultTx.addOutput(new TransactionOutput(params, resultTx, Coin.ZERO, ScriptBuilder.createOpReturnScript(opReturnData).getProgram()));
 
-            numInputs = resultTx.getInputs().size();
-            txSizeWithUnsignedInputs = resultTx.bitcoinSerialize().length;
-            final long estimatedFeeAsLong = txFeePerByte.multiply(txSizeWithUnsignedInputs + sigSizePerInput * numInputs).value;
+            // If the estimation was wrong we retry with the fee for the size of the completed tx
+            fee = txFeePerByte.multiply(TxSizeEstimator.getSize(resultTx));
             // calculated fee must be inside of a tolerance range with tx fee
-            isFeeOutsideTolerance = Math.abs(resultTx.getFee().value - estimatedFeeAsLong) > 1000;
+            isFeeOutsideTolerance = Math.abs(resultTx.getFee().value - fee.value) > 1000;
         }
         while (isFeeOutsideTolerance);
 
@@ -314,10 +314,6 @@ public class BtcWalletService extends WalletService {
 
         // safety check counter to avoid endless loops
         int counter = 0;
-        // estimated size of input sig
-        final int sigSizePerInput = 106;
-        // typical size for a tx with 2 inputs
-        int txSizeWithUnsignedInputs = 203;
         // If useCustomTxFee we allow overriding the estimated fee from preferences
         final Coin txFeePerByte = useCustomTxFee ? getTxFeeForWithdrawalPerByte() : feeService.getTxFeePerByte();
         // In case there are no change outputs we force a change by adding min dust to the BTC input
@@ -329,7 +325,11 @@ public class BtcWalletService extends WalletService {
         final BtcCoinSelector coinSelector = new BtcCoinSelector(walletsSetup.getAddressesByContext(AddressEntry.Context.AVAILABLE));
         final List<TransactionInput> preparedBsqTxInputs = preparedBsqTx.getInputs();
         final List<TransactionOutput> preparedBsqTxOutputs = preparedBsqTx.getOutputs();
-        int numInputs = preparedBsqTxInputs.size() + 1; // We add 1 for the BTC fee input
+        final List<TransactionOutput> candidates = wallet.calculateAllSpendCandidates();
+        final int opReturnOutputSize = opReturnData != null ?
+                TxSizeEstimator.getOutputSize(ScriptBuilder.createOpReturnScript(opReturnData)) :
+                0;
+        Coin fee = null;
         Transaction resultTx = null;
         boolean isFeeOutsideTolerance;
         boolean opReturnIsOnlyOutput;
@@ -358,7 +358,10 @@ public class BtcWalletService extends WalletService {
             // signInputs needs to be false as it would try to sign all inputs (BSQ inputs are not in this wallet)
             sendRequest.signInputs = false;
 
-            sendRequest.fee = txFeePerByte.multiply(txSizeWithUnsignedInputs + sigSizePerInput * numInputs);
+            // We estimate the fee from the inputs the coin selection will add, so usually the first round is final
+            if (fee == null)
+                fee = TxSizeEstimator.getFee(tx, coinSelector, candidates, txFeePerByte, false, opReturnOutputSize);
+            sendRequest.fee = fee;
             sendRequest.feePerKb = Coin.ZERO;
             sendRequest.ensureMinRequiredFee = false;
 
@@ -378,11 +381,12 @@ public class BtcWalletService extends WalletService {
             if (opReturnData != null)
                 resultTx.addOutput(new TransactionOutput(params, resultTx, Coin.ZERO, ScriptBuilder.createOpReturnScript(opReturnData).getProgram()));
 
-            numInputs = resultTx.getInputs().size();
-            txSizeWithUnsignedInputs = resultTx.bitcoinSerialize().length;
-            final long estimatedFeeAsLong = txFeePerByte.multiply(txSizeWithUnsignedInputs + sigSizePerInput * numInputs).value;
+            // If the estimation was wrong we retry with the fee for the size of the completed tx. With a forced
+            // change output the tx is different, so we estimate again.
+            final Coin feeForSize = txFeePerByte.multiply(TxSizeEstimator.getSize(resultTx));
+            fee = opReturnIsOnlyOutput ? null : feeForSize;
             // calculated fee must be inside of a tolerance range with tx fee
-            isFeeOutsideTolerance = Math.abs(resultTx.getFee().value - estimatedFeeAsLong) > 1000;
+            isFeeOutsideTolerance = Math.abs(resultTx.getFee().value - feeForSize.value) > 1000;
         }
         while (opReturnIsOnlyOutput ||
                 isFeeOutsideTolerance ||
@@ -754,18 +758,21 @@ public class BtcWalletService extends WalletService {
         checkNotNull(addressEntry.get().getAddress(), "addressEntry.get().getAddress() must nto be null");
 
         try {
-            Coin fee;
             int counter = 0;
-            int txSize = 0;
             Transaction tx;
             Coin txFeeForWithdrawalPerByte = getTxFeeForWithdrawalPerByte();
+            // The fee is paid from the amount, so the coin selection does not depend on the fee and we can
+            // calculate the fee from the selected inputs before we complete the tx
+            SendRequest sendRequest = getSendRequest(fromAddress, toAddress, amount, Coin.ZERO, aesKey, context);
+            Coin fee = TxSizeEstimator.getFee(sendRequest.tx, sendRequest.coinSelector,
+                    wallet.calculateAllSpendCandidates(), txFeeForWithdrawalPerByte, true, 0);
             do {
                 counter++;
-                fee = txFeeForWithdrawalPerByte.multiply(txSize);
-                SendRequest sendRequest = getSendRequest(fromAddress, toAddress, amount, fee, aesKey, context);
+                sendRequest = getSendRequest(fromAddress, toAddress, amount, fee, aesKey, context);
                 wallet.completeTx(sendRequest);
                 tx = sendRequest.tx;
-                txSize = tx.bitcoinSerialize().length;
+                // Only used if the estimated fee was not correct
+                fee = txFeeForWithdrawalPerByte.multiply(tx.bitcoinSerialize().length);
                 printTx("FeeEstimationTransaction", tx);
             }
             while (feeEstimationNotSatisfied(counter, tx));
@@ -801,19 +808,23 @@ public class BtcWalletService extends WalletService {
             throw new AddressEntryException("No Addresses for withdraw  found in our wallet");
 
         try {
-            Coin fee;
             int counter = 0;
-            int txSize = 0;
             Transaction tx;
             Coin txFeeForWithdrawalPerByte = getTxFeeForWithdrawalPerByte();
+            // We use a dummy address for the output
+            final String dummyAddress = getOrCreateAddressEntry(AddressEntry.Context.AVAILABLE).getAddressString();
+            // The fee is paid from the amount, so the coin selection does not depend on the fee and we can
+            // calculate the fee from the selected inputs before we complete the tx
+            SendRequest sendRequest = getSendRequestForMultipleAddresses(fromAddresses, dummyAddress, amount, Coin.ZERO, null, aesKey);
+            Coin fee = TxSizeEstimator.getFee(sendRequest.tx, sendRequest.coinSelector,
+                    wallet.calculateAllSpendCandidates(), txFeeForWithdrawalPerByte, true, 0);
             do {
                 counter++;
-                fee = txFeeForWithdrawalPerByte.multiply(txSize);
-                // We use a dummy address for the output
-                SendRequest sendRequest = getSendRequestForMultipleAddresses(fromAddresses, getOrCreateAddressEntry(AddressEntry.Context.AVAILABLE).getAddressString(), amount, fee, null, aesKey);
+                sendRequest = getSendRequestForMultipleAddresses(fromAddresses, dummyAddress, amount, fee, null, aesKey);
                 wallet.completeTx(sendRequest);
                 tx = sendRequest.tx;
-                txSize = tx.bitcoinSerialize().length;
+                // Only used if the estimated fee was not correct
+                fee = txFeeForWithdrawalPerByte.multiply(tx.bitcoinSerialize().length);
                 printTx("FeeEstimationTransactionForMultipleAddresses", tx);
             }
             while (feeEstimationNotSatisfied(counter, tx));
@@ -828,11 +839,14 @@ public class BtcWalletService extends WalletService {
         }
     }
 
+    // TxSizeEstimator uses the max. signature size, so we accept up to 1 byte per input above the target fee
     private boolean feeEstimationNotSatisfied(int counter, Transaction tx) {
-        long targetFee = getTxFeeForWithdrawalPerByte().multiply(tx.bitcoinSerialize().length).value;
+        final Coin txFeePerByte = getTxFeeForWithdrawalPerByte();
+        long targetFee = txFeePerByte.multiply(tx.bitcoinSerialize().length).value;
+        long tolerance = Math.max(1000, txFeePerByte.multiply(tx.getInputs().size()).value);
         return counter < 10 &&
                 (tx.getFee().value < targetFee ||
-                        tx.getFee().value - targetFee > 1000);
+                        tx.getFee().value - targetFee > tolerance);
     }
 
 
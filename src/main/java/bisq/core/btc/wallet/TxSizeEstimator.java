@@ -0,0 +1,171 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.CoinSelection;
+import org.bitcoinj.wallet.CoinSelector;
+
+import java.util.List;
+
+/**
+ * Estimates the serialized size of a transaction once all inputs are signed, from the script types of the spent
+ * outputs and the scripts of the outputs. We don't use segwit, so the size is the vsize.
+ * <p>
+ * Signatures are DER encoded with low S, so they have 71 or 72 bytes incl. the sighash byte. We use the upper bound so
+ * the fee is never below the target, which gives at most 1 byte per input more than the signed size.
+ */
+class TxSizeEstimator {
+    // version + lock time
+    private static final int TX_OVERHEAD_SIZE = 8;
+    // outpoint (hash + index) + sequence number
+    private static final int INPUT_OVERHEAD_SIZE = 32 + 4 + 4;
+    // push of the signature incl. sighash byte
+    private static final int SIG_PUSH_SIZE = 1 + 72;
+    // push of a compressed pubkey, all our keys are compressed
+    private static final int PUBKEY_PUSH_SIZE = 1 + 33;
+    // OP_0 + 2 signatures + push of the redeem script of a 2 of 2 multisig (OP_2 <pubKey> <pubKey> OP_2 OP_CHECKMULTISIG)
+    private static final int P2SH_MULTISIG_SCRIPT_SIG_SIZE = 1 + 2 * SIG_PUSH_SIZE + 1 + (1 + 2 * PUBKEY_PUSH_SIZE + 1 + 1);
+
+    static final int P2PKH_INPUT_SIZE = getInputSize(SIG_PUSH_SIZE + PUBKEY_PUSH_SIZE);
+    static final int P2PK_INPUT_SIZE = getInputSize(SIG_PUSH_SIZE);
+    static final int P2SH_MULTISIG_INPUT_SIZE = getInputSize(P2SH_MULTISIG_SCRIPT_SIG_SIZE);
+    // value + script length + OP_DUP OP_HASH160 <pubKeyHash> OP_EQUALVERIFY OP_CHECKSIG
+    static final int P2PKH_OUTPUT_SIZE = 8 + 1 + 25;
+
+    // Max. rounds for the fee to settle. Each round can only add inputs, so it ends soon.
+    private static final int MAX_SELECTION_ROUNDS = 10;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return The size of the transaction once all inputs are signed. Inputs which are already signed are counted with
+     * their actual size.
+     */
+    static int getSize(Transaction tx) {
+        int size = TX_OVERHEAD_SIZE + VarInt.sizeOf(tx.getInputs().size()) + VarInt.sizeOf(tx.getOutputs().size());
+        for (TransactionInput input : tx.getInputs())
+            size += getInputSize(input);
+        for (TransactionOutput output : tx.getOutputs())
+            size += getOutputSize(output);
+        return size;
+    }
+
+    static int getInputSize(TransactionInput input) {
+        if (input.getScriptBytes().length > 0)
+            return input.bitcoinSerialize().length;
+
+        TransactionOutput connectedOutput = input.getConnectedOutput();
+        // Inputs we don't know are BSQ or BTC inputs of our wallets, which are all P2PKH
+        return connectedOutput != null ? getInputSize(connectedOutput) : P2PKH_INPUT_SIZE;
+    }
+
+    /**
+     * @param spentOutput The output the input is spending
+     */
+    static int getInputSize(TransactionOutput spentOutput) {
+        Script script = spentOutput.getScriptPubKey();
+        if (script.isSentToRawPubKey())
+            return P2PK_INPUT_SIZE;
+        else if (script.isPayToScriptHash())
+            return P2SH_MULTISIG_INPUT_SIZE;
+        else
+            return P2PKH_INPUT_SIZE;
+    }
+
+    static int getOutputSize(TransactionOutput output) {
+        final int scriptSize = output.getScriptBytes().length;
+        return 8 + VarInt.sizeOf(scriptSize) + scriptSize;
+    }
+
+    static int getOutputSize(Script script) {
+        final int scriptSize = script.getProgram().length;
+        return 8 + VarInt.sizeOf(scriptSize) + scriptSize;
+    }
+
+    /**
+     * Calculates the fee of the transaction wallet.completeTx creates from tx. It does the same coin selection as
+     * completeTx and adds the inputs and the P2PKH change output, so the fee set at the SendRequest matches the
+     * size of the completed transaction.
+     *
+     * @param tx                   The transaction before completeTx
+     * @param coinSelector         The coin selector of the SendRequest
+     * @param candidates           The spend candidates of the wallet
+     * @param txFeePerByte         The fee per byte
+     * @param isFeeInOutputs       If the fee is paid from the outputs (the output value gets reduced by the fee), the
+     *                             value we need from the wallet does not depend on the fee
+     * @param additionalOutputSize Size of outputs we add after completeTx (e.g. OP_RETURN)
+     */
+    static Coin getFee(Transaction tx,
+                       CoinSelector coinSelector,
+                       List<TransactionOutput> candidates,
+                       Coin txFeePerByte,
+                       boolean isFeeInOutputs,
+                       int additionalOutputSize) {
+        Coin value = tx.getOutputSum();
+        for (TransactionInput input : tx.getInputs()) {
+            TransactionOutput connectedOutput = input.getConnectedOutput();
+            if (connectedOutput != null)
+                value = value.subtract(connectedOutput.getValue());
+            else if (input.getValue() != null)
+                value = value.subtract(input.getValue());
+        }
+
+        final int numInputs = tx.getInputs().size();
+        final int numOutputs = tx.getOutputs().size();
+        final int size = getSize(tx) + additionalOutputSize;
+        Coin fee = Coin.ZERO;
+        // The fee only grows with each round, so we end at the lowest fee which pays for the selected inputs
+        for (int i = 0; i < MAX_SELECTION_ROUNDS; i++) {
+            final Coin valueNeeded = isFeeInOutputs ? value : value.add(fee);
+            CoinSelection selection = coinSelector.select(valueNeeded, candidates);
+            final boolean hasChange = selection.valueGathered.isGreaterThan(valueNeeded);
+            int selectionSize = 0;
+            for (TransactionOutput output : selection.gathered)
+                selectionSize += getInputSize(output);
+            if (hasChange)
+                selectionSize += P2PKH_OUTPUT_SIZE;
+            // The var ints for the number of inputs and outputs might get larger
+            selectionSize += VarInt.sizeOf(numInputs + selection.gathered.size()) - VarInt.sizeOf(numInputs);
+            selectionSize += VarInt.sizeOf(numOutputs + (hasChange ? 1 : 0)) - VarInt.sizeOf(numOutputs);
+
+            final Coin newFee = txFeePerByte.multiply(size + selectionSize);
+            if (!newFee.isGreaterThan(fee))
+                break;
+            fee = newFee;
+        }
+        return fee;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static int getInputSize(int scriptSigSize) {
+        return INPUT_OVERHEAD_SIZE + VarInt.sizeOf(scriptSigSize) + scriptSigSize;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.wallet.Wallet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Index of the wallet transactions and balances by address.
+ * <p>
+ * The transactions are indexed by the addresses of their outputs and of the outputs connected to their inputs. The
+ * index is built on the first query and updated for each transaction we get notified about by the wallet listener.
+ * Outputs of a transaction do not change, but inputs might get connected later, so a transaction can be indexed
+ * again. If the wallet connects the inputs of a pending transaction when their parent arrives, we index the
+ * spending transaction together with the parent.
+ * <p>
+ * The balances are calculated for all addresses at once from the spend candidates and dropped at any wallet change.
+ * So the cost of a wallet change does not depend on the number of addresses we query afterwards.
+ * <p>
+ * Wallet listeners are called at the user thread, but we synchronize anyway as queries might come from other threads.
+ */
+@Slf4j
+class WalletAddressIndex {
+    @Nullable
+    private Wallet indexedWallet;
+    private final Set<Sha256Hash> indexedTxIds = new HashSet<>();
+    private final Map<Address, Set<Transaction>> transactionsByAddress = new HashMap<>();
+    private final Map<Address, Integer> numTxOutputsByAddress = new HashMap<>();
+    @Nullable
+    private Map<Address, Coin> balanceByAddress;
+    @Nullable
+    private Wallet balanceWallet;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    synchronized void onTransactionChanged(Wallet wallet, Transaction tx) {
+        balanceByAddress = null;
+        // If we have not built the index yet we will see the tx when we build it
+        if (wallet == indexedWallet)
+            index(tx);
+    }
+
+    synchronized void onWalletChanged() {
+        balanceByAddress = null;
+    }
+
+    // Called at a reorg, we build the index again at the next query
+    synchronized void invalidate() {
+        indexedWallet = null;
+        balanceByAddress = null;
+    }
+
+    /**
+     * @return The transactions with an output to that address or spending an output of that address.
+     */
+    synchronized Set<Transaction> getTransactions(Wallet wallet, Address address) {
+        maybeBuildIndex(wallet);
+        Set<Transaction> transactions = transactionsByAddress.get(address);
+        return transactions != null ? new HashSet<>(transactions) : Collections.emptySet();
+    }
+
+    synchronized int getNumTxOutputs(Wallet wallet, Address address) {
+        maybeBuildIndex(wallet);
+        return numTxOutputsByAddress.getOrDefault(address, 0);
+    }
+
+    synchronized Coin getBalance(Wallet wallet, Address address) {
+        if (balanceByAddress == null || wallet != balanceWallet) {
+            balanceWallet = wallet;
+            balanceByAddress = new HashMap<>();
+            for (TransactionOutput output : wallet.calculateAllSpendCandidates()) {
+                Address outputAddress = WalletService.getAddressFromOutput(output);
+                if (outputAddress != null)
+                    balanceByAddress.merge(outputAddress, output.getValue(), Coin::add);
+            }
+        }
+        return balanceByAddress.getOrDefault(address, Coin.ZERO);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void maybeBuildIndex(Wallet wallet) {
+        if (wallet == indexedWallet)
+            return;
+
+        long ts = System.currentTimeMillis();
+        indexedWallet = wallet;
+        indexedTxIds.clear();
+        transactionsByAddress.clear();
+        numTxOutputsByAddress.clear();
+        Set<Transaction> transactions = wallet.getTransactions(false);
+        transactions.forEach(this::index);
+        log.info("Indexing {} wallet transactions took {} ms", transactions.size(), System.currentTimeMillis() - ts);
+    }
+
+    private void index(Transaction tx) {
+        // Like wallet.getTransactions(false) we do not count the outputs of dead transactions
+        if (tx.getConfidence().getConfidenceType() == TransactionConfidence.ConfidenceType.DEAD) {
+            removeOutputs(tx);
+            return;
+        }
+
+        final boolean isNew = indexedTxIds.add(tx.getHash());
+        for (TransactionOutput output : tx.getOutputs()) {
+            Address address = WalletService.getAddressFromOutput(output);
+            if (address != null) {
+                Set<Transaction> transactions = transactionsByAddress.computeIfAbsent(address, key -> new HashSet<>());
+                transactions.add(tx);
+                if (isNew)
+                    numTxOutputsByAddress.merge(address, 1, Integer::sum);
+
+                // A pending tx spending this output might have been indexed before the wallet knew this tx. The
+                // wallet connects its input when this tx arrives but does not notify us about the spending tx.
+                TransactionInput spentBy = output.getSpentBy();
+                if (spentBy != null && spentBy.getParentTransaction() != null)
+                    transactions.add(spentBy.getParentTransaction());
+            }
+        }
+
+        for (TransactionInput input : tx.getInputs()) {
+            TransactionOutput connectedOutput = input.getConnectedOutput();
+            if (connectedOutput != null) {
+                Address address = WalletService.getAddressFromOutput(connectedOutput);
+                if (address != null)
+                    transactionsByAddress.computeIfAbsent(address, key -> new HashSet<>()).add(tx);
+            }
+        }
+    }
+
+    // The inputs of a dead transaction are disconnected, so it stays indexed for their addresses
+    private void removeOutputs(Transaction tx) {
+        if (!indexedTxIds.remove(tx.getHash()))
+            return;
+
+        for (TransactionOutput output : tx.getOutputs()) {
+            Address address = WalletService.getAddressFromOutput(output);
+            if (address != null) {
+                Set<Transaction> transactions = transactionsByAddress.get(address);
+                if (transactions != null)
+                    transactions.remove(tx);
+                numTxOutputsByAddress.computeIfPresent(address, (key, numTxOutputs) -> numTxOutputs > 1 ? numTxOutputs - 1 : null);
+            }
+        }
+    }
+}
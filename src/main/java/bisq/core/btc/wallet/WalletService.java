@@ -101,6 +101,7 @@ public abstract class WalletService {
     protected final CopyOnWriteArraySet<AddressConfidenceListener> addressConfidenceListeners = new CopyOnWriteArraySet<>();
     protected final CopyOnWriteArraySet<TxConfidenceListener> txConfidenceListeners = new CopyOnWriteArraySet<>();
     protected final CopyOnWriteArraySet<BalanceListener> balanceListeners = new CopyOnWriteArraySet<>();
+    private final WalletAddressIndex walletAddressIndex = new WalletAddressIndex();
     protected Wallet wallet;
     protected KeyParameter aesKey;
     @Getter
@@ -338,12 +339,13 @@ public abstract class WalletService {
     @Nullable
     public TransactionConfidence getConfidenceForAddress(Address address) {
         List<TransactionConfidence> transactionConfidenceList = new ArrayList<>();
-        if (wallet != null) {
-            Set<Transaction> transactions = wallet.getTransactions(false);
-            if (transactions != null) {
-                transactionConfidenceList.addAll(transactions.stream().map(tx ->
-                        getTransactionConfidence(tx, address)).collect(Collectors.toList()));
-            }
+        if (wallet != null && address != null) {
+            // The index only contains the transactions with an output to or from that address. Like
+            // wallet.getTransactions(false) we ignore dead transactions.
+            walletAddressIndex.getTransactions(wallet, address).stream()
+                    .map(Transaction::getConfidence)
+                    .filter(confidence -> confidence.getConfidenceType() != TransactionConfidence.ConfidenceType.DEAD)
+                    .forEach(transactionConfidenceList::add);
         }
         return getMostRecentConfidence(transactionConfidenceList);
     }
@@ -351,11 +353,12 @@ public abstract class WalletService {
     @Nullable
     public TransactionConfidence getConfidenceForTxId(String txId) {
         if (wallet != null) {
-            Set<Transaction> transactions = wallet.getTransactions(false);
-            for (Transaction tx : transactions) {
-                if (tx.getHashAsString().equals(txId))
-                    return tx.getConfidence();
-            }
+            // The wallet holds its transactions in a map by hash
+            Sha256Hash hash = getTxHash(txId);
+            Transaction tx = hash != null ? wallet.getTransaction(hash) : null;
+            // Like wallet.getTransactions(false) we ignore dead transactions
+            if (tx != null && tx.getConfidence().getConfidenceType() != TransactionConfidence.ConfidenceType.DEAD)
+                return tx.getConfidence();
         }
         return null;
     }
@@ -423,7 +426,7 @@ public abstract class WalletService {
     }
 
     public Coin getBalanceForAddress(Address address) {
-        return wallet != null ? getBalance(wallet.calculateAllSpendCandidates(), address) : Coin.ZERO;
+        return wallet != null && address != null ? walletAddressIndex.getBalance(wallet, address) : Coin.ZERO;
     }
 
     protected Coin getBalance(List<TransactionOutput> transactionOutputs, Address address) {
@@ -442,16 +445,7 @@ public abstract class WalletService {
     }
 
     public int getNumTxOutputsForAddress(Address address) {
-        List<TransactionOutput> transactionOutputs = new ArrayList<>();
-        wallet.getTransactions(false).stream().forEach(t -> transactionOutputs.addAll(t.getOutputs()));
-        int outputs = 0;
-        for (TransactionOutput output : transactionOutputs) {
-            if (isOutputScriptConvertibleToAddress(output) &&
-                    address != null &&
-                    address.equals(getAddressFromOutput(output)))
-                outputs++;
-        }
-        return outputs;
+        return address != null ? walletAddressIndex.getNumTxOutputs(wallet, address) : 0;
     }
 
     public Coin getTxFeeForWithdrawalPerByte() {
@@ -640,6 +634,19 @@ public abstract class WalletService {
         log.info("\n" + tracePrefix + ":\n" + tx.toString());
     }
 
+    @Nullable
+    public static Sha256Hash getTxHash(@Nullable String txId) {
+        if (txId == null || txId.length() != 64)
+            return null;
+
+        try {
+            return Sha256Hash.wrap(txId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid txId {}", txId);
+            return null;
+        }
+    }
+
     public static boolean isOutputScriptConvertibleToAddress(TransactionOutput output) {
         return output.getScriptPubKey().isSentToAddress() ||
                 output.getScriptPubKey().isPayToScriptHash();
@@ -666,21 +673,30 @@ public abstract class WalletService {
     public class BisqWalletListener extends AbstractWalletEventListener {
         @Override
         public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            walletAddressIndex.onTransactionChanged(wallet, tx);
             notifyBalanceListeners(tx);
         }
 
         @Override
         public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            walletAddressIndex.onTransactionChanged(wallet, tx);
             notifyBalanceListeners(tx);
         }
 
         @Override
         public void onReorganize(Wallet wallet) {
             log.warn("onReorganize ");
+            walletAddressIndex.invalidate();
+        }
+
+        @Override
+        public void onWalletChanged(Wallet wallet) {
+            walletAddressIndex.onWalletChanged();
         }
 
         @Override
         public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+            walletAddressIndex.onTransactionChanged(wallet, tx);
             for (AddressConfidenceListener addressConfidenceListener : addressConfidenceListeners) {
                 List<TransactionConfidence> transactionConfidenceList = new ArrayList<>();
                 transactionConfidenceList.add(getTransactionConfidence(tx, addressConfidenceListener.getAddress()));
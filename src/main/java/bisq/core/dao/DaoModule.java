@@ -116,6 +116,9 @@ public class DaoModule extends AppModule {
         String genesisTxId = environment.getProperty(DaoOptionKeys.GENESIS_TX_ID, String.class, BsqBlockChain.BTC_GENESIS_TX_ID);
         bind(String.class).annotatedWith(Names.named(DaoOptionKeys.GENESIS_TX_ID)).toInstance(genesisTxId);
 
+        Boolean rpcVerboseBlocks = environment.getProperty(DaoOptionKeys.RPC_VERBOSE_BLOCKS, Boolean.class, true);
+        bind(Boolean.class).annotatedWith(Names.named(DaoOptionKeys.RPC_VERBOSE_BLOCKS)).toInstance(rpcVerboseBlocks);
+
         Integer genesisBlockHeight = environment.getProperty(DaoOptionKeys.GENESIS_BLOCK_HEIGHT, Integer.class, BsqBlockChain.BTC_GENESIS_BLOCK_HEIGHT);
         bind(Integer.class).annotatedWith(Names.named(DaoOptionKeys.GENESIS_BLOCK_HEIGHT)).toInstance(genesisBlockHeight);
     }
@@ -19,10 +19,13 @@ package bisq.core.dao.blockchain;
 
 import bisq.core.dao.DaoOptionKeys;
 import bisq.core.dao.blockchain.vo.BsqBlock;
+import bisq.core.dao.blockchain.vo.SpentInfo;
 import bisq.core.dao.blockchain.vo.Tx;
+import bisq.core.dao.blockchain.vo.TxInput;
 import bisq.core.dao.blockchain.vo.TxOutput;
 import bisq.core.dao.blockchain.vo.TxType;
 import bisq.core.dao.blockchain.vo.util.TxIdIndexTuple;
+import bisq.core.dao.blockchain.vo.util.TxOutputKey;
 
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.util.FunctionalReadWriteLock;
@@ -40,6 +43,7 @@ import javax.inject.Named;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -104,7 +108,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
 
     private final LinkedList<BsqBlock> bsqBlocks;
     private final Map<String, Tx> txMap;
-    private final Map<TxIdIndexTuple, TxOutput> unspentTxOutputsMap;
+    private final UnspentTxOutputStore unspentTxOutputStore;
 
     // not impl in PB yet
     private final Set<Tuple2<Long, Integer>> compensationRequestFees;
@@ -133,7 +137,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
 
         bsqBlocks = new LinkedList<>();
         txMap = new HashMap<>();
-        unspentTxOutputsMap = new HashMap<>();
+        unspentTxOutputStore = new UnspentTxOutputStore();
         compensationRequestFees = new HashSet<>();
         votingFees = new HashSet<>();
 
@@ -147,14 +151,14 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
 
     private BsqBlockChain(LinkedList<BsqBlock> bsqBlocks,
                           Map<String, Tx> txMap,
-                          Map<TxIdIndexTuple, TxOutput> unspentTxOutputsMap,
+                          UnspentTxOutputStore unspentTxOutputStore,
                           String genesisTxId,
                           int genesisBlockHeight,
                           int chainHeadHeight,
                           @Nullable Tx genesisTx) {
         this.bsqBlocks = bsqBlocks;
         this.txMap = txMap;
-        this.unspentTxOutputsMap = unspentTxOutputsMap;
+        this.unspentTxOutputStore = unspentTxOutputStore;
         this.genesisTxId = genesisTxId;
         this.genesisBlockHeight = genesisBlockHeight;
         this.chainHeadHeight = chainHeadHeight;
@@ -180,9 +184,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
                 .putAllTxMap(txMap.entrySet().stream()
                         .collect(Collectors.toMap(Map.Entry::getKey,
                                 v -> v.getValue().toProtoMessage())))
-                .putAllUnspentTxOutputsMap(unspentTxOutputsMap.entrySet().stream()
-                        .collect(Collectors.toMap(k -> k.getKey().getAsString(),
-                                v -> v.getValue().toProtoMessage())))
+                .putAllUnspentTxOutputsMap(unspentTxOutputStore.toProtoMap())
                 .setGenesisTxId(genesisTxId)
                 .setGenesisBlockHeight(genesisBlockHeight)
                 .setChainHeadHeight(chainHeadHeight);
@@ -198,8 +200,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
                 .collect(Collectors.toList())),
                 new HashMap<>(proto.getTxMapMap().entrySet().stream()
                         .collect(Collectors.toMap(Map.Entry::getKey, v -> Tx.fromProto(v.getValue())))),
-                new HashMap<>(proto.getUnspentTxOutputsMapMap().entrySet().stream()
-                        .collect(Collectors.toMap(k -> new TxIdIndexTuple(k.getKey()), v -> TxOutput.fromProto(v.getValue())))),
+                UnspentTxOutputStore.fromProto(proto.getUnspentTxOutputsMapMap()),
                 proto.getGenesisTxId(),
                 proto.getGenesisBlockHeight(),
                 proto.getChainHeadHeight(),
@@ -235,8 +236,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
             txMap.clear();
             txMap.putAll(snapshot.txMap);
 
-            unspentTxOutputsMap.clear();
-            unspentTxOutputsMap.putAll(snapshot.unspentTxOutputsMap);
+            unspentTxOutputStore.setAll(snapshot.unspentTxOutputStore);
 
             chainHeadHeight = snapshot.chainHeadHeight;
             genesisTx = snapshot.genesisTx;
@@ -259,6 +259,48 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
     }
 
 
+    // Applies a block from the BsqBlockJournal. The txs and outputs carry the state they had when the block was added,
+    // the spent state of outputs from previous blocks is derived from the connected outputs of the inputs.
+    // Listeners are not notified as the block is already persisted.
+    @Override
+    public void replayBlock(BsqBlock bsqBlock) {
+        lock.write(() -> {
+            for (Tx tx : bsqBlock.getTxs()) {
+                boolean isBsqTx = tx.getId().equals(genesisTxId);
+                if (isBsqTx)
+                    genesisTx = tx;
+
+                for (int inputIndex = 0; inputIndex < tx.getInputs().size(); inputIndex++) {
+                    TxInput input = tx.getInputs().get(inputIndex);
+                    if (input.getConnectedTxOutput() != null) {
+                        isBsqTx = true;
+                        final Optional<TxOutput> optionalSpentTxOutput = Optional.ofNullable(txMap.get(input.getTxId()))
+                                .flatMap(spentTx -> spentTx.getTxOutput(input.getTxOutputIndex()));
+                        if (optionalSpentTxOutput.isPresent()) {
+                            final TxOutput spentTxOutput = optionalSpentTxOutput.get();
+                            spentTxOutput.setUnspent(false);
+                            spentTxOutput.setSpentInfo(new SpentInfo(bsqBlock.getHeight(), tx.getId(), inputIndex));
+                            unspentTxOutputStore.remove(spentTxOutput);
+                            input.setConnectedTxOutput(spentTxOutput);
+                        } else {
+                            log.warn("Connected txOutput of journaled tx not found. txId={}, input={}", tx.getId(), input.getTxIdIndexTuple());
+                        }
+                    }
+                }
+
+                if (isBsqTx) {
+                    txMap.put(tx.getId(), tx);
+                    tx.getOutputs().stream()
+                            .filter(txOutput -> txOutput.isVerified() && txOutput.isUnspent())
+                            .forEach(unspentTxOutputStore::add);
+                }
+            }
+            bsqBlocks.add(bsqBlock);
+            chainHeadHeight = bsqBlock.getHeight();
+        });
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Write access: Tx
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -282,13 +324,13 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
     public void addUnspentTxOutput(TxOutput txOutput) {
         lock.write(() -> {
             checkArgument(txOutput.isVerified(), "txOutput must be verified at addUnspentTxOutput");
-            unspentTxOutputsMap.put(txOutput.getTxIdIndexTuple(), txOutput);
+            unspentTxOutputStore.add(txOutput);
         });
     }
 
     @Override
     public void removeUnspentTxOutput(TxOutput txOutput) {
-        lock.write(() -> unspentTxOutputsMap.remove(txOutput.getTxIdIndexTuple()));
+        lock.write(() -> unspentTxOutputStore.remove(txOutput));
     }
 
 
@@ -346,14 +388,33 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
         return genesisBlockHeight;
     }
 
+    // We only clone the requested blocks instead of the whole chain. The blocks are contiguous so we can derive the
+    // position of the start block from its height. At least one block is delivered even if it exceeds maxSizeInBytes.
     @Override
-    public List<BsqBlock> getClonedBlocksFrom(int fromBlockHeight) {
+    public List<BsqBlock> getClonedBlocksFrom(int fromBlockHeight, int maxNumBlocks, int maxSizeInBytes) {
         return lock.read(() -> {
-            BsqBlockChain clone = getClone();
-            return clone.bsqBlocks.stream()
-                    .filter(block -> block.getHeight() >= fromBlockHeight)
-                    .peek(bsqBlock -> bsqBlock.reset())
-                    .collect(Collectors.toList());
+            List<BsqBlock> clonedBlocks = new ArrayList<>();
+            if (bsqBlocks.isEmpty())
+                return clonedBlocks;
+
+            int startIndex = Math.max(0, Math.min(bsqBlocks.size(), fromBlockHeight - bsqBlocks.getFirst().getHeight()));
+            long sizeInBytes = 0;
+            for (Iterator<BsqBlock> iterator = bsqBlocks.listIterator(startIndex);
+                 iterator.hasNext() && clonedBlocks.size() < maxNumBlocks; ) {
+                BsqBlock bsqBlock = iterator.next();
+                if (bsqBlock.getHeight() < fromBlockHeight)
+                    continue;
+
+                PB.BsqBlock proto = bsqBlock.toProtoMessage();
+                sizeInBytes += proto.getSerializedSize();
+                if (sizeInBytes > maxSizeInBytes && !clonedBlocks.isEmpty())
+                    break;
+
+                BsqBlock clone = BsqBlock.fromProto(proto);
+                clone.reset();
+                clonedBlocks.add(clone);
+            }
+            return clonedBlocks;
         });
     }
 
@@ -432,19 +493,18 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
 
     @Override
     public Optional<TxOutput> getSpendableTxOutput(TxIdIndexTuple txIdIndexTuple) {
-        return lock.read(() -> getUnspentTxOutput(txIdIndexTuple)
-                .filter(this::isTxOutputMature));
+        return getSpendableTxOutput(TxOutputKey.from(txIdIndexTuple));
     }
 
     @Override
     public Optional<TxOutput> getSpendableTxOutput(String txId, int index) {
-        return lock.read(() -> getSpendableTxOutput(new TxIdIndexTuple(txId, index)));
+        return getSpendableTxOutput(new TxOutputKey(txId, index));
     }
 
-    private Optional<TxOutput> getUnspentTxOutput(TxIdIndexTuple txIdIndexTuple) {
-        return lock.read(() -> unspentTxOutputsMap.entrySet().stream()
-                .filter(e -> e.getKey().equals(txIdIndexTuple))
-                .map(Map.Entry::getValue).findAny());
+    @Override
+    public Optional<TxOutput> getSpendableTxOutput(TxOutputKey txOutputKey) {
+        return lock.read(() -> unspentTxOutputStore.get(txOutputKey)
+                .filter(this::isTxOutputMature));
     }
 
     private Set<TxOutput> getAllTxOutputs() {
@@ -538,7 +598,7 @@ public class BsqBlockChain implements PersistableEnvelope, WritableBsqBlockChain
                         getChainHeadHeight(),
                 bsqBlocks.size(),
                 txMap.size(),
-                unspentTxOutputsMap.size(),
+                unspentTxOutputStore.size(),
                 compensationRequestFees.size(),
                 votingFees.size());
     }
@@ -0,0 +1,304 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.blockchain;
+
+import bisq.core.dao.blockchain.vo.BsqBlock;
+
+import bisq.common.util.Utilities;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Append-only journal of BsqBlocks and the checkpoint files it is based on.
+ * <p>
+ * Each added block is appended as a length delimited PB.BsqBlock to the current segment file. A block contains the
+ * verified state of its txs and outputs and the inputs carry their connected (spent) outputs, so the UTXO deltas can
+ * be replayed from the block alone.
+ * <p>
+ * If a block cannot be appended the journal is broken and we don't append further blocks, as replaying the blocks
+ * after the gap would lead to a wrong UTXO set. The next checkpoint is a full state of the chain, so the new segment
+ * started after it is not affected by the gap. Until then a restart replays the journal up to the gap and the missing
+ * blocks get parsed again.
+ * <p>
+ * A new segment is started after each checkpoint. Checkpoints are written first as a pending file and promoted to the
+ * active BsqBlockChain file at the next checkpoint height, so the active checkpoint always lags behind the chain head
+ * and is safe to roll back to at a re-org. Segments covered by the active checkpoint get deleted at promotion.
+ * <p>
+ * All file access is done in a single thread executor so writes are ordered and don't block the parser thread.
+ */
+@Slf4j
+public class BsqBlockJournal {
+    private static final String SEGMENT_PREFIX = "BsqBlockJournal_";
+    private static final String PENDING_CHECKPOINT_PREFIX = "BsqBlockChain_pending_";
+    static final String CHECKPOINT_FILE_NAME = "BsqBlockChain";
+
+    private final File storageDir;
+    private final ListeningExecutorService executor = Utilities.getListeningSingleThreadExecutor("BsqBlockJournal");
+
+    // Only accessed from executor thread
+    @Nullable
+    private OutputStream segmentOutputStream;
+    private int nextSegmentStartHeight = -1;
+    private boolean broken;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    BsqBlockJournal(File storageDir) {
+        this.storageDir = storageDir;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Blocks
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Called from the parser thread inside the write lock. We serialize here as the objects get mutated by later blocks.
+    void append(BsqBlock bsqBlock) {
+        final PB.BsqBlock proto = bsqBlock.toProtoMessage();
+        executor.execute(() -> {
+            if (broken)
+                return;
+
+            try {
+                if (segmentOutputStream == null)
+                    openSegment(nextSegmentStartHeight != -1 ? nextSegmentStartHeight : proto.getHeight());
+                proto.writeDelimitedTo(segmentOutputStream);
+                segmentOutputStream.flush();
+            } catch (IOException e) {
+                log.error("Could not append block {} to journal. We don't append blocks until the next checkpoint. {}",
+                        proto.getHeight(), e.toString());
+                setBroken();
+            }
+        });
+    }
+
+    // Blocks appended after that call are written to a new segment. Called after a checkpoint or after the journal
+    // was replayed at startup, so the blocks of the new segment follow a full state of the chain.
+    void startNewSegment(int firstHeight) {
+        executor.execute(() -> {
+            closeSegment();
+            nextSegmentStartHeight = firstHeight;
+            broken = false;
+        });
+    }
+
+    // Returns all journaled blocks in order. Reading stops at the first corrupted entry of a segment (e.g. an
+    // incomplete write at a crash), later segments are still read. Blocks after a gap in the heights are not
+    // returned.
+    List<BsqBlock> readBlocks() {
+        return runAndWait(() -> {
+            List<BsqBlock> bsqBlocks = new ArrayList<>();
+            for (File segment : getSegments()) {
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(segment))) {
+                    PB.BsqBlock proto;
+                    while ((proto = PB.BsqBlock.parseDelimitedFrom(inputStream)) != null) {
+                        if (!bsqBlocks.isEmpty() && proto.getHeight() > bsqBlocks.get(bsqBlocks.size() - 1).getHeight() + 1) {
+                            log.error("Journal segment {} has a gap before block {}. We stop reading the journal.",
+                                    segment.getName(), proto.getHeight());
+                            return bsqBlocks;
+                        }
+                        bsqBlocks.add(BsqBlock.fromProto(proto));
+                    }
+                } catch (Throwable t) {
+                    log.warn("Could not read all blocks from journal segment {}. {}", segment.getName(), t.toString());
+                }
+            }
+            return bsqBlocks;
+        });
+    }
+
+    // Replaces all segments with a single one containing the given blocks. Used after a re-org rollback.
+    void reset(List<BsqBlock> bsqBlocks, int firstHeight) {
+        final List<PB.BsqBlock> protos = bsqBlocks.stream().map(BsqBlock::toProtoMessage).collect(Collectors.toList());
+        executor.execute(() -> {
+            closeSegment();
+            getSegments().forEach(this::delete);
+            nextSegmentStartHeight = -1;
+            try {
+                openSegment(firstHeight);
+                for (PB.BsqBlock proto : protos) {
+                    proto.writeDelimitedTo(segmentOutputStream);
+                }
+                segmentOutputStream.flush();
+            } catch (IOException e) {
+                log.error("Could not reset journal. We don't append blocks until the next checkpoint. {}", e.toString());
+                setBroken();
+            }
+        });
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Checkpoints
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The proto message is created by the caller under the read lock, so we don't need to clone the BsqBlockChain.
+    void writePendingCheckpoint(PB.PersistableEnvelope envelope, int height) {
+        executor.execute(() -> {
+            getPendingCheckpoints().forEach(this::delete);
+            File tempFile = new File(storageDir, PENDING_CHECKPOINT_PREFIX + height + ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                envelope.writeDelimitedTo(outputStream);
+            } catch (IOException e) {
+                log.error("Could not write checkpoint at height {}. {}", height, e.toString());
+                delete(tempFile);
+                return;
+            }
+            move(tempFile, new File(storageDir, PENDING_CHECKPOINT_PREFIX + height));
+            log.info("Wrote pending checkpoint at height {}", height);
+        });
+    }
+
+    // The pending checkpoint becomes the active one. Segments which only contain blocks up to its height are deleted.
+    void promotePendingCheckpoint() {
+        executor.execute(() -> {
+            List<File> pendingCheckpoints = getPendingCheckpoints();
+            if (pendingCheckpoints.isEmpty())
+                return;
+
+            File pending = pendingCheckpoints.get(pendingCheckpoints.size() - 1);
+            int height = getHeight(pending, PENDING_CHECKPOINT_PREFIX);
+            if (move(pending, new File(storageDir, CHECKPOINT_FILE_NAME))) {
+                getSegments().stream()
+                        .filter(segment -> getHeight(segment, SEGMENT_PREFIX) <= height)
+                        .forEach(this::delete);
+                log.info("Promoted checkpoint at height {}", height);
+            }
+        });
+    }
+
+    // After a re-org rollback the pending checkpoint might contain orphaned blocks. Also a promotion would delete
+    // the segment written at reset, so we wait for the next checkpoint. At startup we delete a pending checkpoint of
+    // the previous run for the same reasons.
+    void deletePendingCheckpoints() {
+        executor.execute(() -> getPendingCheckpoints().forEach(this::delete));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // A segment file with the same name is from a previous run and contains blocks we have not replayed, so we
+    // overwrite it.
+    private void openSegment(int firstHeight) throws IOException {
+        segmentOutputStream = new BufferedOutputStream(new FileOutputStream(new File(storageDir, SEGMENT_PREFIX + firstHeight)));
+        nextSegmentStartHeight = -1;
+    }
+
+    private void setBroken() {
+        closeSegment();
+        nextSegmentStartHeight = -1;
+        broken = true;
+    }
+
+    private void closeSegment() {
+        if (segmentOutputStream != null) {
+            try {
+                segmentOutputStream.close();
+            } catch (IOException e) {
+                log.warn("Could not close journal segment. {}", e.toString());
+            }
+            segmentOutputStream = null;
+        }
+    }
+
+    private List<File> getSegments() {
+        return getFiles(SEGMENT_PREFIX);
+    }
+
+    private List<File> getPendingCheckpoints() {
+        return getFiles(PENDING_CHECKPOINT_PREFIX);
+    }
+
+    // Sorted by height
+    private List<File> getFiles(String prefix) {
+        File[] files = storageDir.listFiles((dir, name) -> name.startsWith(prefix) && getHeight(name, prefix) >= 0);
+        if (files == null)
+            return Collections.emptyList();
+
+        return Arrays.stream(files)
+                .sorted(Comparator.comparingInt(file -> getHeight(file, prefix)))
+                .collect(Collectors.toList());
+    }
+
+    private static int getHeight(File file, String prefix) {
+        return getHeight(file.getName(), prefix);
+    }
+
+    private static int getHeight(String fileName, String prefix) {
+        try {
+            return Integer.parseInt(fileName.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean move(File source, File target) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not move {} to {}. {}", source.getName(), target.getName(), e.toString());
+            return false;
+        }
+    }
+
+    private void delete(File file) {
+        if (file.exists() && !file.delete())
+            log.warn("Could not delete {}", file.getName());
+    }
+
+    private <T> T runAndWait(Callable<T> callable) {
+        try {
+            return executor.submit(callable).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import bisq.core.dao.blockchain.vo.Tx;
 import bisq.core.dao.blockchain.vo.TxOutput;
 import bisq.core.dao.blockchain.vo.TxType;
 import bisq.core.dao.blockchain.vo.util.TxIdIndexTuple;
+import bisq.core.dao.blockchain.vo.util.TxOutputKey;
 
 import org.bitcoinj.core.Coin;
 
@@ -36,7 +37,7 @@ public interface ReadableBsqBlockChain {
 
     boolean containsBsqBlock(BsqBlock bsqBlock);
 
-    List<BsqBlock> getClonedBlocksFrom(int fromBlockHeight);
+    List<BsqBlock> getClonedBlocksFrom(int fromBlockHeight, int maxNumBlocks, int maxSizeInBytes);
 
     Map<String, Tx> getTxMap();
 
@@ -60,6 +61,8 @@ public interface ReadableBsqBlockChain {
 
     Optional<TxOutput> getSpendableTxOutput(String txId, int index);
 
+    Optional<TxOutput> getSpendableTxOutput(TxOutputKey txOutputKey);
+
     boolean isTxOutputSpendable(String txId, int index);
 
     Set<TxOutput> getUnspentTxOutputs();
@@ -22,6 +22,8 @@ import bisq.core.dao.blockchain.vo.BsqBlock;
 import bisq.common.proto.persistable.PersistenceProtoResolver;
 import bisq.common.storage.Storage;
 
+import io.bisq.generated.protobuffer.PB;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -29,23 +31,33 @@ import com.google.common.annotations.VisibleForTesting;
 
 import java.io.File;
 
+import java.util.LinkedList;
+import java.util.stream.Collectors;
+
 import lombok.extern.slf4j.Slf4j;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Manages snapshots of the BsqBlockChain.
+ * Manages persistence of the BsqBlockChain.
+ * <p>
+ * Each added block is appended to the BsqBlockJournal. At each snapshot height we write a checkpoint of the full
+ * state which becomes the active snapshot at the next snapshot height. At startup we apply the active snapshot and
+ * replay the journaled blocks on top of it.
  */
 //TODO add tests; check if current logic is correct.
 @Slf4j
 public class SnapshotManager implements BsqBlockChain.Listener {
-    private static final int SNAPSHOT_GRID = 100;
+    private static final int SNAPSHOT_GRID = 1000;
+    // At a re-org we only replay journaled blocks which are deeper than that from the previous chain head.
+    private static final int MAX_REORG_DEPTH = 100;
 
     private final ReadableBsqBlockChain readableBsqBlockChain;
     private final WritableBsqBlockChain writableBsqBlockChain;
     private final Storage<BsqBlockChain> storage;
+    private final BsqBlockJournal journal;
 
-    private BsqBlockChain snapshotCandidate;
+    private int lastSnapshotHeight;
 
     @Inject
     public SnapshotManager(ReadableBsqBlockChain readableBsqBlockChain,
@@ -55,21 +67,68 @@ public class SnapshotManager implements BsqBlockChain.Listener {
         this.readableBsqBlockChain = readableBsqBlockChain;
         this.writableBsqBlockChain = writableBsqBlockChain;
         storage = new Storage<>(storageDir, persistenceProtoResolver);
+        journal = new BsqBlockJournal(storageDir);
 
         readableBsqBlockChain.addListener(this);
     }
 
     public void applySnapshot() {
+        journal.deletePendingCheckpoints();
+        applySnapshot(Integer.MAX_VALUE);
+        // We continue in a new segment so a corrupted tail of the last segment does not hide later blocks
+        journal.startNewSegment(readableBsqBlockChain.getChainHeadHeight() + 1);
+    }
+
+    // We roll back to the active snapshot and replay the journal up to a height which is safe against the re-org.
+    // The journal is rewritten to not contain any block above that height.
+    public void applySnapshotForReOrg() {
+        final int replayHeight = readableBsqBlockChain.getChainHeadHeight() - MAX_REORG_DEPTH;
+        final int snapshotHeight = applySnapshot(replayHeight);
+        journal.deletePendingCheckpoints();
+        journal.reset(readableBsqBlockChain.getBsqBlocks().stream()
+                        .filter(bsqBlock -> bsqBlock.getHeight() > snapshotHeight)
+                        .collect(Collectors.toList()),
+                snapshotHeight + 1);
+        lastSnapshotHeight = 0;
+    }
+
+    // Returns the height of the applied snapshot
+    private int applySnapshot(int maxReplayHeight) {
         checkNotNull(storage, "storage must not be null");
-        BsqBlockChain snapshot = storage.initAndGetPersistedWithFileName("BsqBlockChain", 100);
+        BsqBlockChain snapshot = storage.initAndGetPersistedWithFileName(BsqBlockJournal.CHECKPOINT_FILE_NAME, 100);
         if (snapshot != null) {
             log.info("applySnapshot snapshot.chainHeadHeight=" + snapshot.getChainHeadHeight());
-            writableBsqBlockChain.applySnapshot(snapshot);
         } else {
             log.info("Try to apply snapshot but no stored snapshot available");
+            snapshot = new BsqBlockChain(readableBsqBlockChain.getGenesisTxId(), readableBsqBlockChain.getGenesisBlockHeight());
+        }
+        writableBsqBlockChain.applySnapshot(snapshot);
+        final int snapshotHeight = readableBsqBlockChain.getChainHeadHeight();
+
+        long ts = System.currentTimeMillis();
+        int numReplayedBlocks = 0;
+        for (BsqBlock bsqBlock : journal.readBlocks()) {
+            final LinkedList<BsqBlock> bsqBlocks = readableBsqBlockChain.getBsqBlocks();
+            if (bsqBlock.getHeight() > maxReplayHeight)
+                break;
+
+            if (!bsqBlocks.isEmpty() && bsqBlock.getHeight() <= bsqBlocks.getLast().getHeight())
+                continue;
+
+            if (bsqBlocks.isEmpty() ||
+                    (bsqBlocks.getLast().getHash().equals(bsqBlock.getPreviousBlockHash()) &&
+                            bsqBlocks.getLast().getHeight() + 1 == bsqBlock.getHeight())) {
+                writableBsqBlockChain.replayBlock(bsqBlock);
+                numReplayedBlocks++;
+            } else {
+                log.warn("Journaled block at height {} does not connect. We stop replaying the journal.", bsqBlock.getHeight());
+                break;
+            }
         }
+        log.info("Replaying {} journaled blocks took {} ms", numReplayedBlocks, System.currentTimeMillis() - ts);
 
         readableBsqBlockChain.printDetails();
+        return snapshotHeight;
     }
 
     @VisibleForTesting
@@ -87,23 +146,21 @@ public class SnapshotManager implements BsqBlockChain.Listener {
     }
 
 
+    // We are called inside the write lock of the BsqBlockChain
     @Override
     public void onBlockAdded(BsqBlock bsqBlock) {
+        journal.append(bsqBlock);
+
         final int chainHeadHeight = readableBsqBlockChain.getChainHeadHeight();
-        if (isSnapshotHeight(chainHeadHeight) &&
-                (snapshotCandidate == null ||
-                        snapshotCandidate.getChainHeadHeight() != chainHeadHeight)) {
-            // At trigger event we store the latest snapshotCandidate to disc
-            if (snapshotCandidate != null) {
-                // We clone because storage is in a threaded context
-                final BsqBlockChain cloned = readableBsqBlockChain.getClone(snapshotCandidate);
-                storage.queueUpForSave(cloned);
-                log.info("Saved snapshotCandidate to Disc at height " + chainHeadHeight);
-            }
-            // Now we clone and keep it in memory for the next trigger
-            snapshotCandidate = readableBsqBlockChain.getClone((BsqBlockChain) readableBsqBlockChain);
-            // don't access cloned anymore with methods as locks are transient!
-            log.debug("Cloned new snapshotCandidate at height " + chainHeadHeight);
+        if (isSnapshotHeight(chainHeadHeight) && lastSnapshotHeight != chainHeadHeight) {
+            lastSnapshotHeight = chainHeadHeight;
+            // At trigger event the previous checkpoint becomes our active snapshot
+            journal.promotePendingCheckpoint();
+            // We only build the proto message here, writing is done in the journal thread
+            final PB.PersistableEnvelope envelope = (PB.PersistableEnvelope) ((BsqBlockChain) readableBsqBlockChain).toProtoMessage();
+            journal.writePendingCheckpoint(envelope, chainHeadHeight);
+            journal.startNewSegment(chainHeadHeight + 1);
+            log.info("Created checkpoint at height " + chainHeadHeight);
         }
     }
 }
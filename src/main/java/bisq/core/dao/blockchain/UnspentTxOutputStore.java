@@ -0,0 +1,103 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.blockchain;
+
+import bisq.core.dao.blockchain.vo.TxOutput;
+import bisq.core.dao.blockchain.vo.util.TxIdIndexTuple;
+import bisq.core.dao.blockchain.vo.util.TxOutputKey;
+
+import io.bisq.generated.protobuffer.PB;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Hash indexed set of the unspent BSQ tx outputs.
+ * <p>
+ * Lookups are direct keyed by a TxOutputKey so the cost does not grow with the size of the UTXO set.
+ * Not thread safe, access is guarded by the lock of BsqBlockChain.
+ */
+public class UnspentTxOutputStore {
+    private final Map<TxOutputKey, TxOutput> map;
+
+    public UnspentTxOutputStore() {
+        map = new HashMap<>();
+    }
+
+    private UnspentTxOutputStore(Map<TxOutputKey, TxOutput> map) {
+        this.map = map;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // We keep the persisted format unchanged (txId:index string keys)
+    public Map<String, PB.TxOutput> toProtoMap() {
+        Map<String, PB.TxOutput> protoMap = new HashMap<>(map.size());
+        map.values().forEach(txOutput -> protoMap.put(txOutput.getTxIdIndexTuple().getAsString(), txOutput.toProtoMessage()));
+        return protoMap;
+    }
+
+    public static UnspentTxOutputStore fromProto(Map<String, PB.TxOutput> protoMap) {
+        Map<TxOutputKey, TxOutput> map = new HashMap<>(protoMap.size() * 4 / 3 + 1);
+        protoMap.forEach((key, value) -> map.put(TxOutputKey.from(new TxIdIndexTuple(key)), TxOutput.fromProto(value)));
+        return new UnspentTxOutputStore(map);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void add(TxOutput txOutput) {
+        map.put(new TxOutputKey(txOutput.getTxId(), txOutput.getIndex()), txOutput);
+    }
+
+    public void remove(TxOutput txOutput) {
+        map.remove(new TxOutputKey(txOutput.getTxId(), txOutput.getIndex()));
+    }
+
+    public Optional<TxOutput> get(TxOutputKey key) {
+        return Optional.ofNullable(map.get(key));
+    }
+
+    public Optional<TxOutput> get(String txId, int index) {
+        return get(new TxOutputKey(txId, index));
+    }
+
+    public boolean contains(String txId, int index) {
+        return map.containsKey(new TxOutputKey(txId, index));
+    }
+
+    public void setAll(UnspentTxOutputStore other) {
+        map.clear();
+        map.putAll(other.map);
+    }
+
+    public Collection<TxOutput> values() {
+        return map.values();
+    }
+
+    public int size() {
+        return map.size();
+    }
+}
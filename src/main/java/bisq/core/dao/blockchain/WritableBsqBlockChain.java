@@ -27,6 +27,8 @@ public interface WritableBsqBlockChain {
 
     void addBlock(BsqBlock bsqBlock);
 
+    void replayBlock(BsqBlock bsqBlock);
+
     void setGenesisTx(Tx tx);
 
     void addTxToMap(Tx tx);
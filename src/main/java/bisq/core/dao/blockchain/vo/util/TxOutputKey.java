@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.blockchain.vo.util;
+
+import org.bitcoinj.core.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compact hash key for a tx output. Holds the raw txId bytes instead of the hex string so that the key is
+ * half the size of a TxIdIndexTuple and equals/hashCode don't need to walk a 64 char string.
+ * The hashCode is computed once at construction as keys are used for lookups in large maps.
+ */
+public final class TxOutputKey {
+    private final byte[] txIdBytes;
+    // Real txIds are 64 char hex strings and we hold their decoded bytes. For anything else (e.g. test data) we fall
+    // back to the UTF-8 bytes of the string, which might be the same bytes as a decoded txId. Instead of a tag we
+    // store the index of those keys as ~index, so they never equal a key of a hex txId and need no extra memory.
+    private final int taggedIndex;
+    private final int hashCode;
+
+    public TxOutputKey(String txId, int index) {
+        checkArgument(index >= 0, "index must not be negative");
+        if (isHexTxId(txId)) {
+            txIdBytes = Utils.HEX.decode(txId);
+            taggedIndex = index;
+        } else {
+            txIdBytes = txId.getBytes(StandardCharsets.UTF_8);
+            taggedIndex = ~index;
+        }
+        hashCode = 31 * Arrays.hashCode(txIdBytes) + taggedIndex;
+    }
+
+    // txIdBytes are the decoded bytes of a hex txId
+    public TxOutputKey(byte[] txIdBytes, int index) {
+        checkArgument(index >= 0, "index must not be negative");
+        this.txIdBytes = txIdBytes;
+        this.taggedIndex = index;
+        this.hashCode = 31 * Arrays.hashCode(txIdBytes) + index;
+    }
+
+    public static TxOutputKey from(TxIdIndexTuple txIdIndexTuple) {
+        return new TxOutputKey(txIdIndexTuple.getTxId(), txIdIndexTuple.getIndex());
+    }
+
+    private static boolean isHexTxId(String txId) {
+        return txId.length() == 64 && Utils.HEX.canDecode(txId);
+    }
+
+    public int getIndex() {
+        return taggedIndex >= 0 ? taggedIndex : ~taggedIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TxOutputKey)) return false;
+        TxOutputKey that = (TxOutputKey) o;
+        return hashCode == that.hashCode &&
+                taggedIndex == that.taggedIndex &&
+                Arrays.equals(txIdBytes, that.txIdBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        if (taggedIndex >= 0)
+            return Utils.HEX.encode(txIdBytes) + ":" + taggedIndex;
+        else
+            return new String(txIdBytes, StandardCharsets.UTF_8) + ":" + ~taggedIndex;
+    }
+}
@@ -181,7 +181,8 @@ public abstract class BsqNode {
 
     @SuppressWarnings("WeakerAccess")
     protected void startReOrgFromLastSnapshot() {
-        applySnapshot();
+        snapshotManager.applySnapshotForReOrg();
+        bsqBlockChainListeners.forEach(BsqBlockChainListener::onBsqBlockChainChanged);
         startParseBlocks();
     }
 
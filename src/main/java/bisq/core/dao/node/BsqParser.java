@@ -27,18 +27,18 @@ import bisq.common.app.DevEnv;
 
 import javax.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.concurrent.Immutable;
 
-import static com.google.common.base.Preconditions.checkArgument;
-
 /**
  * Base class for lite node parser and full node parser. Iterates blocks to find BSQ relevant transactions.
  * <p>
@@ -79,83 +79,87 @@ public abstract class BsqParser {
         }
     }
 
-    // Performance-wise the recursion does not hurt (e.g. 5-20 ms).
-    // The RPC requestTransaction is the bottleneck.
-    protected void recursiveFindBsqTxs(List<Tx> bsqTxsInBlock,
-                                       List<Tx> transactions,
-                                       int blockHeight,
-                                       int recursionCounter,
-                                       int maxRecursions) {
-        // The set of txIds of txs which are used for inputs of another tx in same block
-        Set<String> intraBlockSpendingTxIdSet = getIntraBlockSpendingTxIdSet(transactions);
-
-        List<Tx> txsWithoutInputsFromSameBlock = new ArrayList<>();
-        List<Tx> txsWithInputsFromSameBlock = new ArrayList<>();
-
-        // First we find the txs which have no intra-block inputs
-        outerLoop:
-        for (Tx tx : transactions) {
-            for (TxInput input : tx.getInputs()) {
-                if (intraBlockSpendingTxIdSet.contains(input.getTxId())) {
-                    // We have an input from one of the intra-block-transactions, so we cannot process that tx now.
-                    // We add the tx for later parsing to the txsWithInputsFromSameBlock and move to the next tx.
-                    txsWithInputsFromSameBlock.add(tx);
-                    continue outerLoop;
+    // We validate the txs in the order of their intra-block dependencies, so a tx spending an output of another tx in
+    // the same block is validated after that tx.
+    protected void findBsqTxs(List<Tx> bsqTxsInBlock,
+                              List<Tx> transactions,
+                              int blockHeight) {
+        final List<Tx> sortedTxs = getTxsSortedByIntraBlockDependency(transactions, blockHeight);
+        for (Tx tx : sortedTxs) {
+            if (bsqTxController.isBsqTx(blockHeight, tx))
+                bsqTxsInBlock.add(tx);
+        }
+    }
+
+    // Kahn's topological sort over the graph of intra-block spends. Costs O(txs + inputs) except sorting inside of
+    // the levels.
+    // The txs are grouped in levels: First all txs without inputs from another tx of the block, then all txs which
+    // only depend on txs of the previous levels and so on. Inside a level the original order is kept. That is the
+    // same order as we had with the former recursive resolution.
+    // Worst case is that all txs in a block are depending on another. 1 MB can contain max. about 5300 txs. There
+    // are some blocks testing such dependency chains like block 130768.
+    @VisibleForTesting
+    static List<Tx> getTxsSortedByIntraBlockDependency(List<Tx> transactions, int blockHeight) {
+        final int size = transactions.size();
+        final Map<String, Integer> indexByTxId = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            indexByTxId.put(transactions.get(i).getId(), i);
+        }
+
+        // Number of inputs spending an output of another tx in the block, and the reverse edges
+        final int[] numIntraBlockInputs = new int[size];
+        final List<List<Integer>> spendingTxIndices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            spendingTxIndices.add(null);
+        }
+        for (int i = 0; i < size; i++) {
+            for (TxInput input : transactions.get(i).getInputs()) {
+                final Integer spentTxIndex = indexByTxId.get(input.getTxId());
+                if (spentTxIndex != null) {
+                    numIntraBlockInputs[i]++;
+                    if (spendingTxIndices.get(spentTxIndex) == null)
+                        spendingTxIndices.set(spentTxIndex, new ArrayList<>());
+                    spendingTxIndices.get(spentTxIndex).add(i);
                 }
             }
-            // If we have not found any tx input pointing to anther tx in the same block we add it to our
-            // txsWithoutInputsFromSameBlock.
-            txsWithoutInputsFromSameBlock.add(tx);
         }
-        checkArgument(txsWithInputsFromSameBlock.size() + txsWithoutInputsFromSameBlock.size() == transactions.size(),
-                "txsWithInputsFromSameBlock.size + txsWithoutInputsFromSameBlock.size != transactions.size");
 
-        // Usual values is up to 25
-        // There are some blocks where it seems developers have tested graphs of many depending txs, but even
-        // those don't exceed 200 recursions and are mostly old blocks from 2012 when fees have been low ;-).
-        // TODO check strategy btc core uses (sorting the dependency graph would be an optimisation)
-        // Seems btc core delivers tx list sorted by dependency graph. -> TODO verify and test
-        if (recursionCounter > 1000) {
-            log.warn("Unusual high recursive calls at resolveConnectedTxs. recursionCounter=" + recursionCounter);
-            log.warn("blockHeight=" + blockHeight);
-            log.warn("txsWithoutInputsFromSameBlock.size " + txsWithoutInputsFromSameBlock.size());
-            log.warn("txsWithInputsFromSameBlock.size " + txsWithInputsFromSameBlock.size());
-            //  log.warn("txsWithInputsFromSameBlock " + txsWithInputsFromSameBlock.stream().map(e->e.getId()).collect(Collectors.toList()));
+        final List<Tx> sortedTxs = new ArrayList<>(size);
+        List<Integer> level = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (numIntraBlockInputs[i] == 0)
+                level.add(i);
         }
-
-        // we check if we have any valid BSQ from that tx set
-        bsqTxsInBlock.addAll(txsWithoutInputsFromSameBlock.stream()
-                .filter(tx -> bsqTxController.isBsqTx(blockHeight, tx))
-                .collect(Collectors.toList()));
-
-        log.debug("Parsing of all txsWithoutInputsFromSameBlock is done.");
-
-        // we check if we have any valid BSQ utxo from that tx set
-        // We might have InputsFromSameBlock which are BTC only but not BSQ, so we cannot
-        // optimize here and need to iterate further.
-        if (!txsWithInputsFromSameBlock.isEmpty()) {
-            if (recursionCounter < maxRecursions) {
-                recursiveFindBsqTxs(bsqTxsInBlock, txsWithInputsFromSameBlock, blockHeight,
-                        ++recursionCounter, maxRecursions);
-            } else {
-                final String msg = "We exceeded our max. recursions for resolveConnectedTxs.\n" +
-                        "txsWithInputsFromSameBlock=" + txsWithInputsFromSameBlock.toString() + "\n" +
-                        "txsWithoutInputsFromSameBlock=" + txsWithoutInputsFromSameBlock;
-                log.warn(msg);
-                if (DevEnv.isDevMode())
-                    throw new RuntimeException(msg);
+        int numLevels = 0;
+        while (!level.isEmpty()) {
+            numLevels++;
+            final List<Integer> nextLevel = new ArrayList<>();
+            for (int index : level) {
+                sortedTxs.add(transactions.get(index));
+                final List<Integer> spendingTxs = spendingTxIndices.get(index);
+                if (spendingTxs != null) {
+                    for (int spendingTxIndex : spendingTxs) {
+                        if (--numIntraBlockInputs[spendingTxIndex] == 0)
+                            nextLevel.add(spendingTxIndex);
+                    }
+                }
             }
-        } else {
-            log.debug("We have no more txsWithInputsFromSameBlock.");
+            Collections.sort(nextLevel);
+            level = nextLevel;
         }
-    }
 
-    private Set<String> getIntraBlockSpendingTxIdSet(List<Tx> txs) {
-        Set<String> txIdSet = txs.stream().map(Tx::getId).collect(Collectors.toSet());
-        Set<String> intraBlockSpendingTxIdSet = new HashSet<>();
-        txs.forEach(tx -> tx.getInputs().stream()
-                .filter(input -> txIdSet.contains(input.getTxId()))
-                .forEach(input -> intraBlockSpendingTxIdSet.add(input.getTxId())));
-        return intraBlockSpendingTxIdSet;
+        // Usual values is up to 25
+        if (numLevels > 1000)
+            log.warn("Unusual high number of intra-block dependency levels. numLevels={}, blockHeight={}", numLevels, blockHeight);
+
+        if (sortedTxs.size() != size) {
+            // Can only happen with a cyclic dependency which is not possible in a valid block
+            final String msg = "Could not resolve intra-block dependencies at blockHeight " + blockHeight + ".\n" +
+                    "Number of unresolved txs=" + (size - sortedTxs.size());
+            log.warn(msg);
+            if (DevEnv.isDevMode())
+                throw new RuntimeException(msg);
+        }
+        return sortedTxs;
     }
 }
@@ -94,6 +94,7 @@ public class FullNode extends BsqNode {
     public void shutDown() {
         jsonBlockChainExporter.shutDown();
         fullNodeNetworkManager.shutDown();
+        bsqFullNodeExecutor.shutDown();
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -146,4 +146,8 @@ public class FullNodeExecutor {
     void addBlockHandler(Consumer<Block> blockHandler) {
         rpcService.registerBlockHandler(blockHandler);
     }
+
+    void shutDown() {
+        rpcService.shutDown();
+    }
 }
@@ -27,14 +27,19 @@ import bisq.core.dao.node.consensus.BsqTxController;
 import bisq.core.dao.node.consensus.GenesisTxController;
 import bisq.core.dao.node.full.rpc.RpcService;
 
+import bisq.common.util.Tuple2;
+
 import com.neemre.btcdcli4j.core.domain.Block;
 
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +54,8 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class FullNodeParser extends BsqParser {
+    // Number of blocks we request ahead while the parser is busy with the current block
+    private static final int NUM_PREFETCH_BLOCKS = 8;
 
     private final RpcService rpcService;
     // Maybe we want to request fee at some point, leave it for now and disable it
@@ -77,10 +84,18 @@ public class FullNodeParser extends BsqParser {
     void parseBlocks(int startBlockHeight,
                      int chainHeadHeight,
                      Consumer<BsqBlock> newBlockHandler) throws BsqBlockchainException, BlockNotConnectingException {
+        // The RPC requests are done in parallel in the prefetch threads of the rpcService. Parsing is done in order
+        // in our thread as blocks depend on the state of the previous blocks.
+        final Deque<ListenableFuture<Tuple2<Block, List<Tx>>>> prefetchQueue = new ArrayDeque<>();
+        int nextPrefetchHeight = startBlockHeight;
         try {
             for (int blockHeight = startBlockHeight; blockHeight <= chainHeadHeight; blockHeight++) {
-                Block btcdBlock = rpcService.requestBlock(blockHeight);
-                final BsqBlock bsqBlock = parseBlock(btcdBlock);
+                while (nextPrefetchHeight <= chainHeadHeight && prefetchQueue.size() < NUM_PREFETCH_BLOCKS) {
+                    prefetchQueue.add(rpcService.requestBlockWithTxs(nextPrefetchHeight));
+                    nextPrefetchHeight++;
+                }
+                final Tuple2<Block, List<Tx>> blockWithTxs = prefetchQueue.poll().get();
+                final BsqBlock bsqBlock = parseBlock(blockWithTxs.first, blockWithTxs.second);
                 newBlockHandler.accept(bsqBlock);
             }
         } catch (BlockNotConnectingException e) {
@@ -89,12 +104,22 @@ public class FullNodeParser extends BsqParser {
             log.error(t.toString());
             t.printStackTrace();
             throw new BsqBlockchainException(t);
+        } finally {
+            prefetchQueue.forEach(future -> future.cancel(true));
         }
     }
 
     BsqBlock parseBlock(Block btcdBlock) throws BsqBlockchainException, BlockNotConnectingException {
         long startTs = System.currentTimeMillis();
-        List<Tx> bsqTxsInBlock = findBsqTxsInBlock(btcdBlock);
+        final List<Tx> txList = rpcService.requestTxs(btcdBlock.getTx(), btcdBlock.getHeight());
+        log.debug("Requesting {} transactions took {} ms",
+                btcdBlock.getTx().size(), System.currentTimeMillis() - startTs);
+        return parseBlock(btcdBlock, txList);
+    }
+
+    private BsqBlock parseBlock(Block btcdBlock, List<Tx> txList) throws BsqBlockchainException, BlockNotConnectingException {
+        long startTs = System.currentTimeMillis();
+        List<Tx> bsqTxsInBlock = findBsqTxsInBlock(btcdBlock, txList);
         final BsqBlock bsqBlock = new BsqBlock(btcdBlock.getHeight(),
                 btcdBlock.getHash(),
                 btcdBlock.getPreviousBlockHash(),
@@ -110,37 +135,23 @@ public class FullNodeParser extends BsqParser {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private List<Tx> findBsqTxsInBlock(Block btcdBlock) throws BsqBlockchainException {
+    private List<Tx> findBsqTxsInBlock(Block btcdBlock, List<Tx> txList) throws BsqBlockchainException {
         int blockHeight = btcdBlock.getHeight();
         log.debug("Parse block at height={} ", blockHeight);
 
-        // Check if the new block is the same chain we have built on.
-        List<Tx> txList = new ArrayList<>();
         // We use a list as we want to maintain sorting of tx intra-block dependency
         List<Tx> bsqTxsInBlock = new ArrayList<>();
-        // We add all transactions to the block
-        long startTs = System.currentTimeMillis();
 
         // We don't user foreach because scope for exception would not be in method body...
-        for (String txId : btcdBlock.getTx()) {
+        for (Tx tx : txList) {
 
             // TODO if we use requestFee move code to later point once we found our bsq txs, so we only request it for bsq txs
             if (requestFee)
-                rpcService.requestFees(txId, blockHeight, feesByBlock);
+                rpcService.requestFees(tx.getId(), blockHeight, feesByBlock);
 
-            final Tx tx = rpcService.requestTx(txId, blockHeight);
-            txList.add(tx);
             checkForGenesisTx(blockHeight, bsqTxsInBlock, tx);
         }
-        log.debug("Requesting {} transactions took {} ms",
-                btcdBlock.getTx().size(), System.currentTimeMillis() - startTs);
-        // Worst case is that all txs in a block are depending on another, so only one get resolved at each iteration.
-        // Min tx size is 189 bytes (normally about 240 bytes), 1 MB can contain max. about 5300 txs (usually 2000).
-        // Realistically we don't expect more then a few recursive calls.
-        // There are some blocks with testing such dependency chains like block 130768 where at each iteration only
-        // one get resolved.
-        // Lately there is a patter with 24 iterations observed
-        recursiveFindBsqTxs(bsqTxsInBlock, txList, blockHeight, 0, 5300);
+        findBsqTxs(bsqTxsInBlock, txList, blockHeight);
 
         return bsqTxsInBlock;
     }
@@ -43,10 +43,15 @@ import org.jetbrains.annotations.NotNull;
 
 /**
  * Accepts a GetBsqBlocksRequest from a lite nodes and send back a corresponding GetBsqBlocksResponse.
+ * <p>
+ * The response is limited to MAX_NUM_BLOCKS and MAX_SIZE_IN_BYTES. The lite node requests the next chunk starting
+ * after the last received block until it receives an empty response.
  */
 @Slf4j
 class GetBsqBlocksRequestHandler {
     private static final long TIMEOUT = 120;
+    private static final int MAX_NUM_BLOCKS = 1000;
+    private static final int MAX_SIZE_IN_BYTES = 2 * 1024 * 1024;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -88,9 +93,10 @@ class GetBsqBlocksRequestHandler {
 
     public void onGetBsqBlocksRequest(GetBsqBlocksRequest getBsqBlocksRequest, final Connection connection) {
         Log.traceCall(getBsqBlocksRequest + "\n\tconnection=" + connection);
-        List<BsqBlock> bsqBlocks = readableBsqBlockChain.getClonedBlocksFrom(getBsqBlocksRequest.getFromBlockHeight());
+        List<BsqBlock> bsqBlocks = readableBsqBlockChain.getClonedBlocksFrom(getBsqBlocksRequest.getFromBlockHeight(),
+                MAX_NUM_BLOCKS, MAX_SIZE_IN_BYTES);
         final GetBsqBlocksResponse bsqBlocksResponse = new GetBsqBlocksResponse(bsqBlocks, getBsqBlocksRequest.getNonce());
-        log.debug("bsqBlocksResponse " + bsqBlocksResponse.getRequestNonce());
+        log.debug("bsqBlocksResponse " + bsqBlocksResponse.getRequestNonce() + " with " + bsqBlocks.size() + " blocks");
 
         if (timeoutTimer == null) {
             timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
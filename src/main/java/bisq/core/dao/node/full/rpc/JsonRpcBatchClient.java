@@ -0,0 +1,110 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.rpc;
+
+import bisq.core.dao.blockchain.exceptions.BsqBlockchainException;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends JSON-RPC batch requests to Bitcoin Core. btcd-cli4j only supports single calls, so we post the batch
+ * ourselves over the same pooled http client. Thread safe.
+ */
+@Slf4j
+public class JsonRpcBatchClient {
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final CloseableHttpClient httpClient;
+    private final String url;
+    private final String authorization;
+
+    public JsonRpcBatchClient(CloseableHttpClient httpClient, String url, String rpcUser, String rpcPassword) {
+        this.httpClient = httpClient;
+        this.url = url;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((rpcUser + ":" + rpcPassword).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Calls method once for each entry of paramsList in a single http request.
+     *
+     * @return The results in the order of paramsList.
+     */
+    public List<JsonNode> call(String method, List<List<Object>> paramsList) throws BsqBlockchainException {
+        ArrayNode request = MAPPER.createArrayNode();
+        for (int i = 0; i < paramsList.size(); i++) {
+            ObjectNode call = request.addObject();
+            call.put("jsonrpc", "1.0");
+            call.put("id", i);
+            call.put("method", method);
+            ArrayNode params = call.putArray("params");
+            paramsList.get(i).forEach(param -> params.add(MAPPER.valueToTree(param)));
+        }
+
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        try {
+            httpPost.setEntity(new ByteArrayEntity(MAPPER.writeValueAsBytes(request), ContentType.APPLICATION_JSON));
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                JsonNode responseNode = MAPPER.readTree(EntityUtils.toByteArray(response.getEntity()));
+                if (responseNode == null || !responseNode.isArray())
+                    throw new BsqBlockchainException("Unexpected batch response for method " + method +
+                            ". status=" + response.getStatusLine());
+
+                // Responses are not guaranteed to be in request order, so we map them back by id
+                List<JsonNode> results = new ArrayList<>(paramsList.size());
+                for (int i = 0; i < paramsList.size(); i++)
+                    results.add(null);
+                for (JsonNode item : responseNode) {
+                    JsonNode error = item.get("error");
+                    if (error != null && !error.isNull())
+                        throw new JsonRpcException(method, error.path("code").asInt(), error.path("message").asText());
+                    results.set(item.get("id").asInt(), item.get("result"));
+                }
+                if (results.contains(null))
+                    throw new BsqBlockchainException("Missing results in batch response for method " + method);
+                return results;
+            }
+        } catch (IOException e) {
+            throw new BsqBlockchainException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.rpc;
+
+import bisq.core.dao.blockchain.exceptions.BsqBlockchainException;
+
+import lombok.Getter;
+
+/**
+ * Error returned by Bitcoin Core for a call of a JSON-RPC batch request.
+ */
+@Getter
+public class JsonRpcException extends BsqBlockchainException {
+    // See rpc/protocol.h in Bitcoin Core
+    static final int RPC_TYPE_ERROR = -3;
+    static final int RPC_INVALID_PARAMETER = -8;
+    static final int RPC_PARSE_ERROR = -32700;
+
+    private final String method;
+    private final int code;
+
+    public JsonRpcException(String method, int code, String message) {
+        super("Batch call of " + method + " failed. code=" + code + ", message=" + message);
+        this.method = method;
+        this.code = code;
+    }
+}
@@ -24,6 +24,9 @@ import bisq.core.dao.blockchain.vo.Tx;
 import bisq.core.dao.blockchain.vo.TxInput;
 import bisq.core.dao.blockchain.vo.TxOutput;
 
+import bisq.common.util.Tuple2;
+import bisq.common.util.Utilities;
+
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.Utils;
 
@@ -43,17 +46,28 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import com.google.inject.Inject;
 
 import javax.inject.Named;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.math.BigDecimal;
 
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -68,14 +82,25 @@ import org.slf4j.LoggerFactory;
 public class RpcService {
     private static final Logger log = LoggerFactory.getLogger(RpcService.class);
 
+    // Bitcoin Core uses 4 rpc threads by default (rpcthreads), more parallel requests only get queued.
+    private static final int MAX_CONNECTIONS = 8;
+    private static final int NUM_PREFETCH_THREADS = 4;
+    // Max. number of getrawtransaction calls in one batch request
+    private static final int TX_BATCH_SIZE = 200;
+
     private final String rpcUser;
     private final String rpcPassword;
     private final String rpcPort;
     private final String rpcBlockPort;
     private final boolean dumpBlockchainData;
+    // Set to false if Bitcoin Core does not support getblock with verbosity 2
+    private final AtomicBoolean verboseBlocks;
 
     private BtcdClient client;
     private BtcdDaemon daemon;
+    private JsonRpcBatchClient batchClient;
+    private final ListeningExecutorService prefetchExecutor = Utilities.getListeningExecutorService("RpcServicePrefetch",
+            NUM_PREFETCH_THREADS, NUM_PREFETCH_THREADS, 60);
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -88,11 +113,13 @@ public class RpcService {
                       @Named(DaoOptionKeys.RPC_PASSWORD) String rpcPassword,
                       @Named(DaoOptionKeys.RPC_PORT) String rpcPort,
                       @Named(DaoOptionKeys.RPC_BLOCK_NOTIFICATION_PORT) String rpcBlockPort,
+                      @Named(DaoOptionKeys.RPC_VERBOSE_BLOCKS) boolean verboseBlocks,
                       @Named(DaoOptionKeys.DUMP_BLOCKCHAIN_DATA) boolean dumpBlockchainData) {
         this.rpcUser = rpcUser;
         this.rpcPassword = rpcPassword;
         this.rpcPort = rpcPort;
         this.rpcBlockPort = rpcBlockPort;
+        this.verboseBlocks = new AtomicBoolean(verboseBlocks);
         this.dumpBlockchainData = dumpBlockchainData;
     }
 
@@ -100,6 +127,8 @@ public class RpcService {
         try {
             long startTs = System.currentTimeMillis();
             PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+            cm.setMaxTotal(MAX_CONNECTIONS);
+            cm.setDefaultMaxPerRoute(MAX_CONNECTIONS);
             CloseableHttpClient httpProvider = HttpClients.custom().setConnectionManager(cm).build();
             Properties nodeConfig = new Properties();
             nodeConfig.setProperty("node.bitcoind.rpc.protocol", "http");
@@ -114,6 +143,7 @@ public class RpcService {
             nodeConfig.setProperty("node.bitcoind.http.auth_scheme", "Basic");
             BtcdClientImpl client = new BtcdClientImpl(httpProvider, nodeConfig);
             daemon = new BtcdDaemonImpl(client);
+            batchClient = new JsonRpcBatchClient(httpProvider, "http://127.0.0.1:" + rpcPort, rpcUser, rpcPassword);
             log.info("Setup took {} ms", System.currentTimeMillis() - startTs);
             this.client = client;
         } catch (BitcoindException | CommunicationException e) {
@@ -157,6 +187,115 @@ public class RpcService {
         return client.getBlock(blockHash);
     }
 
+    // Requests the block and all its txs in a prefetch thread. Used for reading ahead of the parser.
+    public ListenableFuture<Tuple2<Block, List<Tx>>> requestBlockWithTxs(int blockHeight) {
+        return prefetchExecutor.submit(() -> {
+            if (verboseBlocks.get()) {
+                try {
+                    return requestVerboseBlock(blockHeight);
+                } catch (JsonRpcException e) {
+                    // Other errors are passed to the caller like the errors of the batched requests
+                    if (!isVerbosityNotSupported(e))
+                        throw e;
+
+                    // Several prefetch threads might fail at the same time, we only log once
+                    if (verboseBlocks.compareAndSet(true, false))
+                        log.warn("Bitcoin Core does not support getblock with verbosity 2. We fall back to request " +
+                                "the txs of a block in batches. Bitcoin Core 0.15 or later is required for verbose " +
+                                "blocks. Error=" + e.toString());
+                }
+            }
+            final Block block = requestBlock(blockHeight);
+            return new Tuple2<>(block, requestTxs(block.getTx(), blockHeight));
+        });
+    }
+
+    // Requests the block with all decoded txs with getblock and verbosity 2. Instead of one getrawtransaction call per
+    // tx we need only 2 round trips per block.
+    @VisibleForTesting
+    Tuple2<Block, List<Tx>> requestVerboseBlock(int blockHeight) throws BsqBlockchainException {
+        final String blockHash = batchClient.call("getblockhash",
+                Collections.singletonList(Collections.singletonList(blockHeight))).get(0).asText();
+        final JsonNode blockNode = batchClient.call("getblock",
+                Collections.singletonList(Arrays.asList(blockHash, 2))).get(0);
+        return getBlockWithTxs(blockNode);
+    }
+
+    // Bitcoin Core before 0.15 expects a boolean as second parameter of getblock and answers verbosity 2 with a parse
+    // error. Invalid parameters are otherwise reported as RPC_TYPE_ERROR or RPC_INVALID_PARAMETER.
+    @VisibleForTesting
+    static boolean isVerbosityNotSupported(JsonRpcException e) {
+        if (!"getblock".equals(e.getMethod()))
+            return false;
+
+        switch (e.getCode()) {
+            case JsonRpcException.RPC_TYPE_ERROR:
+            case JsonRpcException.RPC_INVALID_PARAMETER:
+                return true;
+            case JsonRpcException.RPC_PARSE_ERROR:
+                return e.getMessage().contains("JSON value is not a boolean");
+            default:
+                return false;
+        }
+    }
+
+    @VisibleForTesting
+    Tuple2<Block, List<Tx>> getBlockWithTxs(JsonNode blockNode) throws BsqBlockchainException {
+        final int blockHeight = blockNode.get("height").asInt();
+        final String blockHash = blockNode.get("hash").asText();
+        // In verbose blocks the txs don't contain the blockhash and time fields
+        final long time = blockNode.get("time").asLong();
+        final List<String> txIds = new ArrayList<>(blockNode.get("tx").size());
+        final List<Tx> txs = new ArrayList<>(blockNode.get("tx").size());
+        for (JsonNode txNode : blockNode.get("tx")) {
+            try {
+                RawTransaction rawTransaction = JsonRpcBatchClient.MAPPER.treeToValue(txNode, RawTransaction.class);
+                txIds.add(rawTransaction.getTxId());
+                txs.add(getTx(rawTransaction, rawTransaction.getTxId(), blockHash, time, blockHeight));
+            } catch (IOException e) {
+                log.error("error at getBlockWithTxs with blockHeight={}", blockHeight);
+                throw new BsqBlockchainException(e.getMessage(), e);
+            }
+        }
+        final Block block = new Block(blockHash,
+                blockNode.path("confirmations").asInt(),
+                blockNode.path("size").asInt(),
+                blockHeight,
+                blockNode.path("version").asInt(),
+                blockNode.path("merkleroot").asText(null),
+                txIds,
+                time,
+                blockNode.path("nonce").asLong(),
+                blockNode.path("bits").asText(null),
+                blockNode.path("difficulty").decimalValue(),
+                blockNode.path("chainwork").asText(null),
+                blockNode.path("previousblockhash").asText(null),
+                blockNode.path("nextblockhash").asText(null));
+        return new Tuple2<>(block, txs);
+    }
+
+    // Requests the txs with JSON-RPC batch calls of getrawtransaction. The result has the order of txIds.
+    public List<Tx> requestTxs(List<String> txIds, int blockHeight) throws BsqBlockchainException {
+        List<Tx> txs = new ArrayList<>(txIds.size());
+        for (int from = 0; from < txIds.size(); from += TX_BATCH_SIZE) {
+            final List<String> batch = txIds.subList(from, Math.min(from + TX_BATCH_SIZE, txIds.size()));
+            final List<List<Object>> paramsList = batch.stream()
+                    .map(txId -> Arrays.<Object>asList(txId, 1))
+                    .collect(Collectors.toList());
+            final List<JsonNode> results = batchClient.call("getrawtransaction", paramsList);
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    RawTransaction rawTransaction = JsonRpcBatchClient.MAPPER.treeToValue(results.get(i), RawTransaction.class);
+                    txs.add(getTx(rawTransaction, batch.get(i), rawTransaction.getBlockHash(), rawTransaction.getTime(), blockHeight));
+                } catch (IOException e) {
+                    log.error("error at requestTxs with txId={}, blockHeight={}", batch.get(i), blockHeight);
+                    throw new BsqBlockchainException(e.getMessage(), e);
+                }
+            }
+        }
+        return txs;
+    }
+
     public void requestFees(String txId, int blockHeight, Map<Integer, Long> feesByBlock) throws BsqBlockchainException {
         try {
             Transaction transaction = requestTx(txId);
@@ -172,61 +311,89 @@ public class RpcService {
     public Tx requestTx(String txId, int blockHeight) throws BsqBlockchainException {
         try {
             RawTransaction rawTransaction = requestRawTransaction(txId);
-            // rawTransaction.getTime() is in seconds but we keep it in ms internally
-            final long time = rawTransaction.getTime() * 1000;
-            final List<TxInput> txInputs = rawTransaction.getVIn()
-                    .stream()
-                    .filter(rawInput -> rawInput != null && rawInput.getVOut() != null && rawInput.getTxId() != null)
-                    .map(rawInput -> new TxInput(rawInput.getTxId(), rawInput.getVOut()))
-                    .collect(Collectors.toList());
+            return getTx(rawTransaction, txId, rawTransaction.getBlockHash(), rawTransaction.getTime(), blockHeight);
+        } catch (BitcoindException | CommunicationException e) {
+            log.error("error at requestTx with txId={}, blockHeight={}", txId, blockHeight);
+            throw new BsqBlockchainException(e.getMessage(), e);
+        }
+    }
 
-            final List<TxOutput> txOutputs = rawTransaction.getVOut()
-                    .stream()
-                    .filter(e -> e != null && e.getN() != null && e.getValue() != null && e.getScriptPubKey() != null)
-                    .map(rawOutput -> {
-                                byte[] opReturnData = null;
-                                final com.neemre.btcdcli4j.core.domain.PubKeyScript scriptPubKey = rawOutput.getScriptPubKey();
-                                if (scriptPubKey.getType().equals(ScriptTypes.NULL_DATA)) {
-                                    String[] chunks = scriptPubKey.getAsm().split(" ");
-                                    // TODO only store BSQ OP_RETURN date filtered by type byte
-
-                                    // We get on testnet a lot of "OP_RETURN 0" data, so we filter those away
-                                    if (chunks.length == 2 && chunks[0].equals("OP_RETURN") && !"0".equals(chunks[1])) {
-                                        try {
-                                            opReturnData = Utils.HEX.decode(chunks[1]);
-                                        } catch (Throwable t) {
-                                            // We get sometimes exceptions, seems BitcoinJ
-                                            // cannot handle all existing OP_RETURN data, but we ignore them
-                                            // anyway as our OP_RETURN data is valid in BitcoinJ
-                                            log.warn("Error at Utils.HEX.decode(chunks[1]): " + t.toString() + " / chunks[1]=" + chunks[1]);
-                                        }
+    public void shutDown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    @VisibleForTesting
+    void setBatchClient(JsonRpcBatchClient batchClient) {
+        this.batchClient = batchClient;
+    }
+
+    @VisibleForTesting
+    void setClient(BtcdClient client) {
+        this.client = client;
+    }
+
+    @VisibleForTesting
+    boolean isVerboseBlocks() {
+        return verboseBlocks.get();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private Tx getTx(RawTransaction rawTransaction, String txId, String blockHash, long timeInSec, int blockHeight) {
+        // rawTransaction.getTime() is in seconds but we keep it in ms internally
+        final long time = timeInSec * 1000;
+        final List<TxInput> txInputs = rawTransaction.getVIn()
+                .stream()
+                .filter(rawInput -> rawInput != null && rawInput.getVOut() != null && rawInput.getTxId() != null)
+                .map(rawInput -> new TxInput(rawInput.getTxId(), rawInput.getVOut()))
+                .collect(Collectors.toList());
+
+        final List<TxOutput> txOutputs = rawTransaction.getVOut()
+                .stream()
+                .filter(e -> e != null && e.getN() != null && e.getValue() != null && e.getScriptPubKey() != null)
+                .map(rawOutput -> {
+                            byte[] opReturnData = null;
+                            final com.neemre.btcdcli4j.core.domain.PubKeyScript scriptPubKey = rawOutput.getScriptPubKey();
+                            if (scriptPubKey.getType().equals(ScriptTypes.NULL_DATA)) {
+                                String[] chunks = scriptPubKey.getAsm().split(" ");
+                                // TODO only store BSQ OP_RETURN date filtered by type byte
+
+                                // We get on testnet a lot of "OP_RETURN 0" data, so we filter those away
+                                if (chunks.length == 2 && chunks[0].equals("OP_RETURN") && !"0".equals(chunks[1])) {
+                                    try {
+                                        opReturnData = Utils.HEX.decode(chunks[1]);
+                                    } catch (Throwable t) {
+                                        // We get sometimes exceptions, seems BitcoinJ
+                                        // cannot handle all existing OP_RETURN data, but we ignore them
+                                        // anyway as our OP_RETURN data is valid in BitcoinJ
+                                        log.warn("Error at Utils.HEX.decode(chunks[1]): " + t.toString() + " / chunks[1]=" + chunks[1]);
                                     }
                                 }
-                                // We don't support raw MS which are the only case where scriptPubKey.getAddresses()>1
-                                String address = scriptPubKey.getAddresses() != null &&
-                                        scriptPubKey.getAddresses().size() == 1 ? scriptPubKey.getAddresses().get(0) : null;
-                                final PubKeyScript pubKeyScript = dumpBlockchainData ? new PubKeyScript(scriptPubKey) : null;
-                                return new TxOutput(rawOutput.getN(),
-                                        rawOutput.getValue().movePointRight(8).longValue(),
-                                        rawTransaction.getTxId(),
-                                        pubKeyScript,
-                                        address,
-                                        opReturnData,
-                                        blockHeight);
                             }
-                    )
-                    .collect(Collectors.toList());
+                            // We don't support raw MS which are the only case where scriptPubKey.getAddresses()>1
+                            String address = scriptPubKey.getAddresses() != null &&
+                                    scriptPubKey.getAddresses().size() == 1 ? scriptPubKey.getAddresses().get(0) : null;
+                            final PubKeyScript pubKeyScript = dumpBlockchainData ? new PubKeyScript(scriptPubKey) : null;
+                            return new TxOutput(rawOutput.getN(),
+                                    rawOutput.getValue().movePointRight(8).longValue(),
+                                    rawTransaction.getTxId(),
+                                    pubKeyScript,
+                                    address,
+                                    opReturnData,
+                                    blockHeight);
+                        }
+                )
+                .collect(Collectors.toList());
 
-            return new Tx(txId,
-                    blockHeight,
-                    rawTransaction.getBlockHash(),
-                    time,
-                    ImmutableList.copyOf(txInputs),
-                    ImmutableList.copyOf(txOutputs));
-        } catch (BitcoindException | CommunicationException e) {
-            log.error("error at requestTx with txId={}, blockHeight={}", txId, blockHeight);
-            throw new BsqBlockchainException(e.getMessage(), e);
-        }
+        return new Tx(txId,
+                blockHeight,
+                blockHash,
+                time,
+                ImmutableList.copyOf(txInputs),
+                ImmutableList.copyOf(txOutputs));
     }
 
     private RawTransaction requestRawTransaction(String txId) throws BitcoindException, CommunicationException {
@@ -137,7 +137,9 @@ public class LiteNode extends BsqNode {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    // We received the missing blocks
+    // We received a chunk of the missing blocks. The LiteNodeNetworkManager requests the next chunk until it gets an
+    // empty response, which completes the parsing. As the executor is single threaded that happens after all
+    // previous chunks are parsed.
     private void onRequestedBlocksReceived(List<BsqBlock> bsqBlockList) {
         log.info("onRequestedBlocksReceived: blocks with {} items", bsqBlockList.size());
         if (bsqBlockList.size() > 0)
@@ -146,7 +148,10 @@ public class LiteNode extends BsqNode {
         bsqBlockList.forEach(BsqBlock::reset);
         bsqLiteNodeExecutor.parseBlocks(bsqBlockList,
                 block -> notifyListenersOnNewBlock(),
-                this::onParseBlockchainComplete,
+                () -> {
+                    if (bsqBlockList.isEmpty())
+                        onParseBlockchainComplete();
+                },
                 getErrorHandler());
     }
 
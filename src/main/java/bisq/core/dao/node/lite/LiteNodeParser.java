@@ -63,7 +63,7 @@ public class LiteNodeParser extends BsqParser {
         List<Tx> txList = new ArrayList<>(bsqBlock.getTxs());
         List<Tx> bsqTxsInBlock = new ArrayList<>();
         bsqBlock.getTxs().forEach(tx -> checkForGenesisTx(blockHeight, bsqTxsInBlock, tx));
-        recursiveFindBsqTxs(bsqTxsInBlock, txList, blockHeight, 0, 5300);
+        findBsqTxs(bsqTxsInBlock, txList, blockHeight);
         bsqBlockController.addBlockIfValid(bsqBlock);
     }
 }
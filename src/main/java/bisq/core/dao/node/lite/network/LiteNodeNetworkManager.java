@@ -17,6 +17,7 @@
 
 package bisq.core.dao.node.lite.network;
 
+import bisq.core.dao.blockchain.vo.BsqBlock;
 import bisq.core.dao.node.messages.GetBsqBlocksResponse;
 import bisq.core.dao.node.messages.NewBsqBlockBroadcastMessage;
 
@@ -245,6 +246,16 @@ public class LiteNodeNetworkManager implements MessageListener, ConnectionListen
                                     // we only notify if our request was latest
                                     if (startBlockHeight >= lastReceivedBlockHeight) {
                                         lastReceivedBlockHeight = startBlockHeight;
+                                        // The full node delivers the blocks in chunks. We request the next chunk
+                                        // from the same peer before we notify the listeners so it is already in
+                                        // flight while the received blocks get parsed. An empty response marks
+                                        // the end.
+                                        List<BsqBlock> bsqBlocks = getBsqBlocksResponse.getBsqBlocks();
+                                        if (!bsqBlocks.isEmpty()) {
+                                            int nextBlockHeight = bsqBlocks.get(bsqBlocks.size() - 1).getHeight() + 1;
+                                            lastRequestedBlockHeight = nextBlockHeight;
+                                            requestBlocks(peersNodeAddress, nextBlockHeight);
+                                        }
                                         listeners.forEach(listener -> listener.onRequestedBlocksReceived(getBsqBlocksResponse));
                                     } else {
                                         log.warn("We got a response which is already obsolete because we receive a " +
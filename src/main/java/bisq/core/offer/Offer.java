@@ -165,17 +165,8 @@ public class Offer implements NetworkPayload, PersistablePayload {
             checkNotNull(priceFeedService, "priceFeed must not be null");
             MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
             if (marketPrice != null && marketPrice.isRecentExternalPriceAvailable()) {
-                double factor;
-                double marketPriceMargin = offerPayload.getMarketPriceMargin();
-                if (CurrencyUtil.isCryptoCurrency(currencyCode)) {
-                    factor = getDirection() == OfferPayload.Direction.SELL ?
-                            1 - marketPriceMargin : 1 + marketPriceMargin;
-                } else {
-                    factor = getDirection() == OfferPayload.Direction.BUY ?
-                            1 - marketPriceMargin : 1 + marketPriceMargin;
-                }
                 double marketPriceAsDouble = marketPrice.getPrice();
-                double targetPriceAsDouble = marketPriceAsDouble * factor;
+                double targetPriceAsDouble = marketPriceAsDouble * getMarketPriceFactor();
                 try {
                     int precision = CurrencyUtil.isCryptoCurrency(currencyCode) ?
                             Altcoin.SMALLEST_UNIT_EXPONENT :
@@ -198,6 +189,19 @@ public class Offer implements NetworkPayload, PersistablePayload {
         }
     }
 
+    // The factor applied to the market price for market based offers. It does not depend on the market price, so
+    // market based offers of one currency and direction can be sorted by it without knowing the market price.
+    public double getMarketPriceFactor() {
+        double marketPriceMargin = offerPayload.getMarketPriceMargin();
+        if (CurrencyUtil.isCryptoCurrency(getCurrencyCode())) {
+            return getDirection() == OfferPayload.Direction.SELL ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        } else {
+            return getDirection() == OfferPayload.Direction.BUY ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        }
+    }
+
     public void checkTradePriceTolerance(long takersTradePrice) throws TradePriceOutOfToleranceException,
             MarketPriceNotAvailableException, IllegalArgumentException {
         Price tradePrice = Price.valueOf(getCurrencyCode(), takersTradePrice);
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds one Offer per OfferPayload in the offer book, indexed by offer ID, by currency code and direction and by
+ * payment method. Kept up to date from the changes of the P2P data map.
+ */
+class OfferBookIndex {
+    private final Function<OfferPayload, Offer> offerFactory;
+
+    private final Map<String, Offer> offerById = new LinkedHashMap<>();
+    private final Map<String, Map<OfferPayload.Direction, Map<String, Offer>>> offersByCurrencyCode = new HashMap<>();
+    private final Map<String, Map<String, Offer>> offersByPaymentMethodId = new HashMap<>();
+    private final SortedOfferBook sortedOfferBook = new SortedOfferBook();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    OfferBookIndex(Function<OfferPayload, Offer> offerFactory) {
+        this.offerFactory = offerFactory;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return The Offer for that payload. If we have already an Offer with an equal payload we return that.
+     */
+    Offer add(OfferPayload offerPayload) {
+        Offer existing = offerById.get(offerPayload.getId());
+        if (existing != null) {
+            if (existing.getOfferPayload().equals(offerPayload))
+                return existing;
+
+            // An offer with the same ID but changed payload replaces the old one
+            remove(existing.getOfferPayload());
+        }
+
+        Offer offer = offerFactory.apply(offerPayload);
+        offerById.put(offer.getId(), offer);
+        offersByCurrencyCode.computeIfAbsent(offer.getCurrencyCode(), key -> new EnumMap<>(OfferPayload.Direction.class))
+                .computeIfAbsent(offer.getDirection(), key -> new LinkedHashMap<>())
+                .put(offer.getId(), offer);
+        offersByPaymentMethodId.computeIfAbsent(offerPayload.getPaymentMethodId(), key -> new LinkedHashMap<>())
+                .put(offer.getId(), offer);
+        sortedOfferBook.add(offer);
+        return offer;
+    }
+
+    /**
+     * @return The removed Offer or a new Offer for that payload if it was not in the index.
+     */
+    Offer remove(OfferPayload offerPayload) {
+        Offer offer = offerById.get(offerPayload.getId());
+        // If the payload got replaced in between we keep the new one
+        if (offer == null || !offer.getOfferPayload().equals(offerPayload))
+            return offerFactory.apply(offerPayload);
+
+        offerById.remove(offerPayload.getId());
+        sortedOfferBook.remove(offer);
+
+        Map<OfferPayload.Direction, Map<String, Offer>> byDirection = offersByCurrencyCode.get(offer.getCurrencyCode());
+        if (byDirection != null) {
+            Map<String, Offer> map = byDirection.get(offer.getDirection());
+            if (map != null) {
+                map.remove(offer.getId());
+                if (map.isEmpty())
+                    byDirection.remove(offer.getDirection());
+            }
+            if (byDirection.isEmpty())
+                offersByCurrencyCode.remove(offer.getCurrencyCode());
+        }
+
+        final String paymentMethodId = offer.getOfferPayload().getPaymentMethodId();
+        Map<String, Offer> map = offersByPaymentMethodId.get(paymentMethodId);
+        if (map != null) {
+            map.remove(offer.getId());
+            if (map.isEmpty())
+                offersByPaymentMethodId.remove(paymentMethodId);
+        }
+        return offer;
+    }
+
+    Optional<Offer> getOffer(String offerId) {
+        return Optional.ofNullable(offerById.get(offerId));
+    }
+
+    List<Offer> getOffers() {
+        return new ArrayList<>(offerById.values());
+    }
+
+    List<Offer> getOffers(String currencyCode) {
+        Map<OfferPayload.Direction, Map<String, Offer>> byDirection = offersByCurrencyCode.get(currencyCode);
+        List<Offer> list = new ArrayList<>();
+        if (byDirection != null)
+            byDirection.values().forEach(map -> list.addAll(map.values()));
+        return list;
+    }
+
+    List<Offer> getOffers(String currencyCode, OfferPayload.Direction direction) {
+        Map<OfferPayload.Direction, Map<String, Offer>> byDirection = offersByCurrencyCode.get(currencyCode);
+        return toList(byDirection != null ? byDirection.get(direction) : null);
+    }
+
+    List<Offer> getOffersByPaymentMethodId(String paymentMethodId) {
+        return toList(offersByPaymentMethodId.get(paymentMethodId));
+    }
+
+    List<Offer> getOffersSortedByPrice(String currencyCode, OfferPayload.Direction direction) {
+        return sortedOfferBook.getOffersSortedByPrice(currencyCode, direction);
+    }
+
+    void onMarketPriceChanged() {
+        sortedOfferBook.onMarketPriceChanged();
+    }
+
+    int size() {
+        return offerById.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static List<Offer> toList(@Nullable Map<String, Offer> map) {
+        return map != null ? new ArrayList<>(map.values()) : new ArrayList<>();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.util.Utilities;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the offer book to offers_statistics.json for further processing (e.g. for web based services).
+ * <p>
+ * Changes within COALESCE_WINDOW_MS are written at once. The OfferForJson of fixed price offers are reused for the
+ * next write as they do not change. The file is streamed to a temp file at a single thread executor and then moved
+ * to the target, so readers never see a partially written file.
+ * <p>
+ * Must be called from the user thread.
+ */
+@Slf4j
+class OfferBookJsonDumper {
+    static final String FILE_NAME = "offers_statistics";
+
+    private static final long COALESCE_WINDOW_MS = 5000;
+
+    private final Path path;
+    private final Supplier<List<Offer>> offersSupplier;
+    // Returns null if the offer cannot be converted
+    private final Function<Offer, OfferForJson> offerForJsonFactory;
+    private final ExecutorService executor = Utilities.getListeningSingleThreadExecutor("OfferBookJsonDumper");
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    // Offer does not have a stable hashCode, so we use the identity. OfferBookIndex gives us the same instance.
+    private Map<Offer, OfferForJson> fixedPriceOffersCache = new IdentityHashMap<>();
+    private Timer timer;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    OfferBookJsonDumper(File storageDir,
+                        Supplier<List<Offer>> offersSupplier,
+                        Function<Offer, OfferForJson> offerForJsonFactory) {
+        this.offersSupplier = offersSupplier;
+        this.offerForJsonFactory = offerForJsonFactory;
+        path = new File(storageDir, FILE_NAME + ".json").toPath();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void onOfferBookChanged() {
+        if (timer == null)
+            timer = UserThread.runAfter(() -> {
+                timer = null;
+                dump();
+            }, COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void dump() {
+        Map<Offer, OfferForJson> newCache = new IdentityHashMap<>();
+        List<OfferForJson> list = new ArrayList<>();
+        offersSupplier.get().forEach(offer -> {
+            OfferForJson offerForJson = fixedPriceOffersCache.get(offer);
+            if (offerForJson == null)
+                offerForJson = offerForJsonFactory.apply(offer);
+            if (offerForJson != null) {
+                list.add(offerForJson);
+                if (!offer.isUseMarketBasedPrice())
+                    newCache.put(offer, offerForJson);
+            }
+        });
+        fixedPriceOffersCache = newCache;
+        executor.execute(() -> write(list));
+    }
+
+    private void write(List<OfferForJson> list) {
+        long ts = System.currentTimeMillis();
+        Path tempPath = path.resolveSibling(FILE_NAME + ".json.tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8);
+             JsonWriter jsonWriter = gson.newJsonWriter(writer)) {
+            jsonWriter.beginArray();
+            for (OfferForJson offerForJson : list)
+                gson.toJson(offerForJson, OfferForJson.class, jsonWriter);
+            jsonWriter.endArray();
+        } catch (IOException e) {
+            log.error("Could not write {}. {}", FILE_NAME, e.toString());
+            return;
+        }
+
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Writing {} offers to {} took {} ms", list.size(), FILE_NAME, System.currentTimeMillis() - ts);
+        } catch (IOException e) {
+            log.error("Could not write {}. {}", FILE_NAME, e.toString());
+        }
+    }
+}
@@ -25,12 +25,9 @@ import bisq.network.p2p.P2PService;
 import bisq.network.p2p.storage.HashMapChangedListener;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 
-import bisq.common.UserThread;
 import bisq.common.handlers.ErrorMessageHandler;
 import bisq.common.handlers.ResultHandler;
-import bisq.common.storage.JsonFileManager;
 import bisq.common.storage.Storage;
-import bisq.common.util.Utilities;
 
 import com.google.inject.name.Named;
 
@@ -40,7 +37,7 @@ import java.io.File;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +46,8 @@ import javax.annotation.Nullable;
 
 /**
  * Handles storage and retrieval of offers.
- * Uses an invalidation flag to only request the full offer map in case there was a change (anyone has added or removed an offer).
+ * The offers are held in an OfferBookIndex which is updated from the changes of the P2P data map, so we have one Offer
+ * object per OfferPayload.
  */
 public class OfferBookService {
     private static final Logger log = LoggerFactory.getLogger(OfferBookService.class);
@@ -63,7 +61,8 @@ public class OfferBookService {
     private final P2PService p2PService;
     private final PriceFeedService priceFeedService;
     private final List<OfferBookChangedListener> offerBookChangedListeners = new LinkedList<>();
-    private final JsonFileManager jsonFileManager;
+    private final OfferBookJsonDumper offerBookJsonDumper;
+    private final OfferBookIndex offerBookIndex;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -77,34 +76,42 @@ public class OfferBookService {
                             @Named(AppOptionKeys.DUMP_STATISTICS) boolean dumpStatistics) {
         this.p2PService = p2PService;
         this.priceFeedService = priceFeedService;
-        jsonFileManager = new JsonFileManager(storageDir);
+        offerBookJsonDumper = new OfferBookJsonDumper(storageDir, this::getOffers, this::toOfferForJson);
+
+        offerBookIndex = new OfferBookIndex(offerPayload -> {
+            Offer offer = new Offer(offerPayload);
+            offer.setPriceFeedService(priceFeedService);
+            return offer;
+        });
 
         p2PService.addHashSetChangedListener(new HashMapChangedListener() {
             @Override
             public void onAdded(ProtectedStorageEntry data) {
-                offerBookChangedListeners.stream().forEach(listener -> {
-                    if (data.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onAdded(offer);
-                    }
-                });
+                if (data.getProtectedStoragePayload() instanceof OfferPayload) {
+                    Offer offer = offerBookIndex.add((OfferPayload) data.getProtectedStoragePayload());
+                    offerBookChangedListeners.forEach(listener -> listener.onAdded(offer));
+                }
             }
 
             @Override
             public void onRemoved(ProtectedStorageEntry data) {
-                offerBookChangedListeners.stream().forEach(listener -> {
-                    if (data.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onRemoved(offer);
-                    }
-                });
+                if (data.getProtectedStoragePayload() instanceof OfferPayload) {
+                    Offer offer = offerBookIndex.remove((OfferPayload) data.getProtectedStoragePayload());
+                    offerBookChangedListeners.forEach(listener -> listener.onRemoved(offer));
+                }
             }
         });
 
+        // We add the offers we have already received before our listener was registered
+        p2PService.getDataMap().values().stream()
+                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayload)
+                .forEach(data -> offerBookIndex.add((OfferPayload) data.getProtectedStoragePayload()));
+
+        // The sorted order of market based offers does not change with the market price, we only need to drop the
+        // cached prices
+        priceFeedService.updateCounterProperty().addListener((observable, oldValue, newValue) ->
+                offerBookIndex.onMarketPriceChanged());
+
         if (dumpStatistics) {
             p2PService.addP2PServiceListener(new BootstrapListener() {
                 @Override
@@ -112,15 +119,15 @@ public class OfferBookService {
                     addOfferBookChangedListener(new OfferBookChangedListener() {
                         @Override
                         public void onAdded(Offer offer) {
-                            doDumpStatistics();
+                            offerBookJsonDumper.onOfferBookChanged();
                         }
 
                         @Override
                         public void onRemoved(Offer offer) {
-                            doDumpStatistics();
+                            offerBookJsonDumper.onOfferBookChanged();
                         }
                     });
-                    UserThread.runAfter(OfferBookService.this::doDumpStatistics, 1);
+                    offerBookJsonDumper.onOfferBookChanged();
                 }
             });
         }
@@ -171,15 +178,30 @@ public class OfferBookService {
     }
 
     public List<Offer> getOffers() {
-        return p2PService.getDataMap().values().stream()
-                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayload)
-                .map(data -> {
-                    OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                    Offer offer = new Offer(offerPayload);
-                    offer.setPriceFeedService(priceFeedService);
-                    return offer;
-                })
-                .collect(Collectors.toList());
+        return offerBookIndex.getOffers();
+    }
+
+    public List<Offer> getOffers(String currencyCode) {
+        return offerBookIndex.getOffers(currencyCode);
+    }
+
+    public List<Offer> getOffers(String currencyCode, OfferPayload.Direction direction) {
+        return offerBookIndex.getOffers(currencyCode, direction);
+    }
+
+    /**
+     * @return The offers sorted by ascending price. Market based offers without a market price are at the end.
+     */
+    public List<Offer> getOffersSortedByPrice(String currencyCode, OfferPayload.Direction direction) {
+        return offerBookIndex.getOffersSortedByPrice(currencyCode, direction);
+    }
+
+    public List<Offer> getOffersByPaymentMethodId(String paymentMethodId) {
+        return offerBookIndex.getOffersByPaymentMethodId(paymentMethodId);
+    }
+
+    public Optional<Offer> getOffer(String offerId) {
+        return offerBookIndex.getOffer(offerId);
     }
 
     public void removeOfferAtShutDown(OfferPayload offerPayload) {
@@ -200,32 +222,29 @@ public class OfferBookService {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private void doDumpStatistics() {
-        // We filter the case that it is a MarketBasedPrice but the price is not available
-        // That should only be possible if the price feed provider is not available
-        final List<OfferForJson> offerForJsonList = getOffers().stream()
-                .filter(offer -> !offer.isUseMarketBasedPrice() || priceFeedService.getMarketPrice(offer.getCurrencyCode()) != null)
-                .map(offer -> {
-                    try {
-                        return new OfferForJson(offer.getDirection(),
-                                offer.getCurrencyCode(),
-                                offer.getMinAmount(),
-                                offer.getAmount(),
-                                offer.getPrice(),
-                                offer.getDate(),
-                                offer.getId(),
-                                offer.isUseMarketBasedPrice(),
-                                offer.getMarketPriceMargin(),
-                                offer.getPaymentMethod(),
-                                offer.getOfferFeePaymentTxId()
-                        );
-                    } catch (Throwable t) {
-                        // In case a offer was corrupted with null values we ignore it
-                        return null;
-                    }
-                })
-                .filter(e -> e != null)
-                .collect(Collectors.toList());
-        jsonFileManager.writeToDisc(Utilities.objectToJson(offerForJsonList), "offers_statistics");
+    // We filter the case that it is a MarketBasedPrice but the price is not available
+    // That should only be possible if the price feed provider is not available
+    @Nullable
+    private OfferForJson toOfferForJson(Offer offer) {
+        if (offer.isUseMarketBasedPrice() && priceFeedService.getMarketPrice(offer.getCurrencyCode()) == null)
+            return null;
+
+        try {
+            return new OfferForJson(offer.getDirection(),
+                    offer.getCurrencyCode(),
+                    offer.getMinAmount(),
+                    offer.getAmount(),
+                    offer.getPrice(),
+                    offer.getDate(),
+                    offer.getId(),
+                    offer.isUseMarketBasedPrice(),
+                    offer.getMarketPriceMargin(),
+                    offer.getPaymentMethod(),
+                    offer.getOfferFeePaymentTxId()
+            );
+        } catch (Throwable t) {
+            // In case a offer was corrupted with null values we ignore it
+            return null;
+        }
     }
 }
@@ -17,11 +17,14 @@
 
 package bisq.core.offer;
 
+import bisq.core.app.AppOptionKeys;
+
 import bisq.common.app.AppModule;
 
 import org.springframework.core.env.Environment;
 
 import com.google.inject.Singleton;
+import com.google.inject.name.Names;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,5 +39,9 @@ public class OfferModule extends AppModule {
     protected final void configure() {
         bind(OpenOfferManager.class).in(Singleton.class);
         bind(OfferBookService.class).in(Singleton.class);
+
+        Integer offerPublishRate = environment.getProperty(AppOptionKeys.OFFER_PUBLISH_RATE, Integer.class,
+                OfferPublishScheduler.DEFAULT_MESSAGES_PER_SEC);
+        bind(Integer.class).annotatedWith(Names.named(AppOptionKeys.OFFER_PUBLISH_RATE)).toInstance(offerPublishRate);
     }
 }
@@ -0,0 +1,176 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes and refreshes our open offers at a limited rate with a single timer instead of one timer per offer.
+ * <p>
+ * Pending work is kept per offer ID. A republish replaces a pending refresh of the same offer as it refreshes the TTL
+ * as well, and a second request for the same offer is ignored. Each tick sends as many messages as the budget of
+ * maxMessagesPerSec allows. The timer only runs while there is pending work.
+ * <p>
+ * The lag between scheduling and sending is recorded per offer, so we can see if the budget is too low for the
+ * number of offers.
+ * <p>
+ * The pending work is processed at a UserThread timer, so schedule and cancel have to be called at the user thread.
+ */
+@Slf4j
+public class OfferPublishScheduler {
+    public static final int DEFAULT_MESSAGES_PER_SEC = 3;
+    private static final long TICK_MS = 100;
+
+    enum Action {
+        REFRESH,
+        REPUBLISH
+    }
+
+    private static final class Task {
+        private final OpenOffer openOffer;
+        private final Action action;
+        private final long scheduledTs;
+
+        Task(OpenOffer openOffer, Action action, long scheduledTs) {
+            this.openOffer = openOffer;
+            this.action = action;
+            this.scheduledTs = scheduledTs;
+        }
+    }
+
+    private final int maxMessagesPerSec;
+    private final Consumer<OpenOffer> republishHandler;
+    private final Consumer<OpenOffer> refreshHandler;
+
+    private final Map<String, Task> pendingTasks = new LinkedHashMap<>();
+    private final Map<String, Long> lagByOfferId = new HashMap<>();
+    private Timer timer;
+    private double allowance;
+    private long lastTickTs;
+    @Getter
+    private long maxLagMs;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    OfferPublishScheduler(int maxMessagesPerSec,
+                          Consumer<OpenOffer> republishHandler,
+                          Consumer<OpenOffer> refreshHandler) {
+        this.maxMessagesPerSec = Math.max(1, maxMessagesPerSec);
+        this.republishHandler = republishHandler;
+        this.refreshHandler = refreshHandler;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void schedule(Collection<OpenOffer> openOffers, Action action) {
+        final long now = System.currentTimeMillis();
+        openOffers.forEach(openOffer -> {
+            Task pending = pendingTasks.get(openOffer.getId());
+            if (pending == null || (pending.action == Action.REFRESH && action == Action.REPUBLISH))
+                pendingTasks.put(openOffer.getId(), new Task(openOffer, action, now));
+        });
+
+        if (timer == null && !pendingTasks.isEmpty()) {
+            lastTickTs = now;
+            // We allow to send the first message at once
+            allowance = 1;
+            timer = UserThread.runPeriodically(this::onTick, TICK_MS, TimeUnit.MILLISECONDS);
+            onTick();
+        }
+    }
+
+    void cancel(String offerId) {
+        pendingTasks.remove(offerId);
+        lagByOfferId.remove(offerId);
+    }
+
+    void shutDown() {
+        pendingTasks.clear();
+        stopTimer();
+    }
+
+    /**
+     * @return The time between scheduling and sending of the last message for that offer or -1 if nothing was sent.
+     */
+    long getLagMs(String offerId) {
+        return lagByOfferId.getOrDefault(offerId, -1L);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onTick() {
+        final long now = System.currentTimeMillis();
+        // We do not accumulate more than one second of budget if we have been idle
+        allowance = Math.min(maxMessagesPerSec, allowance + maxMessagesPerSec * (now - lastTickTs) / 1000d);
+        lastTickTs = now;
+
+        // We take the tasks out first as the handlers might schedule new tasks
+        List<Task> tasks = new ArrayList<>();
+        Iterator<Task> iterator = pendingTasks.values().iterator();
+        while (allowance >= 1 && iterator.hasNext()) {
+            tasks.add(iterator.next());
+            iterator.remove();
+            allowance--;
+        }
+
+        if (pendingTasks.isEmpty()) {
+            stopTimer();
+            log.debug("All offer tasks sent. maxLagMs={}", maxLagMs);
+        }
+
+        tasks.forEach(task -> {
+            final long lag = now - task.scheduledTs;
+            lagByOfferId.put(task.openOffer.getId(), lag);
+            maxLagMs = Math.max(maxLagMs, lag);
+            if (task.action == Action.REPUBLISH)
+                republishHandler.accept(task.openOffer);
+            else
+                refreshHandler.accept(task.openOffer);
+        });
+    }
+
+    private void stopTimer() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+}
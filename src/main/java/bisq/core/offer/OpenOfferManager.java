@@ -17,6 +17,7 @@
 
 package bisq.core.offer;
 
+import bisq.core.app.AppOptionKeys;
 import bisq.core.btc.wallet.BsqWalletService;
 import bisq.core.btc.wallet.BtcWalletService;
 import bisq.core.btc.wallet.TradeWalletService;
@@ -96,6 +97,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     private final PriceFeedService priceFeedService;
     private final Preferences preferences;
     private final Storage<TradableList<OpenOffer>> openOfferTradableListStorage;
+    private final OfferPublishScheduler offerPublishScheduler;
     private boolean stopped;
     private Timer periodicRepublishOffersTimer, periodicRefreshOffersTimer, retryRepublishOffersTimer;
     private TradableList<OpenOffer> openOffers;
@@ -118,7 +120,8 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
                             PriceFeedService priceFeedService,
                             Preferences preferences,
                             PersistenceProtoResolver persistenceProtoResolver,
-                            @Named(Storage.STORAGE_DIR) File storageDir) {
+                            @Named(Storage.STORAGE_DIR) File storageDir,
+                            @Named(AppOptionKeys.OFFER_PUBLISH_RATE) int offerPublishRate) {
         this.keyRing = keyRing;
         this.user = user;
         this.p2PService = p2PService;
@@ -131,6 +134,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         this.preferences = preferences;
 
         openOfferTradableListStorage = new Storage<>(storageDir, persistenceProtoResolver);
+        offerPublishScheduler = new OfferPublishScheduler(offerPublishRate, this::republishOffer, this::refreshOffer);
 
         // In case the app did get killed the shutDown from the modules is not called, so we use a shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -184,6 +188,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         stopPeriodicRefreshOffersTimer();
         stopPeriodicRepublishOffersTimer();
         stopRetryRepublishOffersTimer();
+        offerPublishScheduler.shutDown();
 
         log.debug("remove all open offers at shutDown");
         // we remove own offers from offerbook when we go offline
@@ -270,6 +275,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         stopPeriodicRefreshOffersTimer();
         stopPeriodicRepublishOffersTimer();
         stopRetryRepublishOffersTimer();
+        offerPublishScheduler.shutDown();
 
         restart();
     }
@@ -383,6 +389,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         offer.setState(Offer.State.REMOVED);
         openOffer.setState(OpenOffer.State.CANCELED);
         openOffers.remove(openOffer);
+        offerPublishScheduler.cancel(openOffer.getId());
         closedTradableManager.add(openOffer);
         log.debug("removeOpenOffer, offerId={}", offer.getId());
         btcWalletService.resetAddressEntriesForOpenOffer(offer.getId());
@@ -393,6 +400,7 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     public void closeOpenOffer(Offer offer) {
         findOpenOffer(offer.getId()).ifPresent(openOffer -> {
             openOffers.remove(openOffer);
+            offerPublishScheduler.cancel(openOffer.getId());
             openOffer.setState(OpenOffer.State.CLOSED);
             offerBookService.removeOffer(openOffer.getOffer().getOfferPayload(),
                     () -> log.trace("Successful removed offer"),
@@ -417,12 +425,24 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         return openOffers.getList();
     }
 
+    /**
+     * @return The time our last republish or refresh of that offer waited for the publish rate limit, or -1 if
+     * nothing was sent yet.
+     */
+    public long getOfferPublishLagMs(String offerId) {
+        return offerPublishScheduler.getLagMs(offerId);
+    }
+
+    public long getMaxOfferPublishLagMs() {
+        return offerPublishScheduler.getMaxLagMs();
+    }
+
     public Optional<OpenOffer> findOpenOffer(String offerId) {
-        return openOffers.stream().filter(openOffer -> openOffer.getId().equals(offerId)).findAny();
+        return openOffers.getTradableById(offerId);
     }
 
     public Optional<OpenOffer> getOpenOfferById(String offerId) {
-        return openOffers.stream().filter(e -> e.getId().equals(offerId)).findFirst();
+        return openOffers.getTradableById(offerId);
     }
 
 
@@ -515,36 +535,29 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private void republishOffers() {
-        int size = openOffers.size();
-        final ArrayList<OpenOffer> openOffersList = new ArrayList<>(openOffers.getList());
-        Log.traceCall("Number of offer for republish: " + size);
+        Log.traceCall("Number of offer for republish: " + openOffers.size());
         if (!stopped) {
             stopPeriodicRefreshOffersTimer();
-            for (int i = 0; i < size; i++) {
-                // we delay to avoid reaching throttle limits
-
-                long delay = 700;
-                final long minDelay = (i + 1) * delay;
-                final long maxDelay = (i + 2) * delay;
-                final OpenOffer openOffer = openOffersList.get(i);
-                UserThread.runAfterRandomDelay(() -> {
-                    if (openOffers.contains(openOffer)) {
-                        String id = openOffer.getId();
-                        if (id != null && !openOffer.isDeactivated())
-                            republishOffer(openOffer);
-                        else
-                            log.warn("You have an offer with an invalid offer ID: offerID=" + id);
-                    }
-
-
-                }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
-            }
+            // A pending refresh of an offer is replaced by the republish
+            offerPublishScheduler.schedule(openOffers.getList(), OfferPublishScheduler.Action.REPUBLISH);
         } else {
             log.debug("We have stopped already. We ignore that republishOffers call.");
         }
     }
 
     private void republishOffer(OpenOffer openOffer) {
+        // We need to check if in the meantime the offer has been removed
+        if (!openOffers.contains(openOffer))
+            return;
+
+        if (openOffer.isDeactivated())
+            return;
+
+        if (openOffer.getId() == null) {
+            log.warn("You have an offer with an invalid offer ID: offerID=null");
+            return;
+        }
+
         offerBookService.addOffer(openOffer.getOffer(),
                 () -> {
                     if (!stopped) {
@@ -593,25 +606,8 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         if (periodicRefreshOffersTimer == null)
             periodicRefreshOffersTimer = UserThread.runPeriodically(() -> {
                         if (!stopped) {
-                            int size = openOffers.size();
-                            Log.traceCall("Number of offer for refresh: " + size);
-
-                            //we clone our list as openOffers might change during our delayed call
-                            final ArrayList<OpenOffer> openOffersList = new ArrayList<>(openOffers.getList());
-                            for (int i = 0; i < size; i++) {
-                                // we delay to avoid reaching throttle limits
-                                // roughly 4 offers per second
-
-                                long delay = 300;
-                                final long minDelay = (i + 1) * delay;
-                                final long maxDelay = (i + 2) * delay;
-                                final OpenOffer openOffer = openOffersList.get(i);
-                                UserThread.runAfterRandomDelay(() -> {
-                                    // we need to check if in the meantime the offer has been removed
-                                    if (openOffers.contains(openOffer) && !openOffer.isDeactivated())
-                                        refreshOffer(openOffer);
-                                }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
-                            }
+                            Log.traceCall("Number of offer for refresh: " + openOffers.size());
+                            offerPublishScheduler.schedule(openOffers.getList(), OfferPublishScheduler.Action.REFRESH);
                         } else {
                             log.debug("We have stopped already. We ignore that periodicRefreshOffersTimer.run call.");
                         }
@@ -623,6 +619,10 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
     }
 
     private void refreshOffer(OpenOffer openOffer) {
+        // We need to check if in the meantime the offer has been removed
+        if (!openOffers.contains(openOffer) || openOffer.isDeactivated())
+            return;
+
         offerBookService.refreshTTL(openOffer.getOffer().getOfferPayload(),
                 () -> log.debug("Successful refreshed TTL for offer"),
                 log::warn);
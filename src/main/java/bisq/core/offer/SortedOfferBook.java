@@ -0,0 +1,159 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.monetary.Price;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import lombok.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the offers of each currency and direction sorted by price.
+ * <p>
+ * Fixed price offers are sorted by their price. Market based offers are sorted by their market price factor, which
+ * gives the same order as the price for any market price. So a new market price does not require a re-sort, we only
+ * drop the cached prices of the market based offers. The sorted list is produced by merging both sets.
+ */
+class SortedOfferBook {
+
+    @Value
+    private static final class Entry {
+        private final Offer offer;
+        // Fixed price or market price factor
+        private final double sortKey;
+    }
+
+    private static final Comparator<Entry> COMPARATOR = Comparator.comparingDouble(Entry::getSortKey)
+            .thenComparing(entry -> entry.getOffer().getId());
+
+    private final Map<String, Map<OfferPayload.Direction, NavigableSet<Entry>>> fixedPriceEntries = new HashMap<>();
+    private final Map<String, Map<OfferPayload.Direction, NavigableSet<Entry>>> marketPriceEntries = new HashMap<>();
+    private final Map<String, Entry> entryById = new HashMap<>();
+    // Values can be null if there is no market price
+    private final Map<String, Price> marketBasedPriceCache = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void add(Offer offer) {
+        final boolean useMarketBasedPrice = offer.isUseMarketBasedPrice();
+        Entry entry = new Entry(offer, useMarketBasedPrice ?
+                offer.getMarketPriceFactor() :
+                offer.getOfferPayload().getPrice());
+        entryById.put(offer.getId(), entry);
+        (useMarketBasedPrice ? marketPriceEntries : fixedPriceEntries)
+                .computeIfAbsent(offer.getCurrencyCode(), key -> new EnumMap<>(OfferPayload.Direction.class))
+                .computeIfAbsent(offer.getDirection(), key -> new TreeSet<>(COMPARATOR))
+                .add(entry);
+    }
+
+    void remove(Offer offer) {
+        Entry entry = entryById.remove(offer.getId());
+        if (entry == null)
+            return;
+
+        marketBasedPriceCache.remove(offer.getId());
+        Map<OfferPayload.Direction, NavigableSet<Entry>> byDirection =
+                (offer.isUseMarketBasedPrice() ? marketPriceEntries : fixedPriceEntries).get(offer.getCurrencyCode());
+        if (byDirection != null && byDirection.containsKey(offer.getDirection()))
+            byDirection.get(offer.getDirection()).remove(entry);
+    }
+
+    void onMarketPriceChanged() {
+        marketBasedPriceCache.clear();
+    }
+
+    /**
+     * @return The offers sorted by ascending price. Market based offers without a market price are at the end.
+     */
+    List<Offer> getOffersSortedByPrice(String currencyCode, OfferPayload.Direction direction) {
+        List<Offer> result = new ArrayList<>();
+        List<Offer> withoutPrice = new ArrayList<>();
+        Iterator<Entry> fixedIterator = getEntries(fixedPriceEntries, currencyCode, direction).iterator();
+        Iterator<Entry> marketIterator = getEntries(marketPriceEntries, currencyCode, direction).iterator();
+        Offer fixed = next(fixedIterator, withoutPrice);
+        Offer market = next(marketIterator, withoutPrice);
+        while (fixed != null || market != null) {
+            if (market == null || (fixed != null && getPriceValue(fixed) <= getPriceValue(market))) {
+                result.add(fixed);
+                fixed = next(fixedIterator, withoutPrice);
+            } else {
+                result.add(market);
+                market = next(marketIterator, withoutPrice);
+            }
+        }
+        result.addAll(withoutPrice);
+        return result;
+    }
+
+    /**
+     * @return The price of the offer. For market based offers the price is cached until the market price changes.
+     */
+    @Nullable
+    Price getPrice(Offer offer) {
+        if (!offer.isUseMarketBasedPrice())
+            return offer.getPrice();
+
+        if (!marketBasedPriceCache.containsKey(offer.getId()))
+            marketBasedPriceCache.put(offer.getId(), offer.getPrice());
+        return marketBasedPriceCache.get(offer.getId());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static NavigableSet<Entry> getEntries(Map<String, Map<OfferPayload.Direction, NavigableSet<Entry>>> map,
+                                                  String currencyCode,
+                                                  OfferPayload.Direction direction) {
+        Map<OfferPayload.Direction, NavigableSet<Entry>> byDirection = map.get(currencyCode);
+        NavigableSet<Entry> set = byDirection != null ? byDirection.get(direction) : null;
+        return set != null ? set : new TreeSet<>(COMPARATOR);
+    }
+
+    // Next offer with a price, offers without price are collected in withoutPrice
+    @Nullable
+    private Offer next(Iterator<Entry> iterator, List<Offer> withoutPrice) {
+        while (iterator.hasNext()) {
+            Offer offer = iterator.next().getOffer();
+            if (getPrice(offer) != null)
+                return offer;
+            withoutPrice.add(offer);
+        }
+        return null;
+    }
+
+    private long getPriceValue(Offer offer) {
+        Price price = getPrice(offer);
+        return price != null ? price.getValue() : 0;
+    }
+}
@@ -17,6 +17,7 @@
 
 package bisq.core.proto.persistable;
 
+import bisq.core.arbitration.AttachmentStore;
 import bisq.core.arbitration.DisputeList;
 import bisq.core.btc.AddressEntryList;
 import bisq.core.btc.wallet.BtcWalletService;
@@ -56,14 +57,17 @@ public class CorePersistenceProtoResolver extends CoreProtoResolver implements P
     private final Provider<BtcWalletService> btcWalletService;
     private final NetworkProtoResolver networkProtoResolver;
     private final File storageDir;
+    private final AttachmentStore attachmentStore;
 
     @Inject
     public CorePersistenceProtoResolver(Provider<BtcWalletService> btcWalletService,
                                         NetworkProtoResolver networkProtoResolver,
-                                        @Named(Storage.STORAGE_DIR) File storageDir) {
+                                        @Named(Storage.STORAGE_DIR) File storageDir,
+                                        AttachmentStore attachmentStore) {
         this.btcWalletService = btcWalletService;
         this.networkProtoResolver = networkProtoResolver;
         this.storageDir = storageDir;
+        this.attachmentStore = attachmentStore;
 
     }
 
@@ -90,7 +94,8 @@ public class CorePersistenceProtoResolver extends CoreProtoResolver implements P
                 case DISPUTE_LIST:
                     return DisputeList.fromProto(proto.getDisputeList(),
                             this,
-                            new Storage<>(storageDir, this));
+                            new Storage<>(storageDir, this),
+                            attachmentStore);
                 case PREFERENCES_PAYLOAD:
                     return PreferencesPayload.fromProto(proto.getPreferencesPayload(), this);
                 case USER_PAYLOAD:
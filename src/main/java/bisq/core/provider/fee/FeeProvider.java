@@ -25,8 +25,9 @@ import bisq.network.http.HttpClient;
 import bisq.common.app.Version;
 import bisq.common.util.Tuple2;
 
-import com.google.gson.Gson;
-import com.google.gson.internal.LinkedTreeMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import com.google.inject.Inject;
 
@@ -39,6 +40,10 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class FeeProvider extends HttpClientProvider {
+    // Thread safe, so we can share it between the request threads
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String BITCOIN_FEES_TS = "bitcoinFeesTs";
+    private static final String TX_FEE_SUFFIX = "TxFee";
 
     @Inject
     public FeeProvider(HttpClient httpClient, ProvidersRepository providersRepository) {
@@ -47,27 +52,41 @@ public class FeeProvider extends HttpClientProvider {
 
     public Tuple2<Map<String, Long>, Map<String, Long>> getFees() throws IOException {
         String json = httpClient.requestWithGET("getFees", "User-Agent", "bisq/" + Version.VERSION + ", uid:" + httpClient.getUid());
-        //noinspection unchecked
-        LinkedTreeMap<String, Object> linkedTreeMap = new Gson().fromJson(json, LinkedTreeMap.class);
-        Map<String, Long> tsMap = new HashMap<>();
-        tsMap.put("bitcoinFeesTs", ((Double) linkedTreeMap.get("bitcoinFeesTs")).longValue());
+        return parse(json);
+    }
 
+    // The dataMap entries are named like btcTxFee, we map them by the upper case currency code (e.g. BTC).
+    static Tuple2<Map<String, Long>, Map<String, Long>> parse(String json) throws IOException {
+        Map<String, Long> tsMap = new HashMap<>();
         Map<String, Long> map = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Expected a json object");
 
-        try {
-            //noinspection unchecked
-            LinkedTreeMap<String, Double> dataMap = (LinkedTreeMap<String, Double>) linkedTreeMap.get("dataMap");
-            Long btcTxFee = dataMap.get("btcTxFee").longValue();
-            Long ltcTxFee = dataMap.get("ltcTxFee").longValue();
-            Long dashTxFee = dataMap.get("dashTxFee").longValue();
-
-            map.put("BTC", btcTxFee);
-            map.put("LTC", ltcTxFee);
-            map.put("DASH", dashTxFee);
-        } catch (Throwable t) {
-            log.error(t.toString());
-            t.printStackTrace();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("dataMap".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        if (parser.nextToken().isNumeric() && key.endsWith(TX_FEE_SUFFIX))
+                            map.put(key.substring(0, key.length() - TX_FEE_SUFFIX.length()).toUpperCase(),
+                                    parser.getValueAsLong());
+                        else
+                            parser.skipChildren();
+                    }
+                } else if (BITCOIN_FEES_TS.equals(fieldName) && token.isNumeric()) {
+                    tsMap.put(BITCOIN_FEES_TS, parser.getValueAsLong());
+                } else {
+                    parser.skipChildren();
+                }
+            }
         }
+
+        if (!tsMap.containsKey(BITCOIN_FEES_TS))
+            throw new IOException("Missing " + BITCOIN_FEES_TS + " in fee data");
+        if (!map.containsKey("BTC"))
+            log.error("Missing btcTxFee in fee data");
         return new Tuple2<>(tsMap, map);
     }
 }
@@ -25,6 +25,7 @@ import bisq.core.provider.ProvidersRepository;
 import bisq.core.trade.statistics.TradeStatistics2;
 import bisq.core.user.Preferences;
 
+import bisq.network.Socks5ProxyProvider;
 import bisq.network.http.HttpClient;
 
 import bisq.common.Timer;
@@ -36,6 +37,7 @@ import bisq.common.util.Tuple2;
 
 import com.google.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
@@ -49,12 +51,14 @@ import javafx.beans.property.StringProperty;
 import java.time.Instant;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
@@ -67,13 +71,23 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 @Slf4j
 public class PriceFeedService {
-    private final HttpClient httpClient;
+
+    public interface MarketPriceListener {
+        void onMarketPriceChanged(MarketPrice marketPrice);
+    }
+
+    @Nullable
+    private final Socks5ProxyProvider socks5ProxyProvider;
     private final ProvidersRepository providersRepository;
     private final Preferences preferences;
 
     private static final long PERIOD_SEC = 60;
 
-    private final Map<String, MarketPrice> cache = new HashMap<>();
+    // Immutable snapshot which is replaced at each update, so it can be read from any thread.
+    // Updates are only done at the user thread.
+    private volatile Map<String, MarketPrice> cache = Collections.emptyMap();
+    // Only accessed from the user thread
+    private final Map<String, List<MarketPriceListener>> marketPriceListeners = new HashMap<>();
     private final String baseCurrencyCode;
     private PriceProvider priceProvider;
     @Nullable
@@ -91,6 +105,12 @@ public class PriceFeedService {
     private String baseUrlOfRespondingProvider;
     @Nullable
     private Timer requestTimer;
+    private final PriceProviderLatencyTracker latencyTracker = new PriceProviderLatencyTracker();
+    // Responses of an older round are ignored
+    private int requestRound;
+    private int numPendingRequests;
+    @Nullable
+    private Timer hedgeTimer;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -98,15 +118,14 @@ public class PriceFeedService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public PriceFeedService(@SuppressWarnings("SameParameterValue") HttpClient httpClient,
+    public PriceFeedService(@Nullable Socks5ProxyProvider socks5ProxyProvider,
                             @SuppressWarnings("SameParameterValue") ProvidersRepository providersRepository,
                             @SuppressWarnings("SameParameterValue") Preferences preferences) {
-        this.httpClient = httpClient;
+        this.socks5ProxyProvider = socks5ProxyProvider;
         this.providersRepository = providersRepository;
         this.preferences = preferences;
 
-        // Do not use Guice for PriceProvider as we might create multiple instances
-        this.priceProvider = new PriceProvider(httpClient, providersRepository.getBaseUrl());
+        this.priceProvider = createPriceProvider(providersRepository.getBaseUrl());
 
         baseCurrencyCode = BisqEnvironment.getBaseCurrencyNetwork().getCurrencyCode();
     }
@@ -136,24 +155,84 @@ public class PriceFeedService {
     }
 
     public String getProviderNodeAddress() {
-        return httpClient.getBaseUrl();
+        return priceProvider.getBaseUrl();
     }
 
     private void request(boolean repeatRequests) {
         if (requestTs == 0)
             log.info("request from provider {}",
-                    providersRepository.getBaseUrl());
+                    priceProvider.getBaseUrl());
         else
             log.info("request from provider {} {} sec. after last request",
-                    providersRepository.getBaseUrl(),
+                    priceProvider.getBaseUrl(),
                     (System.currentTimeMillis() - requestTs) / 1000d);
 
         requestTs = System.currentTimeMillis();
 
         baseUrlOfRespondingProvider = null;
+        final int round = ++requestRound;
+        numPendingRequests = 0;
+        stopHedgeTimer();
+
+        final PriceProvider primaryProvider = priceProvider;
+        final String primaryBaseUrl = primaryProvider.getBaseUrl();
+        requestFromProvider(primaryProvider, round);
+
+        // If the provider does not respond within its usual latency we send the same request to the next provider
+        // as well and use the response which arrives first.
+        final long hedgeDelayMs = latencyTracker.getHedgeDelayMs(primaryBaseUrl);
+        hedgeTimer = UserThread.runAfter(() -> {
+            hedgeTimer = null;
+            if (round == requestRound && baseUrlOfRespondingProvider == null)
+                requestFromHedgeProvider(primaryBaseUrl, round, hedgeDelayMs);
+        }, hedgeDelayMs, TimeUnit.MILLISECONDS);
+
+        if (repeatRequests) {
+            if (requestTimer != null)
+                requestTimer.stop();
+
+            long delay = PERIOD_SEC + new Random().nextInt(5);
+            requestTimer = UserThread.runAfter(() -> {
+                // If we have not received a result from the last request. We try a new provider.
+                if (baseUrlOfRespondingProvider == null) {
+                    final String oldBaseUrl = priceProvider.getBaseUrl();
+                    setNewPriceProvider();
+                    log.warn("We did not received a response from provider {}. " +
+                            "We select the new provider {} and use that for a new request.", oldBaseUrl, priceProvider.getBaseUrl());
+                }
+                request(true);
+            }, delay);
+        }
+    }
+
+    private void requestFromHedgeProvider(String primaryBaseUrl, int round, long hedgeDelayMs) {
+        setNewPriceProvider();
+        if (priceProvider.getBaseUrl().equals(primaryBaseUrl)) {
+            log.info("Provider {} did not respond within {} ms but we have no other provider for a hedged request.",
+                    primaryBaseUrl, hedgeDelayMs);
+            return;
+        }
 
-        requestAllPrices(priceProvider, () -> {
-            baseUrlOfRespondingProvider = priceProvider.getBaseUrl();
+        log.info("Provider {} did not respond within {} ms. We send a hedged request to provider {}.",
+                primaryBaseUrl, hedgeDelayMs, priceProvider.getBaseUrl());
+        requestFromProvider(priceProvider, round);
+    }
+
+    private void requestFromProvider(PriceProvider provider, int round) {
+        final String baseUrl = provider.getBaseUrl();
+        numPendingRequests++;
+        requestAllPrices(provider, baseUrl, result -> {
+            if (round != requestRound || baseUrlOfRespondingProvider != null) {
+                log.info("We received a response from provider {} after we got a response from provider {} " +
+                        "or started a new request already. We ignore it.", baseUrl, baseUrlOfRespondingProvider);
+                return;
+            }
+
+            stopHedgeTimer();
+            applyPrices(result);
+            // We continue with the provider which responded first
+            priceProvider = provider;
+            baseUrlOfRespondingProvider = baseUrl;
 
             // At applyPriceToConsumer we also check if price is not exceeding max. age for price data.
             boolean success = applyPriceToConsumer();
@@ -176,42 +255,34 @@ public class PriceFeedService {
                 retryWithNewProvider();
             }
         }, (errorMessage, throwable) -> {
-            if (throwable instanceof PriceRequestException) {
-                final String baseUrlOfFaultyRequest = ((PriceRequestException) throwable).priceProviderBaseUrl;
-                final String baseUrlOfCurrentRequest = priceProvider.getBaseUrl();
-                if (baseUrlOfFaultyRequest != null && baseUrlOfCurrentRequest.equals(baseUrlOfFaultyRequest)) {
-                    log.warn("We received an error: baseUrlOfCurrentRequest={}, baseUrlOfFaultyRequest={}",
-                            baseUrlOfCurrentRequest, baseUrlOfFaultyRequest);
-                    retryWithNewProvider();
-                } else {
-                    log.info("We received an error from an earlier request. We have started a new request already so we ignore that error. " +
-                                    "baseUrlOfCurrentRequest={}, baseUrlOfFaultyRequest={}",
-                            baseUrlOfCurrentRequest, baseUrlOfFaultyRequest);
-                }
-            } else {
-                log.warn("We received an error with throwable={}", throwable);
-                retryWithNewProvider();
+            if (round != requestRound || baseUrlOfRespondingProvider != null) {
+                log.info("We received an error from provider {} after we got a response or started a new request " +
+                        "already so we ignore that error.", baseUrl);
+                return;
+            }
+
+            numPendingRequests--;
+            if (numPendingRequests > 0) {
+                log.warn("We received an error from provider {}. We wait for the response of the other request.",
+                        baseUrl);
+                return;
             }
 
+            stopHedgeTimer();
+            log.warn("We received an error from provider {}. throwable={}", baseUrl, throwable);
+            // We continue with the next provider after the failed one
+            priceProvider = provider;
+            retryWithNewProvider();
+
             if (faultHandler != null)
                 faultHandler.handleFault(errorMessage, throwable);
         });
+    }
 
-        if (repeatRequests) {
-            if (requestTimer != null)
-                requestTimer.stop();
-
-            long delay = PERIOD_SEC + new Random().nextInt(5);
-            requestTimer = UserThread.runAfter(() -> {
-                // If we have not received a result from the last request. We try a new provider.
-                if (baseUrlOfRespondingProvider == null) {
-                    final String oldBaseUrl = priceProvider.getBaseUrl();
-                    setNewPriceProvider();
-                    log.warn("We did not received a response from provider {}. " +
-                            "We select the new provider {} and use that for a new request.", oldBaseUrl, priceProvider.getBaseUrl());
-                }
-                request(true);
-            }, delay);
+    private void stopHedgeTimer() {
+        if (hedgeTimer != null) {
+            hedgeTimer.stop();
+            hedgeTimer = null;
         }
     }
 
@@ -232,26 +303,65 @@ public class PriceFeedService {
     private void setNewPriceProvider() {
         providersRepository.selectNextProviderBaseUrl();
         if (!providersRepository.getBaseUrl().isEmpty())
-            priceProvider = new PriceProvider(httpClient, providersRepository.getBaseUrl());
+            priceProvider = createPriceProvider(providersRepository.getBaseUrl());
         else
             log.warn("We cannot create a new priceProvider because new base url is empty.");
     }
 
+    // Do not use Guice for the HttpClient as it is a singleton there. A hedged request runs in parallel to the
+    // request of the previous provider, so each provider needs its own base url.
+    private PriceProvider createPriceProvider(String baseUrl) {
+        return new PriceProvider(new HttpClient(socks5ProxyProvider), baseUrl);
+    }
+
+    // Can be called from any thread
     @Nullable
     public MarketPrice getMarketPrice(String currencyCode) {
         return cache.getOrDefault(currencyCode, null);
     }
 
-    private void setBisqMarketPrice(String currencyCode, Price price) {
-        if (!cache.containsKey(currencyCode) || !cache.get(currencyCode).isExternallyProvidedPrice()) {
-            cache.put(currencyCode, new MarketPrice(currencyCode,
-                    MathUtils.scaleDownByPowerOf10(price.getValue(), CurrencyUtil.isCryptoCurrency(currencyCode) ? 8 : 4),
-                    0,
-                    false));
-            updateCounter.set(updateCounter.get() + 1);
+    // Can be called from any thread, the returned map is an immutable snapshot
+    public Map<String, MarketPrice> getMarketPrices() {
+        return cache;
+    }
+
+    /**
+     * The listener is called at the user thread if the price of that currency has changed.
+     */
+    public void addMarketPriceListener(String currencyCode, MarketPriceListener listener) {
+        marketPriceListeners.computeIfAbsent(currencyCode, key -> new ArrayList<>()).add(listener);
+    }
+
+    public void removeMarketPriceListener(String currencyCode, MarketPriceListener listener) {
+        List<MarketPriceListener> listeners = marketPriceListeners.get(currencyCode);
+        if (listeners != null) {
+            listeners.remove(listener);
+            if (listeners.isEmpty())
+                marketPriceListeners.remove(currencyCode);
         }
     }
 
+    // We copy the map once per update and replace the snapshot
+    private void updateCache(Map<String, MarketPrice> marketPrices) {
+        if (marketPrices.isEmpty())
+            return;
+
+        final Map<String, MarketPrice> previous = cache;
+        Map<String, MarketPrice> map = new HashMap<>(previous);
+        map.putAll(marketPrices);
+        cache = Collections.unmodifiableMap(map);
+
+        marketPrices.forEach((currencyCode, marketPrice) -> {
+            MarketPrice previousMarketPrice = previous.get(currencyCode);
+            boolean changed = previousMarketPrice == null ||
+                    previousMarketPrice.getPrice() != marketPrice.getPrice() ||
+                    previousMarketPrice.isExternallyProvidedPrice() != marketPrice.isExternallyProvidedPrice();
+            List<MarketPriceListener> listeners = marketPriceListeners.get(currencyCode);
+            if (changed && listeners != null)
+                new ArrayList<>(listeners).forEach(listener -> listener.onMarketPriceChanged(marketPrice));
+        });
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Setter
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -282,6 +392,19 @@ public class PriceFeedService {
         return updateCounter;
     }
 
+    /**
+     * @return The latency in ms below which the given share of the recent requests to that provider have been
+     * answered, or -1 if we have not received a response from that provider yet.
+     */
+    public long getProviderLatencyPercentile(String baseUrl, double percentile) {
+        return latencyTracker.getPercentile(baseUrl, percentile);
+    }
+
+    @VisibleForTesting
+    PriceProviderLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
     public Date getLastRequestTimeStampBtcAverage() {
         return new Date(epochInSecondAtLastRequest * 1000);
     }
@@ -302,31 +425,28 @@ public class PriceFeedService {
             return new Date();
     }
 
-    public void applyLatestBisqMarketPrice(HashSet<TradeStatistics2> tradeStatisticsSet) {
-        // takes about 10 ms for 5000 items
-        Map<String, List<TradeStatistics2>> mapByCurrencyCode = new HashMap<>();
-        tradeStatisticsSet.forEach(e -> {
-            final List<TradeStatistics2> list;
-            final String currencyCode = e.getCurrencyCode();
-            if (mapByCurrencyCode.containsKey(currencyCode)) {
-                list = mapByCurrencyCode.get(currencyCode);
-            } else {
-                list = new ArrayList<>();
-                mapByCurrencyCode.put(currencyCode, list);
+    // Expects the latest trade statistics of each currency, the TradeStatisticsStore maintains them on each add
+    public void applyLatestBisqMarketPrice(Collection<TradeStatistics2> latestTradeStatistics) {
+        Map<String, MarketPrice> bisqMarketPrices = new HashMap<>();
+        latestTradeStatistics.forEach(tradeStatistics -> {
+            final String currencyCode = tradeStatistics.getCurrencyCode();
+            MarketPrice marketPrice = cache.get(currencyCode);
+            // We only use our trade price if no external price is available
+            if (marketPrice == null || !marketPrice.isExternallyProvidedPrice()) {
+                final Price price = tradeStatistics.getTradePrice();
+                bisqMarketPrices.put(currencyCode, new MarketPrice(currencyCode,
+                        MathUtils.scaleDownByPowerOf10(price.getValue(), CurrencyUtil.isCryptoCurrency(currencyCode) ? 8 : 4),
+                        0,
+                        false));
             }
-            list.add(e);
         });
 
-        mapByCurrencyCode.values().stream()
-                .filter(list -> !list.isEmpty())
-                .forEach(list -> {
-                    list.sort((o1, o2) -> o1.getTradeDate().compareTo(o2.getTradeDate()));
-                    TradeStatistics2 tradeStatistics = list.get(list.size() - 1);
-                    setBisqMarketPrice(tradeStatistics.getCurrencyCode(), tradeStatistics.getTradePrice());
-                });
+        if (!bisqMarketPrices.isEmpty()) {
+            updateCache(bisqMarketPrices);
+            updateCounter.set(updateCounter.get() + 1);
+        }
     }
 
-
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -384,8 +504,58 @@ public class PriceFeedService {
         return result;
     }
 
-    private void requestAllPrices(PriceProvider provider, Runnable resultHandler, FaultHandler faultHandler) {
+    @VisibleForTesting
+    void applyPrices(Tuple2<Map<String, Long>, Map<String, MarketPrice>> result) {
+        timeStampMap = result.first;
+        epochInSecondAtLastRequest = timeStampMap.get("btcAverageTs");
+        final Map<String, MarketPrice> priceMap = result.second;
+        switch (baseCurrencyCode) {
+            case "BTC":
+                // do nothing as we request btc based prices
+                updateCache(priceMap);
+                break;
+            case "LTC":
+            case "DASH":
+                // apply conversion of btc based price to baseCurrencyCode based with btc/baseCurrencyCode price
+                MarketPrice baseCurrencyPrice = priceMap.get(baseCurrencyCode);
+                if (baseCurrencyPrice != null) {
+                    Map<String, MarketPrice> convertedPriceMap = new HashMap<>();
+                    priceMap.forEach((key, marketPrice) -> {
+                        if (marketPrice != null) {
+                            double convertedPrice;
+                            final double marketPriceAsDouble = marketPrice.getPrice();
+                            final double baseCurrencyPriceAsDouble = baseCurrencyPrice.getPrice();
+                            if (marketPriceAsDouble > 0 && baseCurrencyPriceAsDouble > 0) {
+                                if (CurrencyUtil.isCryptoCurrency(key))
+                                    convertedPrice = marketPriceAsDouble / baseCurrencyPriceAsDouble;
+                                else
+                                    convertedPrice = marketPriceAsDouble * baseCurrencyPriceAsDouble;
+                                convertedPriceMap.put(key,
+                                        new MarketPrice(marketPrice.getCurrencyCode(), convertedPrice, marketPrice.getTimestampSec(), true));
+                            } else {
+                                log.warn("marketPriceAsDouble or baseCurrencyPriceAsDouble is 0: marketPriceAsDouble={}, " +
+                                        "baseCurrencyPriceAsDouble={}", marketPriceAsDouble, baseCurrencyPriceAsDouble);
+                            }
+                        } else {
+                            log.warn("marketPrice is null");
+                        }
+                    });
+                    updateCache(convertedPriceMap);
+                } else {
+                    log.warn("baseCurrencyPrice is null");
+                }
+                break;
+            default:
+                throw new RuntimeException("baseCurrencyCode not defined. baseCurrencyCode=" + baseCurrencyCode);
+        }
+    }
+
+    private void requestAllPrices(PriceProvider provider,
+                                  String baseUrl,
+                                  Consumer<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> resultHandler,
+                                  FaultHandler faultHandler) {
         Log.traceCall();
+        final long ts = System.currentTimeMillis();
         PriceRequest priceRequest = new PriceRequest();
         SettableFuture<Tuple2<Map<String, Long>, Map<String, MarketPrice>>> future = priceRequest.requestAllPrices(provider);
         Futures.addCallback(future, new FutureCallback<Tuple2<Map<String, Long>, Map<String, MarketPrice>>>() {
@@ -393,50 +563,9 @@ public class PriceFeedService {
             public void onSuccess(@Nullable Tuple2<Map<String, Long>, Map<String, MarketPrice>> result) {
                 UserThread.execute(() -> {
                     checkNotNull(result, "Result must not be null at requestAllPrices");
-                    timeStampMap = result.first;
-                    epochInSecondAtLastRequest = timeStampMap.get("btcAverageTs");
-                    final Map<String, MarketPrice> priceMap = result.second;
-                    switch (baseCurrencyCode) {
-                        case "BTC":
-                            // do nothing as we request btc based prices
-                            cache.putAll(priceMap);
-                            break;
-                        case "LTC":
-                        case "DASH":
-                            // apply conversion of btc based price to baseCurrencyCode based with btc/baseCurrencyCode price
-                            MarketPrice baseCurrencyPrice = priceMap.get(baseCurrencyCode);
-                            if (baseCurrencyPrice != null) {
-                                Map<String, MarketPrice> convertedPriceMap = new HashMap<>();
-                                priceMap.forEach((key, marketPrice) -> {
-                                    if (marketPrice != null) {
-                                        double convertedPrice;
-                                        final double marketPriceAsDouble = marketPrice.getPrice();
-                                        final double baseCurrencyPriceAsDouble = baseCurrencyPrice.getPrice();
-                                        if (marketPriceAsDouble > 0 && baseCurrencyPriceAsDouble > 0) {
-                                            if (CurrencyUtil.isCryptoCurrency(key))
-                                                convertedPrice = marketPriceAsDouble / baseCurrencyPriceAsDouble;
-                                            else
-                                                convertedPrice = marketPriceAsDouble * baseCurrencyPriceAsDouble;
-                                            convertedPriceMap.put(key,
-                                                    new MarketPrice(marketPrice.getCurrencyCode(), convertedPrice, marketPrice.getTimestampSec(), true));
-                                        } else {
-                                            log.warn("marketPriceAsDouble or baseCurrencyPriceAsDouble is 0: marketPriceAsDouble={}, " +
-                                                    "baseCurrencyPriceAsDouble={}", marketPriceAsDouble, baseCurrencyPriceAsDouble);
-                                        }
-                                    } else {
-                                        log.warn("marketPrice is null");
-                                    }
-                                });
-                                cache.putAll(convertedPriceMap);
-                            } else {
-                                log.warn("baseCurrencyPrice is null");
-                            }
-                            break;
-                        default:
-                            throw new RuntimeException("baseCurrencyCode not defined. baseCurrencyCode=" + baseCurrencyCode);
-                    }
-
-                    resultHandler.run();
+                    // We record late responses as well as they tell us about the latency of the provider
+                    latencyTracker.add(baseUrl, System.currentTimeMillis() - ts);
+                    resultHandler.accept(result);
                 });
             }
 
@@ -25,56 +25,112 @@ import bisq.common.app.Version;
 import bisq.common.util.MathUtils;
 import bisq.common.util.Tuple2;
 
-import com.google.gson.Gson;
-import com.google.gson.internal.LinkedTreeMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.IOException;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 public class PriceProvider extends HttpClientProvider {
+    // Thread safe, so we can share it between the request threads
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final List<String> TS_KEYS = Arrays.asList("btcAverageTs", "poloniexTs", "coinmarketcapTs");
+
+    private final String baseUrl;
 
-    // Do not use Guice here as we might create multiple instances
+    // Do not use Guice here as we might create multiple instances. The httpClient must not be shared with another
+    // provider as it holds the base url.
     public PriceProvider(HttpClient httpClient, String baseUrl) {
         super(httpClient, baseUrl, false);
+        this.baseUrl = baseUrl;
     }
 
     public Tuple2<Map<String, Long>, Map<String, MarketPrice>> getAll() throws IOException {
-        Map<String, MarketPrice> marketPriceMap = new HashMap<>();
         String json = httpClient.requestWithGET("getAllMarketPrices", "User-Agent", "bisq/"
                 + Version.VERSION + ", uid:" + httpClient.getUid());
-        //noinspection unchecked
-        LinkedTreeMap<String, Object> map = new Gson().fromJson(json, LinkedTreeMap.class);
+        return parse(json);
+    }
+
+    // We parse with a streaming parser into the MarketPrice objects directly, so we do not create a tree of boxed
+    // values for the whole response.
+    static Tuple2<Map<String, Long>, Map<String, MarketPrice>> parse(String json) throws IOException {
         Map<String, Long> tsMap = new HashMap<>();
-        tsMap.put("btcAverageTs", ((Double) map.get("btcAverageTs")).longValue());
-        tsMap.put("poloniexTs", ((Double) map.get("poloniexTs")).longValue());
-        tsMap.put("coinmarketcapTs", ((Double) map.get("coinmarketcapTs")).longValue());
-
-        //noinspection unchecked
-        List<LinkedTreeMap<String, Object>> list = (ArrayList<LinkedTreeMap<String, Object>>) map.get("data");
-        list.forEach(treeMap -> {
-            try {
-                final String currencyCode = (String) treeMap.get("currencyCode");
-                final double price = (double) treeMap.get("price");
-                // json uses double for our timestampSec long value...
-                final long timestampSec = MathUtils.doubleToLong((double) treeMap.get("timestampSec"));
-                marketPriceMap.put(currencyCode, new MarketPrice(currencyCode, price, timestampSec, true));
-            } catch (Throwable t) {
-                log.error(t.toString());
-                t.printStackTrace();
+        Map<String, MarketPrice> marketPriceMap = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Expected a json object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("data".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        MarketPrice marketPrice = parseMarketPrice(parser);
+                        if (marketPrice != null)
+                            marketPriceMap.put(marketPrice.getCurrencyCode(), marketPrice);
+                    }
+                } else if (TS_KEYS.contains(fieldName) && token.isNumeric()) {
+                    tsMap.put(fieldName, parser.getValueAsLong());
+                } else {
+                    parser.skipChildren();
+                }
             }
+        }
 
-        });
+        for (String key : TS_KEYS) {
+            if (!tsMap.containsKey(key))
+                throw new IOException("Missing " + key + " in price data");
+        }
         return new Tuple2<>(tsMap, marketPriceMap);
     }
 
+    // Expects the parser at the START_OBJECT of the item, leaves it at the END_OBJECT
+    @Nullable
+    private static MarketPrice parseMarketPrice(JsonParser parser) throws IOException {
+        String currencyCode = null;
+        double price = 0;
+        long timestampSec = 0;
+        boolean hasPrice = false, hasTimestamp = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "currencyCode":
+                    currencyCode = parser.getValueAsString();
+                    break;
+                case "price":
+                    hasPrice = token.isNumeric();
+                    price = parser.getValueAsDouble();
+                    break;
+                case "timestampSec":
+                    // json uses double for our timestampSec long value...
+                    hasTimestamp = token.isNumeric();
+                    timestampSec = MathUtils.doubleToLong(parser.getValueAsDouble());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        if (currencyCode == null || !hasPrice || !hasTimestamp) {
+            log.error("Invalid market price data. currencyCode={}", currencyCode);
+            return null;
+        }
+        return new MarketPrice(currencyCode, price, timestampSec, true);
+    }
+
     public String getBaseUrl() {
-        return httpClient.getBaseUrl();
+        return baseUrl;
     }
 }
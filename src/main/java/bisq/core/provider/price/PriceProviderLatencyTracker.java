@@ -0,0 +1,72 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import bisq.core.util.LatencySamples;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the latencies of the last NUM_SAMPLES successful requests per provider and derives the delay after which we
+ * send a hedged request to another provider.
+ */
+class PriceProviderLatencyTracker {
+    static final long DEFAULT_HEDGE_DELAY_MS = TimeUnit.SECONDS.toMillis(15);
+    static final long MIN_HEDGE_DELAY_MS = TimeUnit.SECONDS.toMillis(3);
+    // Must stay well below the request period so the hedged request can still answer in time
+    static final long MAX_HEDGE_DELAY_MS = TimeUnit.SECONDS.toMillis(30);
+    static final double HEDGE_PERCENTILE = 0.9;
+
+    private static final int NUM_SAMPLES = 50;
+    private static final int MIN_SAMPLES = 5;
+
+    private final Map<String, LatencySamples> samplesByBaseUrl = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void add(String baseUrl, long latencyMs) {
+        samplesByBaseUrl.computeIfAbsent(baseUrl, key -> new LatencySamples(NUM_SAMPLES)).add(latencyMs);
+    }
+
+    int getNumSamples(String baseUrl) {
+        LatencySamples samples = samplesByBaseUrl.get(baseUrl);
+        return samples != null ? samples.size() : 0;
+    }
+
+    /**
+     * @return The latency in ms below which the given share of the recorded requests have been answered, or -1 if we
+     * have no samples for that provider.
+     */
+    long getPercentile(String baseUrl, double percentile) {
+        LatencySamples samples = samplesByBaseUrl.get(baseUrl);
+        return samples != null ? samples.getPercentile(percentile) : -1;
+    }
+
+    long getHedgeDelayMs(String baseUrl) {
+        if (getNumSamples(baseUrl) < MIN_SAMPLES)
+            return DEFAULT_HEDGE_DELAY_MS;
+
+        return Math.max(MIN_HEDGE_DELAY_MS,
+                Math.min(MAX_HEDGE_DELAY_MS, getPercentile(baseUrl, HEDGE_PERCENTILE)));
+    }
+}
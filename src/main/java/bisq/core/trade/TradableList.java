@@ -31,10 +31,14 @@ import io.bisq.generated.protobuffer.PB;
 import com.google.protobuf.Message;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -49,6 +53,9 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     transient final private Storage<TradableList<T>> storage;
     @Getter
     private final ObservableList<T> list = FXCollections.observableArrayList();
+    // Index by ID, kept in sync with list by a listener so it covers changes done directly at the observable list.
+    // If there are several items with the same ID the first one is indexed.
+    private final Map<String, T> tradableById = new HashMap<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -57,6 +64,7 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     public TradableList(Storage<TradableList<T>> storage, String fileName) {
         this.storage = storage;
+        list.addListener(this::onListChanged);
 
         TradableList<T> persisted = storage.initAndGetPersisted(this, fileName, 50);
         if (persisted != null)
@@ -70,6 +78,7 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     private TradableList(Storage<TradableList<T>> storage, List<T> list) {
         this.storage = storage;
+        this.list.addListener(this::onListChanged);
         this.list.addAll(list);
     }
 
@@ -146,4 +155,27 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     public boolean contains(T thing) {
         return list.contains(thing);
     }
+
+    public Optional<T> getTradableById(String id) {
+        return Optional.ofNullable(tradableById.get(id));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onListChanged(ListChangeListener.Change<? extends T> change) {
+        while (change.next()) {
+            change.getRemoved().forEach(tradable -> {
+                // If another item with the same ID is left we index that one
+                if (tradableById.remove(tradable.getId(), tradable))
+                    list.stream()
+                            .filter(e -> e.getId().equals(tradable.getId()))
+                            .findFirst()
+                            .ifPresent(e -> tradableById.put(e.getId(), e));
+            });
+            change.getAddedSubList().forEach(tradable -> tradableById.putIfAbsent(tradable.getId(), tradable));
+        }
+    }
 }
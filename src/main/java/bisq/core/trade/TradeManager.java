@@ -87,6 +87,7 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lombok.Getter;
 import lombok.Setter;
 
 import org.jetbrains.annotations.NotNull;
@@ -113,6 +114,8 @@ public class TradeManager implements PersistedDataHost {
     private final AccountAgeWitnessService accountAgeWitnessService;
 
     private final Storage<TradableList<Trade>> tradableListStorage;
+    @Getter
+    private final TradeMessageDispatcher tradeMessageDispatcher = new TradeMessageDispatcher();
     private TradableList<Trade> tradableList;
     private final BooleanProperty pendingTradesInitialized = new SimpleBooleanProperty();
     private List<Trade> tradesForStatistics;
@@ -170,6 +173,9 @@ public class TradeManager implements PersistedDataHost {
             }
         });
 
+        // Trade messages of pending trades are routed by trade ID to the TradeProtocol of that trade
+        p2PService.addDecryptedDirectMessageListener(tradeMessageDispatcher);
+
         // Might get called at startup after HS is published. Can be before or after initPendingTrades.
         p2PService.addDecryptedMailboxListener(new DecryptedMailboxListener() {
             @Override
@@ -180,7 +186,7 @@ public class TradeManager implements PersistedDataHost {
                 if (networkEnvelop instanceof TradeMessage) {
                     log.trace("Received TradeMessage: " + networkEnvelop);
                     String tradeId = ((TradeMessage) networkEnvelop).getTradeId();
-                    Optional<Trade> tradeOptional = tradableList.stream().filter(e -> e.getId().equals(tradeId)).findAny();
+                    Optional<Trade> tradeOptional = getTradeById(tradeId);
                     // The mailbox message will be removed inside the tasks after they are processed successfully
                     if (tradeOptional.isPresent())
                         tradeOptional.get().addDecryptedMessageWithPubKey(decryptedMessageWithPubKey);
@@ -219,6 +225,7 @@ public class TradeManager implements PersistedDataHost {
     }
 
     public void shutDown() {
+        tradeStatisticsManager.shutDown();
     }
 
     private void initPendingTrades() {
@@ -547,7 +554,7 @@ public class TradeManager implements PersistedDataHost {
     }
 
     public Optional<Trade> getTradeById(String tradeId) {
-        return tradableList.stream().filter(e -> e.getId().equals(tradeId)).findFirst();
+        return tradableList.getTradableById(tradeId);
     }
 
     public Stream<AddressEntry> getAddressEntriesForAvailableBalanceStream() {
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.core.trade.messages.TradeMessage;
+
+import bisq.network.p2p.DecryptedDirectMessageListener;
+import bisq.network.p2p.DecryptedMessageWithPubKey;
+import bisq.network.p2p.NodeAddress;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes incoming trade messages to the listener registered for their trade ID. Only the dispatcher is registered
+ * at the P2PService, so the cost of a message does not depend on the number of pending trades.
+ * <p>
+ * Direct messages are delivered on the user thread, so registration is expected from the user thread as well.
+ */
+@Slf4j
+public class TradeMessageDispatcher implements DecryptedDirectMessageListener {
+    private final Map<String, DecryptedDirectMessageListener> listenerByTradeId = new HashMap<>();
+
+    TradeMessageDispatcher() {
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void register(String tradeId, DecryptedDirectMessageListener listener) {
+        DecryptedDirectMessageListener previous = listenerByTradeId.put(tradeId, listener);
+        if (previous != null && previous != listener)
+            log.warn("We replaced the listener for trade {}", tradeId);
+    }
+
+    // We only remove the listener if it is still the registered one, as a new protocol for the same trade might
+    // have registered in between.
+    public void unregister(String tradeId, DecryptedDirectMessageListener listener) {
+        listenerByTradeId.remove(tradeId, listener);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // DecryptedDirectMessageListener implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onDirectMessage(DecryptedMessageWithPubKey decryptedMessageWithPubKey, NodeAddress peerNodeAddress) {
+        NetworkEnvelope networkEnvelop = decryptedMessageWithPubKey.getNetworkEnvelope();
+        if (networkEnvelop instanceof TradeMessage) {
+            String tradeId = ((TradeMessage) networkEnvelop).getTradeId();
+            if (tradeId == null || tradeId.isEmpty()) {
+                log.warn("We received a trade message without tradeId. message={}", networkEnvelop.getClass().getSimpleName());
+                return;
+            }
+
+            DecryptedDirectMessageListener listener = listenerByTradeId.get(tradeId);
+            if (listener != null)
+                listener.onDirectMessage(decryptedMessageWithPubKey, peerNodeAddress);
+        }
+    }
+}
@@ -45,5 +45,6 @@ public class TradeModule extends AppModule {
         bind(FailedTradesManager.class).in(Singleton.class);
         bind(AccountAgeWitnessService.class).in(Singleton.class);
         bindConstant().annotatedWith(named(AppOptionKeys.DUMP_STATISTICS)).to(environment.getRequiredProperty(AppOptionKeys.DUMP_STATISTICS));
+        bindConstant().annotatedWith(named(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL)).to(environment.getRequiredProperty(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL));
     }
 }
@@ -37,8 +37,6 @@ import java.security.PublicKey;
 
 import lombok.extern.slf4j.Slf4j;
 
-import static bisq.core.util.Validator.nonEmptyStringOf;
-
 @Slf4j
 public abstract class TradeProtocol {
     private static final long TIMEOUT = 120;
@@ -60,16 +58,13 @@ public abstract class TradeProtocol {
             if (tradingPeerPubKeyRing != null && signaturePubKey.equals(tradingPeerPubKeyRing.getSignaturePubKey())) {
                 NetworkEnvelope networkEnvelop = decryptedMessageWithPubKey.getNetworkEnvelope();
                 log.trace("handleNewMessage: message = " + networkEnvelop.getClass().getSimpleName() + " from " + peersNodeAddress);
-                if (networkEnvelop instanceof TradeMessage) {
-                    TradeMessage tradeMessage = (TradeMessage) networkEnvelop;
-                    nonEmptyStringOf(tradeMessage.getTradeId());
-
-                    if (tradeMessage.getTradeId().equals(processModel.getOfferId()))
-                        doHandleDecryptedMessage(tradeMessage, peersNodeAddress);
-                }
+                // The TradeMessageDispatcher only delivers trade messages with our trade ID
+                if (networkEnvelop instanceof TradeMessage)
+                    doHandleDecryptedMessage((TradeMessage) networkEnvelop, peersNodeAddress);
             }
         };
-        processModel.getP2PService().addDecryptedDirectMessageListener(decryptedDirectMessageListener);
+        processModel.getTradeManager().getTradeMessageDispatcher().register(processModel.getOfferId(),
+                decryptedDirectMessageListener);
 
         stateChangeListener = (observable, oldValue, newValue) -> {
             if (newValue.getPhase() == Trade.Phase.TAKER_FEE_PUBLISHED && trade instanceof MakerTrade)
@@ -92,7 +87,8 @@ public abstract class TradeProtocol {
         trade.stateProperty().removeListener(stateChangeListener);
         // We removed that from here earlier as it broke the trade process in some non critical error cases.
         // But it should be actually removed...
-        processModel.getP2PService().removeDecryptedDirectMessageListener(decryptedDirectMessageListener);
+        processModel.getTradeManager().getTradeMessageDispatcher().unregister(processModel.getOfferId(),
+                decryptedDirectMessageListener);
     }
 
     public void applyMailboxMessage(DecryptedMessageWithPubKey decryptedMessageWithPubKey, Trade trade) {
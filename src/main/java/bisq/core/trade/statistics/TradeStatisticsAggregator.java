@@ -0,0 +1,264 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Aggregates the trade statistics per currency into OHLCV candles of several intervals. The candles are kept in
+ * primitive arrays sorted by the bucket start, so queries only need to touch the affected buckets instead of all
+ * trade statistics.
+ * <p>
+ * Trades are usually added in trade date order which appends to the arrays. Out of order trades need an insert.
+ * For the initial load use addAll which sorts by trade date first.
+ */
+public class TradeStatisticsAggregator {
+
+    public enum Interval {
+        HOUR(TimeUnit.HOURS.toMillis(1)),
+        DAY(TimeUnit.DAYS.toMillis(1)),
+        // Weeks are aligned to the epoch, so they start on Thursday 00:00 UTC
+        WEEK(TimeUnit.DAYS.toMillis(7));
+
+        @Getter
+        private final long durationMs;
+
+        Interval(long durationMs) {
+            this.durationMs = durationMs;
+        }
+    }
+
+    @Value
+    public static class Candle {
+        private final long date;
+        private final long open;
+        private final long high;
+        private final long low;
+        private final long close;
+        // BTC amount in satoshi
+        private final long amount;
+        // Volume in the smallest unit of the currency as used by Volume
+        private final long volume;
+        private final int numTrades;
+    }
+
+    private final Map<String, Map<Interval, CandleSeries>> seriesByCurrencyCode = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void add(TradeStatistics2 tradeStatistics) {
+        final long date = tradeStatistics.getTradeDate().getTime();
+        final long price = tradeStatistics.getTradePrice().getValue();
+        final long amount = tradeStatistics.getTradeAmount().getValue();
+        final long volume = tradeStatistics.getTradeVolume().getValue();
+        seriesByCurrencyCode.computeIfAbsent(tradeStatistics.getCurrencyCode(), key -> {
+            Map<Interval, CandleSeries> map = new EnumMap<>(Interval.class);
+            for (Interval interval : Interval.values())
+                map.put(interval, new CandleSeries(interval.getDurationMs()));
+            return map;
+        }).values().forEach(series -> series.add(date, price, amount, volume));
+    }
+
+    public void addAll(Collection<TradeStatistics2> tradeStatisticsCollection) {
+        List<TradeStatistics2> list = new ArrayList<>(tradeStatisticsCollection);
+        list.sort(Comparator.comparing(TradeStatistics2::getTradeDate));
+        list.forEach(this::add);
+    }
+
+    /**
+     * @return The price of the latest trade or 0 if there was no trade in that currency.
+     */
+    public long getLastPrice(String currencyCode) {
+        CandleSeries series = getSeries(currencyCode, Interval.HOUR);
+        return series != null && series.size > 0 ? series.close[series.size - 1] : 0;
+    }
+
+    /**
+     * Sums up the BTC amount of all candles which start at fromDate <= candle date < toDate. The result is exact if
+     * fromDate and toDate are aligned to the interval.
+     */
+    public long getAmount(String currencyCode, Interval interval, long fromDate, long toDate) {
+        CandleSeries series = getSeries(currencyCode, interval);
+        if (series == null)
+            return 0;
+
+        long sum = 0;
+        for (int i = series.getIndex(fromDate), to = series.getIndex(toDate); i < to; i++)
+            sum += series.amount[i];
+        return sum;
+    }
+
+    /**
+     * Sums up the volume in the currency of all candles which start at fromDate <= candle date < toDate.
+     */
+    public long getVolume(String currencyCode, Interval interval, long fromDate, long toDate) {
+        CandleSeries series = getSeries(currencyCode, interval);
+        if (series == null)
+            return 0;
+
+        long sum = 0;
+        for (int i = series.getIndex(fromDate), to = series.getIndex(toDate); i < to; i++)
+            sum += series.volume[i];
+        return sum;
+    }
+
+    /**
+     * @return The candles with fromDate <= candle date < toDate. Intervals without trades are not included.
+     */
+    public List<Candle> getCandles(String currencyCode, Interval interval, long fromDate, long toDate) {
+        CandleSeries series = getSeries(currencyCode, interval);
+        List<Candle> candles = new ArrayList<>();
+        if (series != null) {
+            for (int i = series.getIndex(fromDate), to = series.getIndex(toDate); i < to; i++)
+                candles.add(series.getCandle(i));
+        }
+        return candles;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private CandleSeries getSeries(String currencyCode, Interval interval) {
+        Map<Interval, CandleSeries> map = seriesByCurrencyCode.get(currencyCode);
+        return map != null ? map.get(interval) : null;
+    }
+
+    // Parallel arrays of the candles sorted by the start date of the bucket. Only buckets with trades are stored.
+    private static final class CandleSeries {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final long durationMs;
+        private int size;
+        private long[] dates = new long[INITIAL_CAPACITY];
+        private long[] open = new long[INITIAL_CAPACITY];
+        private long[] high = new long[INITIAL_CAPACITY];
+        private long[] low = new long[INITIAL_CAPACITY];
+        private long[] close = new long[INITIAL_CAPACITY];
+        // Trade dates of the open and close prices, needed if trades are not added in order
+        private long[] openDates = new long[INITIAL_CAPACITY];
+        private long[] closeDates = new long[INITIAL_CAPACITY];
+        private long[] amount = new long[INITIAL_CAPACITY];
+        private long[] volume = new long[INITIAL_CAPACITY];
+        private int[] numTrades = new int[INITIAL_CAPACITY];
+
+        CandleSeries(long durationMs) {
+            this.durationMs = durationMs;
+        }
+
+        void add(long tradeDate, long price, long tradeAmount, long tradeVolume) {
+            final long bucketDate = tradeDate - Math.floorMod(tradeDate, durationMs);
+            int index;
+            // Fast path for trades in order
+            if (size > 0 && dates[size - 1] == bucketDate) {
+                index = size - 1;
+            } else {
+                index = Arrays.binarySearch(dates, 0, size, bucketDate);
+                if (index < 0) {
+                    index = -index - 1;
+                    insert(index, bucketDate, tradeDate, price);
+                }
+            }
+
+            if (tradeDate < openDates[index]) {
+                openDates[index] = tradeDate;
+                open[index] = price;
+            }
+            if (tradeDate >= closeDates[index]) {
+                closeDates[index] = tradeDate;
+                close[index] = price;
+            }
+            high[index] = Math.max(high[index], price);
+            low[index] = Math.min(low[index], price);
+            amount[index] += tradeAmount;
+            volume[index] += tradeVolume;
+            numTrades[index]++;
+        }
+
+        // Index of the first candle with a date >= the given date
+        int getIndex(long date) {
+            int index = Arrays.binarySearch(dates, 0, size, date);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        Candle getCandle(int index) {
+            return new Candle(dates[index], open[index], high[index], low[index], close[index], amount[index],
+                    volume[index], numTrades[index]);
+        }
+
+        private void insert(int index, long bucketDate, long tradeDate, long price) {
+            if (size == dates.length)
+                grow();
+
+            final int numMoved = size - index;
+            if (numMoved > 0) {
+                System.arraycopy(dates, index, dates, index + 1, numMoved);
+                System.arraycopy(open, index, open, index + 1, numMoved);
+                System.arraycopy(high, index, high, index + 1, numMoved);
+                System.arraycopy(low, index, low, index + 1, numMoved);
+                System.arraycopy(close, index, close, index + 1, numMoved);
+                System.arraycopy(openDates, index, openDates, index + 1, numMoved);
+                System.arraycopy(closeDates, index, closeDates, index + 1, numMoved);
+                System.arraycopy(amount, index, amount, index + 1, numMoved);
+                System.arraycopy(volume, index, volume, index + 1, numMoved);
+                System.arraycopy(numTrades, index, numTrades, index + 1, numMoved);
+            }
+            size++;
+
+            dates[index] = bucketDate;
+            open[index] = price;
+            high[index] = price;
+            low[index] = price;
+            close[index] = price;
+            openDates[index] = tradeDate;
+            closeDates[index] = tradeDate;
+            amount[index] = 0;
+            volume[index] = 0;
+            numTrades[index] = 0;
+        }
+
+        private void grow() {
+            final int capacity = dates.length * 2;
+            dates = Arrays.copyOf(dates, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            openDates = Arrays.copyOf(openDates, capacity);
+            closeDates = Arrays.copyOf(closeDates, capacity);
+            amount = Arrays.copyOf(amount, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+            numTrades = Arrays.copyOf(numTrades, capacity);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.storage.JsonFileManager;
+import bisq.common.util.Utilities;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the trade statistics as json files for further processing (e.g. for web based services).
+ * <p>
+ * Additions within BATCH_WINDOW_MS are coalesced into one write. By default the whole trade_statistics file is
+ * rewritten for each batch. In incremental mode we only append the new items as one json object per line to
+ * trade_statistics.ndjson and rewrite the trade_statistics file at most every SNAPSHOT_INTERVAL_MS. At startup both
+ * files are written completely, so items of a batch which was not written at shut down are not lost.
+ * <p>
+ * Must be called from the user thread. Disc IO and json serialisation is done at a single thread executor.
+ */
+@Slf4j
+class TradeStatisticsJsonDumper {
+    static final String SNAPSHOT_FILE_NAME = "trade_statistics";
+    static final String JOURNAL_FILE_NAME = "trade_statistics.ndjson";
+
+    private static final long BATCH_WINDOW_MS = 2000;
+    private static final long SNAPSHOT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    // Newest first
+    private static final Comparator<TradeStatisticsForJson> TRADE_DATE_COMPARATOR =
+            (o1, o2) -> Long.compare(o2.tradeDate, o1.tradeDate);
+
+    private final JsonFileManager jsonFileManager;
+    private final Path journalPath;
+    private final boolean incremental;
+    private final ExecutorService executor = Utilities.getListeningSingleThreadExecutor("TradeStatisticsJsonDumper");
+    // Not pretty printed as we need one line per item
+    private final Gson gson = new Gson();
+
+    private final List<TradeStatistics2> pendingItems = new ArrayList<>();
+    private Timer batchTimer;
+    private Timer snapshotTimer;
+    private long lastSnapshotTs;
+    private boolean snapshotDirty;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    TradeStatisticsJsonDumper(File storageDir, JsonFileManager jsonFileManager, boolean incremental) {
+        this.jsonFileManager = jsonFileManager;
+        this.incremental = incremental;
+        journalPath = new File(storageDir, JOURNAL_FILE_NAME).toPath();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void writeAll(Collection<TradeStatistics2> allTradeStatistics) {
+        pendingItems.clear();
+        stopBatchTimer();
+        writeSnapshot(allTradeStatistics);
+        if (incremental) {
+            List<TradeStatistics2> list = new ArrayList<>(allTradeStatistics);
+            executor.execute(() -> rewriteJournal(list));
+            stopSnapshotTimer();
+            snapshotTimer = UserThread.runPeriodically(() -> {
+                if (snapshotDirty)
+                    writeSnapshot(allTradeStatistics);
+            }, SNAPSHOT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // allTradeStatistics is expected to be a live view which contains tradeStatistics already
+    void onAdded(TradeStatistics2 tradeStatistics, Collection<TradeStatistics2> allTradeStatistics) {
+        pendingItems.add(tradeStatistics);
+        if (batchTimer == null)
+            batchTimer = UserThread.runAfter(() -> {
+                batchTimer = null;
+                flush(allTradeStatistics);
+            }, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Items of a pending batch are written at the next start. Already queued writes are completed.
+    void shutDown() {
+        stopBatchTimer();
+        stopSnapshotTimer();
+        pendingItems.clear();
+        executor.shutdown();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void flush(Collection<TradeStatistics2> allTradeStatistics) {
+        if (incremental) {
+            List<TradeStatistics2> list = new ArrayList<>(pendingItems);
+            executor.execute(() -> appendToJournal(list));
+            snapshotDirty = true;
+            if (System.currentTimeMillis() - lastSnapshotTs >= SNAPSHOT_INTERVAL_MS)
+                writeSnapshot(allTradeStatistics);
+        } else {
+            writeSnapshot(allTradeStatistics);
+        }
+        pendingItems.clear();
+    }
+
+    private void writeSnapshot(Collection<TradeStatistics2> allTradeStatistics) {
+        lastSnapshotTs = System.currentTimeMillis();
+        snapshotDirty = false;
+        List<TradeStatistics2> list = new ArrayList<>(allTradeStatistics);
+        executor.execute(() -> {
+            long ts = System.currentTimeMillis();
+            TradeStatisticsForJson[] array = list.stream()
+                    .map(TradeStatisticsForJson::new)
+                    .sorted(TRADE_DATE_COMPARATOR)
+                    .toArray(TradeStatisticsForJson[]::new);
+            jsonFileManager.writeToDisc(Utilities.objectToJson(array), SNAPSHOT_FILE_NAME);
+            log.info("Writing {} trade statistics to {} took {} ms", array.length, SNAPSHOT_FILE_NAME,
+                    System.currentTimeMillis() - ts);
+        });
+    }
+
+    // We write to a temp file first so readers never see a partially written journal
+    private void rewriteJournal(List<TradeStatistics2> list) {
+        List<TradeStatisticsForJson> items = list.stream()
+                .map(TradeStatisticsForJson::new)
+                .sorted(TRADE_DATE_COMPARATOR.reversed())
+                .collect(Collectors.toList());
+        Path tempPath = journalPath.resolveSibling(JOURNAL_FILE_NAME + ".tmp");
+        try {
+            Files.write(tempPath, toLines(items));
+            Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Could not write {}. {}", JOURNAL_FILE_NAME, e.toString());
+        }
+    }
+
+    private void appendToJournal(List<TradeStatistics2> list) {
+        List<TradeStatisticsForJson> items = list.stream()
+                .map(TradeStatisticsForJson::new)
+                .collect(Collectors.toList());
+        try {
+            Files.write(journalPath, toLines(items), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Could not append to {}. {}", JOURNAL_FILE_NAME, e.toString());
+        }
+    }
+
+    private byte[] toLines(List<TradeStatisticsForJson> items) {
+        StringBuilder sb = new StringBuilder();
+        items.forEach(item -> sb.append(gson.toJson(item)).append('\n'));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void stopBatchTimer() {
+        if (batchTimer != null) {
+            batchTimer.stop();
+            batchTimer = null;
+        }
+    }
+
+    private void stopSnapshotTimer() {
+        if (snapshotTimer != null) {
+            snapshotTimer.stop();
+            snapshotTimer = null;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import javafx.collections.ObservableSet;
 import java.io.File;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -77,21 +78,26 @@ public class TradeStatisticsManager {
     }
 
     private final JsonFileManager jsonFileManager;
+    private final TradeStatisticsJsonDumper jsonDumper;
     private final P2PService p2PService;
     private final PriceFeedService priceFeedService;
     private final boolean dumpStatistics;
     private final ObservableSet<TradeStatistics2> observableTradeStatisticsSet = FXCollections.observableSet();
-    private final HashSet<TradeStatistics2> tradeStatisticsSet = new HashSet<>();
+    private final TradeStatisticsStore tradeStatisticsStore = new TradeStatisticsStore();
+    private final TradeStatisticsAggregator tradeStatisticsAggregator = new TradeStatisticsAggregator();
+    private boolean aggregatorInitialized;
 
     @Inject
     public TradeStatisticsManager(P2PService p2PService,
                                   PriceFeedService priceFeedService,
                                   @Named(Storage.STORAGE_DIR) File storageDir,
-                                  @Named(AppOptionKeys.DUMP_STATISTICS) boolean dumpStatistics) {
+                                  @Named(AppOptionKeys.DUMP_STATISTICS) boolean dumpStatistics,
+                                  @Named(AppOptionKeys.DUMP_STATISTICS_INCREMENTAL) boolean dumpStatisticsIncremental) {
         this.p2PService = p2PService;
         this.priceFeedService = priceFeedService;
         this.dumpStatistics = dumpStatistics;
         jsonFileManager = new JsonFileManager(storageDir);
+        jsonDumper = new TradeStatisticsJsonDumper(storageDir, jsonFileManager, dumpStatisticsIncremental);
     }
 
     public void onAllServicesInitialized() {
@@ -117,6 +123,9 @@ public class TradeStatisticsManager {
             if (e instanceof TradeStatistics2)
                 addToMap((TradeStatistics2) e, false);
         });
+        // We add the stored items in one batch sorted by trade date to avoid inserts in the candle arrays
+        tradeStatisticsAggregator.addAll(tradeStatisticsStore.getAll());
+        aggregatorInitialized = true;
 
         //TODO can be removed after version older than v0.6.0 are not used anymore
         // We listen to TradeStatistics objects from old clients as well and convert them into TradeStatistics2 objects
@@ -135,13 +144,18 @@ public class TradeStatisticsManager {
             }
         });
 
-        priceFeedService.applyLatestBisqMarketPrice(tradeStatisticsSet);
-        dump();
+        priceFeedService.applyLatestBisqMarketPrice(tradeStatisticsStore.getLatestByCurrencyCode().values());
+        if (dumpStatistics)
+            jsonDumper.writeAll(tradeStatisticsStore.getAll());
 
         // print all currencies sorted by nr. of trades
         // printAllCurrencyStats();
     }
 
+    public void shutDown() {
+        jsonDumper.shutDown();
+    }
+
     public void publishTradeStatistics(List<Trade> trades) {
         for (int i = 0; i < trades.size(); i++) {
             Trade trade = trades.get(i);
@@ -165,21 +179,21 @@ public class TradeStatisticsManager {
     }
 
     public void addToMap(TradeStatistics2 tradeStatistics, boolean storeLocally) {
-        if (!tradeStatisticsSet.contains(tradeStatistics)) {
-            boolean itemAlreadyAdded = tradeStatisticsSet.stream().filter(e -> (e.getOfferId().equals(tradeStatistics.getOfferId()))).findAny().isPresent();
-            if (!itemAlreadyAdded) {
-                tradeStatisticsSet.add(tradeStatistics);
-                observableTradeStatisticsSet.add(tradeStatistics);
-
-                tradeStatistics.getTradePrice().getValue();
-
-                if (storeLocally) {
-                    priceFeedService.applyLatestBisqMarketPrice(tradeStatisticsSet);
-                    dump();
-                }
-            } else {
-                log.debug("We have already an item with the same offer ID. That might happen if both the maker and the taker published the tradeStatistics");
+        if (tradeStatisticsStore.add(tradeStatistics)) {
+            observableTradeStatisticsSet.add(tradeStatistics);
+            if (aggregatorInitialized)
+                tradeStatisticsAggregator.add(tradeStatistics);
+
+            if (storeLocally) {
+                // We only need to update the price if the new item is the latest of its currency
+                final String currencyCode = tradeStatistics.getCurrencyCode();
+                if (tradeStatisticsStore.getLatest(currencyCode).filter(e -> e == tradeStatistics).isPresent())
+                    priceFeedService.applyLatestBisqMarketPrice(Collections.singletonList(tradeStatistics));
+                if (dumpStatistics)
+                    jsonDumper.onAdded(tradeStatistics, tradeStatisticsStore.getAll());
             }
+        } else {
+            log.debug("We have already an item with the same offer ID. That might happen if both the maker and the taker published the tradeStatistics");
         }
     }
 
@@ -187,25 +201,13 @@ public class TradeStatisticsManager {
         return observableTradeStatisticsSet;
     }
 
-    private void dump() {
-        if (dumpStatistics) {
-            // We store the statistics as json so it is easy for further processing (e.g. for web based services)
-            // TODO This is just a quick solution for storing to one file.
-            // 1 statistic entry has 500 bytes as json.
-            // Need a more scalable solution later when we get more volume.
-            // The flag will only be activated by dedicated nodes, so it should not be too critical for the moment, but needs to
-            // get improved. Maybe a LevelDB like DB...? Could be impl. in a headless version only.
-            List<TradeStatisticsForJson> list = tradeStatisticsSet.stream().map(TradeStatisticsForJson::new).collect(Collectors.toList());
-            list.sort((o1, o2) -> (o1.tradeDate < o2.tradeDate ? 1 : (o1.tradeDate == o2.tradeDate ? 0 : -1)));
-            TradeStatisticsForJson[] array = new TradeStatisticsForJson[list.size()];
-            list.toArray(array);
-            jsonFileManager.writeToDisc(Utilities.objectToJson(array), "trade_statistics");
-        }
+    public TradeStatisticsAggregator getTradeStatisticsAggregator() {
+        return tradeStatisticsAggregator;
     }
 
     private void printAllCurrencyStats() {
         Map<String, Set<TradeStatistics2>> map1 = new HashMap<>();
-        for (TradeStatistics2 tradeStatistics : tradeStatisticsSet) {
+        for (TradeStatistics2 tradeStatistics : tradeStatisticsStore.getAll()) {
             if (CurrencyUtil.isFiatCurrency(tradeStatistics.getCounterCurrency())) {
                 final String counterCurrency = CurrencyUtil.getNameAndCode(tradeStatistics.getCounterCurrency());
                 if (!map1.containsKey(counterCurrency))
@@ -222,7 +224,7 @@ public class TradeStatisticsManager {
         log.error(sb1.toString());
 
         Map<String, Set<TradeStatistics2>> map2 = new HashMap<>();
-        for (TradeStatistics2 tradeStatistics : tradeStatisticsSet) {
+        for (TradeStatistics2 tradeStatistics : tradeStatisticsStore.getAll()) {
             if (CurrencyUtil.isCryptoCurrency(tradeStatistics.getBaseCurrency())) {
                 final String code = CurrencyUtil.getNameAndCode(tradeStatistics.getBaseCurrency());
                 if (!map2.containsKey(code))
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import lombok.Value;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Holds the trade statistics indexed by offer ID and by currency code ordered by trade date. The latest trade per
+ * currency is maintained on each add, so we don't need to group and sort all statistics to get the Bisq market price.
+ */
+public class TradeStatisticsStore {
+
+    // Different trades can have the same trade date so we use the offer ID as tie breaker
+    @Value
+    private static final class TradeDateKey implements Comparable<TradeDateKey> {
+        private final long tradeDate;
+        private final String offerId;
+
+        @Override
+        public int compareTo(@NotNull TradeDateKey other) {
+            int result = Long.compare(tradeDate, other.tradeDate);
+            return result != 0 ? result : offerId.compareTo(other.offerId);
+        }
+    }
+
+    private final Map<String, TradeStatistics2> tradeStatisticsByOfferId = new HashMap<>();
+    private final Map<String, NavigableMap<TradeDateKey, TradeStatistics2>> tradeStatisticsByCurrencyCode = new HashMap<>();
+    private final Map<String, TradeStatistics2> latestTradeStatisticsByCurrencyCode = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return False if we have already an item with the same offer ID. That happens if both the maker and the taker
+     * published the trade statistics.
+     */
+    public boolean add(TradeStatistics2 tradeStatistics) {
+        if (tradeStatisticsByOfferId.putIfAbsent(tradeStatistics.getOfferId(), tradeStatistics) != null)
+            return false;
+
+        final String currencyCode = tradeStatistics.getCurrencyCode();
+        final TradeDateKey key = new TradeDateKey(tradeStatistics.getTradeDate().getTime(), tradeStatistics.getOfferId());
+        final NavigableMap<TradeDateKey, TradeStatistics2> map = tradeStatisticsByCurrencyCode.computeIfAbsent(currencyCode,
+                e -> new TreeMap<>());
+        map.put(key, tradeStatistics);
+        if (map.lastKey().equals(key))
+            latestTradeStatisticsByCurrencyCode.put(currencyCode, tradeStatistics);
+        return true;
+    }
+
+    public boolean containsOfferId(String offerId) {
+        return tradeStatisticsByOfferId.containsKey(offerId);
+    }
+
+    public Optional<TradeStatistics2> getByOfferId(String offerId) {
+        return Optional.ofNullable(tradeStatisticsByOfferId.get(offerId));
+    }
+
+    public Optional<TradeStatistics2> getLatest(String currencyCode) {
+        return Optional.ofNullable(latestTradeStatisticsByCurrencyCode.get(currencyCode));
+    }
+
+    public Map<String, TradeStatistics2> getLatestByCurrencyCode() {
+        return Collections.unmodifiableMap(latestTradeStatisticsByCurrencyCode);
+    }
+
+    /**
+     * @return The statistics of that currency with fromDate <= tradeDate < toDate ordered by trade date.
+     */
+    public Collection<TradeStatistics2> getTradeStatistics(String currencyCode, long fromDate, long toDate) {
+        NavigableMap<TradeDateKey, TradeStatistics2> map = tradeStatisticsByCurrencyCode.get(currencyCode);
+        if (map == null || fromDate >= toDate)
+            return Collections.emptyList();
+
+        // An empty offer ID sorts before all others at the same date
+        return Collections.unmodifiableCollection(map.subMap(new TradeDateKey(fromDate, ""), true,
+                new TradeDateKey(toDate, ""), false).values());
+    }
+
+    public Collection<TradeStatistics2> getAll() {
+        return Collections.unmodifiableCollection(tradeStatisticsByOfferId.values());
+    }
+
+    public int size() {
+        return tradeStatisticsByOfferId.size();
+    }
+}
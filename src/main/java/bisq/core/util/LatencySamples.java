@@ -0,0 +1,56 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.util;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of the last recorded latencies in ms.
+ */
+public class LatencySamples {
+    private final long[] values;
+    private int size;
+    private int next;
+
+    public LatencySamples(int capacity) {
+        values = new long[capacity];
+    }
+
+    public void add(long latencyMs) {
+        values[next] = latencyMs;
+        next = (next + 1) % values.length;
+        size = Math.min(size + 1, values.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The latency below which the given share of the samples are, or -1 if we have no samples.
+     */
+    public long getPercentile(double percentile) {
+        if (size == 0)
+            return -1;
+
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+}
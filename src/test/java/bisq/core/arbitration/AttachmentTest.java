@@ -0,0 +1,167 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.arbitration;
+
+import bisq.core.arbitration.messages.DisputeCommunicationMessage;
+import bisq.core.arbitration.messages.OpenNewDisputeMessage;
+import bisq.core.proto.CoreProtoResolver;
+import bisq.core.trade.Contract;
+
+import bisq.network.p2p.NodeAddress;
+
+import bisq.common.app.Version;
+import bisq.common.crypto.PubKeyRing;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.collect.Lists;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Random;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.integration.junit4.JMockit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JMockit.class)
+public class AttachmentTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPersistAsReference() throws IOException {
+        File storageDir = folder.newFolder();
+        AttachmentStore attachmentStore = new AttachmentStore(storageDir);
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        Attachment attachment = new Attachment("screenshot.png", bytes);
+
+        PB.Attachment proto = attachment.toPersistableProtoMessage(attachmentStore);
+        assertTrue(proto.getBytes().size() < 100);
+        assertEquals(1, new File(storageDir, AttachmentStore.DIR_NAME).list().length);
+
+        Attachment persisted = Attachment.fromPersistableProto(proto, attachmentStore);
+        assertEquals(attachment, persisted);
+        assertEquals("screenshot.png", persisted.getFileName());
+        assertArrayEquals(bytes, persisted.getBytes());
+
+        // Over the network we send the bytes
+        assertArrayEquals(bytes, persisted.toProtoMessage().getBytes().toByteArray());
+
+        // Same bytes are stored once
+        new Attachment("copy.png", bytes).toPersistableProtoMessage(attachmentStore);
+        assertEquals(1, new File(storageDir, AttachmentStore.DIR_NAME).list().length);
+    }
+
+    @Test
+    public void testFromPersistableProtoWithInlineBytes() throws IOException {
+        byte[] bytes = {1, 2, 3};
+        Attachment attachment = new Attachment("file.txt", bytes);
+
+        Attachment persisted = Attachment.fromPersistableProto(attachment.toProtoMessage(),
+                new AttachmentStore(folder.newFolder()));
+        assertEquals(attachment, persisted);
+        assertArrayEquals(bytes, persisted.getBytes());
+    }
+
+    @Test
+    public void testMissingOrCorruptFileIsNotSentEmpty() throws IOException {
+        File storageDir = folder.newFolder();
+        AttachmentStore attachmentStore = new AttachmentStore(storageDir);
+        byte[] bytes = {1, 2, 3};
+        PB.Attachment proto = new Attachment("file.txt", bytes).toPersistableProtoMessage(attachmentStore);
+        File[] files = new File(storageDir, AttachmentStore.DIR_NAME).listFiles();
+        assertEquals(1, files.length);
+
+        Files.write(files[0].toPath(), new byte[]{1, 2, 4});
+        Attachment corrupt = Attachment.fromPersistableProto(proto, new AttachmentStore(storageDir));
+        try {
+            corrupt.toProtoMessage();
+            fail("Expected AttachmentNotAvailableException");
+        } catch (AttachmentNotAvailableException ignore) {
+        }
+
+        assertTrue(files[0].delete());
+        Attachment missing = Attachment.fromPersistableProto(proto, new AttachmentStore(storageDir));
+        try {
+            missing.getBytes();
+            fail("Expected AttachmentNotAvailableException");
+        } catch (AttachmentNotAvailableException ignore) {
+        }
+    }
+
+    @Test
+    public void testNetworkMessageCarriesBytes(@Mocked Contract contract, @Mocked PubKeyRing pubKeyRing)
+            throws IOException {
+        new Expectations() {{
+            contract.toProtoMessage();
+            result = PB.Contract.getDefaultInstance();
+            minTimes = 0;
+            Contract.fromProto((PB.Contract) any, (CoreProtoResolver) any);
+            result = contract;
+            minTimes = 0;
+            pubKeyRing.toProtoMessage();
+            result = PB.PubKeyRing.getDefaultInstance();
+            minTimes = 0;
+            PubKeyRing.fromProto((PB.PubKeyRing) any);
+            result = pubKeyRing;
+            minTimes = 0;
+        }};
+        File storageDir = folder.newFolder();
+        AttachmentStore attachmentStore = new AttachmentStore(storageDir);
+        byte[] bytes = new byte[100_000];
+        new Random().nextBytes(bytes);
+        NodeAddress nodeAddress = new NodeAddress("host", 1000);
+        Dispute dispute = new Dispute("tradeId", 1, true, true, pubKeyRing, 0, contract, null, null, null, null, null,
+                "contractAsJson", null, null, pubKeyRing, false);
+        dispute.getDisputeCommunicationMessages().add(new DisputeCommunicationMessage("tradeId", 1, true, "message",
+                Lists.newArrayList(new Attachment("screenshot.png", bytes)), nodeAddress, 0, false, false, "uid"));
+
+        PB.NetworkEnvelope proto = new OpenNewDisputeMessage(dispute, nodeAddress, "uid").toProtoNetworkEnvelope();
+        PB.Attachment attachmentProto = proto.getOpenNewDisputeMessage().getDispute()
+                .getDisputeCommunicationMessages(0).getAttachments(0);
+        assertArrayEquals(bytes, attachmentProto.getBytes().toByteArray());
+        // Sending does not write to the store
+        assertEquals(0, new File(storageDir, AttachmentStore.DIR_NAME).list().length);
+
+        OpenNewDisputeMessage received = OpenNewDisputeMessage.fromProto(proto.getOpenNewDisputeMessage(),
+                new CoreProtoResolver(), Version.getP2PMessageVersion());
+        Attachment attachment = received.getDispute().getDisputeCommunicationMessages().get(0).getAttachments().get(0);
+        assertEquals("screenshot.png", attachment.getFileName());
+        assertArrayEquals(bytes, attachment.getBytes());
+
+        // Persisted disputes only reference the attachment
+        PB.Attachment persistedProto = dispute.toPersistableProtoMessage(attachmentStore)
+                .getDisputeCommunicationMessages(0).getAttachments(0);
+        assertTrue(persistedProto.getBytes().size() < 100);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.arbitration;
+
+import bisq.core.proto.CoreProtoResolver;
+import bisq.core.proto.persistable.CorePersistenceProtoResolver;
+import bisq.core.trade.Contract;
+
+import bisq.common.crypto.PubKeyRing;
+import bisq.common.storage.Storage;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.integration.junit4.JMockit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JMockit.class)
+public class DisputeStoreTest {
+    // 2018-01-31 23:30 UTC
+    private static final long END_OF_JANUARY = 1517441400000L;
+    // 2018-02-01 00:30 UTC
+    private static final long START_OF_FEBRUARY = 1517445000000L;
+    private static final String JANUARY_FILE = DisputeStore.SHARD_FILE_PREFIX + "2018_01";
+    private static final String FEBRUARY_FILE = DisputeStore.SHARD_FILE_PREFIX + "2018_02";
+    private static final String LEGACY_FILE = "DisputeList";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    @Mocked
+    private Contract contract;
+    @Mocked
+    private PubKeyRing pubKeyRing;
+    private File storageDir;
+    private AttachmentStore attachmentStore;
+    private CorePersistenceProtoResolver persistenceProtoResolver;
+
+    @Before
+    public void setup() throws IOException {
+        new Expectations() {{
+            contract.toProtoMessage();
+            result = PB.Contract.getDefaultInstance();
+            minTimes = 0;
+            Contract.fromProto((PB.Contract) any, (CoreProtoResolver) any);
+            result = contract;
+            minTimes = 0;
+            pubKeyRing.toProtoMessage();
+            result = PB.PubKeyRing.getDefaultInstance();
+            minTimes = 0;
+            PubKeyRing.fromProto((PB.PubKeyRing) any);
+            result = pubKeyRing;
+            minTimes = 0;
+        }};
+        storageDir = folder.newFolder();
+        attachmentStore = new AttachmentStore(storageDir);
+        persistenceProtoResolver = new CorePersistenceProtoResolver(null, null, storageDir, attachmentStore);
+    }
+
+    @Test
+    public void testShardByOpeningMonthInUtc() throws InterruptedException {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            // In this time zone both disputes are opened in February
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+05:00"));
+            DisputeStore store = createStore();
+            store.readPersisted();
+            store.add(createDispute("trade1", 1, END_OF_JANUARY));
+            store.add(createDispute("trade2", 1, START_OF_FEBRUARY));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+
+        awaitPersistedIds(JANUARY_FILE, Lists.newArrayList("trade1_1"));
+        awaitPersistedIds(FEBRUARY_FILE, Lists.newArrayList("trade2_1"));
+
+        DisputeStore store = createStore();
+        store.readPersisted();
+        assertEquals(2, store.getList().size());
+        assertTrue(store.findDispute("trade1", 1).isPresent());
+        assertTrue(store.findDispute("trade2", 1).isPresent());
+    }
+
+    @Test
+    public void testReadFilesInOrderOfMonth() throws InterruptedException {
+        DisputeStore store = createStore();
+        store.readPersisted();
+        store.add(createDispute("trade2", 1, START_OF_FEBRUARY));
+        store.add(createDispute("trade1", 1, END_OF_JANUARY));
+        awaitPersistedIds(JANUARY_FILE, Lists.newArrayList("trade1_1"));
+        awaitPersistedIds(FEBRUARY_FILE, Lists.newArrayList("trade2_1"));
+
+        store = createStore();
+        store.readPersisted();
+        assertEquals(Lists.newArrayList("trade1_1", "trade2_1"),
+                store.getList().stream().map(Dispute::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testStorageOfNewDisputeIsStorageOfMonth() throws InterruptedException {
+        DisputeStore store = createStore();
+        store.readPersisted();
+        assertSame(store.getStorage(END_OF_JANUARY), store.getStorage(END_OF_JANUARY - 1000));
+        assertNotSame(store.getStorage(END_OF_JANUARY), store.getStorage(START_OF_FEBRUARY));
+
+        Dispute dispute = createDispute("trade1", 1, END_OF_JANUARY);
+        dispute.setStorage(store.getStorage(END_OF_JANUARY));
+        store.add(dispute);
+        dispute.setIsClosed(true);
+        awaitPersistedIds(JANUARY_FILE, Lists.newArrayList("trade1_1"));
+        assertFalse(new File(storageDir, LEGACY_FILE).exists());
+    }
+
+    @Test
+    public void testAddAndRemoveKeepIndexes() {
+        DisputeStore store = createStore();
+        store.readPersisted();
+        Dispute dispute1 = createDispute("trade1", 1, END_OF_JANUARY);
+        // Same ID as dispute1
+        Dispute dispute2 = createDispute("trade1", 1, START_OF_FEBRUARY);
+        Dispute dispute3 = createDispute("trade1", 2, END_OF_JANUARY);
+        Dispute dispute4 = createDispute("trade2", 1, END_OF_JANUARY);
+        assertTrue(store.add(dispute1));
+        assertTrue(store.add(dispute2));
+        assertTrue(store.add(dispute3));
+        assertTrue(store.add(dispute4));
+        assertFalse(store.add(dispute1));
+
+        assertEquals(Lists.newArrayList(dispute1, dispute2, dispute3, dispute4), store.getList());
+        assertSame(dispute1, store.findDispute("trade1", 1).get());
+        assertSame(dispute3, store.findDispute("trade1", 2).get());
+        assertEquals(Lists.newArrayList(dispute1, dispute2, dispute3), store.getDisputesByTradeId("trade1"));
+        assertTrue(store.contains(dispute2));
+
+        assertTrue(store.remove(dispute1));
+        assertFalse(store.remove(dispute1));
+        assertFalse(store.contains(dispute1));
+        assertSame(dispute2, store.findDispute("trade1", 1).get());
+        assertEquals(Lists.newArrayList(dispute2, dispute3), store.getDisputesByTradeId("trade1"));
+
+        assertTrue(store.remove(dispute2));
+        assertFalse(store.findDispute("trade1", 1).isPresent());
+        assertTrue(store.remove(dispute3));
+        assertTrue(store.getDisputesByTradeId("trade1").isEmpty());
+        assertEquals(Lists.newArrayList(dispute4), store.getList());
+        assertSame(dispute4, store.findDispute("trade2", 1).get());
+    }
+
+    @Test
+    public void testFindDisputeWithUnderscoreInTradeId() {
+        DisputeStore store = createStore();
+        store.readPersisted();
+        Dispute dispute1 = createDispute("a_1", 2, END_OF_JANUARY);
+        Dispute dispute2 = createDispute("a", 1, END_OF_JANUARY);
+        store.add(dispute1);
+        store.add(dispute2);
+
+        assertSame(dispute1, store.findDispute("a_1", 2).get());
+        assertSame(dispute2, store.findDispute("a", 1).get());
+        assertFalse(store.findDispute("a", 2).isPresent());
+        assertFalse(store.findDispute("a_1", 1).isPresent());
+        assertEquals(Lists.newArrayList(dispute2), store.getDisputesByTradeId("a"));
+    }
+
+    @Test
+    public void testMigrateLegacyFile() throws InterruptedException {
+        DisputeList legacyList = new DisputeList(new Storage<>(storageDir, persistenceProtoResolver), attachmentStore);
+        legacyList.readPersisted();
+        legacyList.add(createDispute("trade1", 1, END_OF_JANUARY));
+        // Duplicate ID
+        legacyList.add(createDispute("trade1", 1, END_OF_JANUARY));
+        legacyList.add(createDispute("trade2", 1, START_OF_FEBRUARY));
+        List<String> legacyIds = Lists.newArrayList("trade1_1", "trade1_1", "trade2_1");
+        awaitPersistedIds(LEGACY_FILE, legacyIds);
+
+        // First start copies all disputes and keeps the legacy file
+        DisputeStore store = createStore();
+        store.readPersisted();
+        assertEquals(3, store.getList().size());
+        awaitPersistedIds(JANUARY_FILE, Lists.newArrayList("trade1_1", "trade1_1"));
+        awaitPersistedIds(FEBRUARY_FILE, Lists.newArrayList("trade2_1"));
+        assertEquals(legacyIds, readPersistedIds(LEGACY_FILE));
+
+        // We got shut down before the February file was written
+        assertTrue(new File(storageDir, FEBRUARY_FILE).delete());
+
+        // Second start copies the missing dispute again and keeps the legacy file
+        store = createStore();
+        store.readPersisted();
+        assertEquals(3, store.getList().size());
+        awaitPersistedIds(FEBRUARY_FILE, Lists.newArrayList("trade2_1"));
+        assertEquals(Lists.newArrayList("trade1_1", "trade1_1"), readPersistedIds(JANUARY_FILE));
+        Thread.sleep(500);
+        assertEquals(legacyIds, readPersistedIds(LEGACY_FILE));
+
+        // Third start finds all disputes and clears the legacy file
+        store = createStore();
+        store.readPersisted();
+        assertEquals(3, store.getList().size());
+        awaitPersistedIds(LEGACY_FILE, Collections.emptyList());
+
+        store = createStore();
+        store.readPersisted();
+        assertEquals(3, store.getList().size());
+        assertEquals(2, store.getDisputesByTradeId("trade1").size());
+        assertEquals(1, store.getDisputesByTradeId("trade2").size());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Utils
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private DisputeStore createStore() {
+        return new DisputeStore(storageDir, persistenceProtoResolver, new Storage<>(storageDir, persistenceProtoResolver),
+                attachmentStore);
+    }
+
+    private Dispute createDispute(String tradeId, int traderId, long openingDate) {
+        Dispute dispute = new Dispute(tradeId, traderId, true, true, pubKeyRing, 0, contract, null, null, null, null,
+                null, "contractAsJson", null, null, pubKeyRing, false);
+        // The opening date is only set from the proto
+        return Dispute.fromProto(dispute.toProtoMessage().toBuilder().setOpeningDate(openingDate).build(),
+                persistenceProtoResolver);
+    }
+
+    // Storage writes the files at the FileManager thread
+    private void awaitPersistedIds(String fileName, List<String> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<String> ids = readPersistedIds(fileName);
+        while (!expected.equals(ids)) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Expected " + expected + " in " + fileName + " but got " + ids);
+            Thread.sleep(50);
+            ids = readPersistedIds(fileName);
+        }
+    }
+
+    private List<String> readPersistedIds(String fileName) {
+        File file = new File(storageDir, fileName);
+        if (!file.exists())
+            return new ArrayList<>();
+
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            PB.PersistableEnvelope proto = PB.PersistableEnvelope.parseDelimitedFrom(fileInputStream);
+            return proto.getDisputeList().getDisputeList().stream()
+                    .map(PB.Dispute::getId)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BroadcastMetricsTest {
+
+    @Test
+    public void testGetTimeoutMs() {
+        BroadcastMetrics metrics = new BroadcastMetrics();
+        for (int i = 0; i < 4; i++)
+            metrics.onSuccess(4000);
+        // Too few samples
+        assertEquals(BroadcastMetrics.DEFAULT_TIMEOUT_MS, metrics.getTimeoutMs());
+
+        metrics.onSuccess(4000);
+        assertEquals(8000, metrics.getTimeoutMs());
+
+        // Late successes after a timeout count as well
+        for (int i = 0; i < 50; i++)
+            metrics.onLateSuccess(60_000);
+        assertEquals(BroadcastMetrics.MAX_TIMEOUT_MS, metrics.getTimeoutMs());
+
+        for (int i = 0; i < 50; i++)
+            metrics.onSuccess(100);
+        assertEquals(BroadcastMetrics.MIN_TIMEOUT_MS, metrics.getTimeoutMs());
+    }
+
+    @Test
+    public void testCountersAndHistograms() {
+        BroadcastMetrics metrics = new BroadcastMetrics();
+        metrics.onFirstPeerAck(300);
+        metrics.onSuccess(700);
+        metrics.onSuccess(1000);
+        metrics.onLateSuccess(100_000);
+        metrics.onTimeout();
+        metrics.onFailure();
+        metrics.onLateFailure();
+        metrics.onRejected();
+
+        assertEquals(2, metrics.getNumSuccesses());
+        assertEquals(1, metrics.getNumTimeouts());
+        assertEquals(1, metrics.getNumFailures());
+        assertEquals(1, metrics.getNumLateFailures());
+        assertEquals(1, metrics.getNumRejected());
+
+        Map<Long, Long> firstAckHistogram = metrics.getFirstAckHistogram();
+        assertEquals(BroadcastMetrics.BUCKET_BOUNDS_MS.length + 1, firstAckHistogram.size());
+        assertEquals(1, (long) firstAckHistogram.get(500L));
+
+        Map<Long, Long> completionHistogram = metrics.getCompletionHistogram();
+        assertEquals(0, (long) completionHistogram.get(500L));
+        assertEquals(2, (long) completionHistogram.get(1000L));
+        assertEquals(1, (long) completionHistogram.get(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.AbstractBlockChain;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.MemoryBlockStore;
+import org.bitcoinj.testing.FakeTxBuilder;
+import org.bitcoinj.wallet.Wallet;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.bitcoinj.core.TransactionConfidence.ConfidenceType.DEAD;
+import static org.bitcoinj.core.TransactionConfidence.ConfidenceType.PENDING;
+import static org.junit.Assert.assertEquals;
+
+public class BsqBalanceTrackerTest {
+    private final NetworkParameters params = UnitTestParams.get();
+    // All outputs are spendable BSQ outputs
+    private final BsqCoinSelector bsqCoinSelector = new BsqCoinSelector(null) {
+        @Override
+        protected boolean isTxOutputSpendable(TransactionOutput output) {
+            return true;
+        }
+    };
+    private Wallet wallet;
+    private BlockStore blockStore;
+    private BsqBalanceTracker bsqBalanceTracker;
+
+    @Before
+    public void setup() throws Exception {
+        Context.propagate(new Context(params));
+        wallet = new Wallet(params);
+        wallet.setAcceptRiskyTransactions(true);
+        blockStore = new MemoryBlockStore(params);
+        bsqBalanceTracker = new BsqBalanceTracker(bsqCoinSelector);
+        bsqBalanceTracker.recalculateAll(wallet, wallet.getTransactions(false));
+    }
+
+    @Test
+    public void testIncrementalUpdateMatchesFullRecalculation() throws Exception {
+        // Receive
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, wallet.currentReceiveAddress());
+        Transaction tx2 = FakeTxBuilder.createFakeTx(params, Coin.COIN, wallet.freshReceiveAddress());
+        wallet.receivePending(tx1, null);
+        wallet.receivePending(tx2, null);
+        onTransactionsChanged(tx1, tx2);
+        assertBalances(Coin.COIN.multiply(2), Coin.COIN.multiply(2));
+
+        // Pending to building
+        StoredBlock block = FakeTxBuilder.createFakeBlock(blockStore, tx1, tx2).storedBlock;
+        wallet.receiveFromBlock(tx1, block, AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
+        wallet.receiveFromBlock(tx2, block, AbstractBlockChain.NewBlockType.BEST_CHAIN, 1);
+        wallet.notifyNewBestBlock(block);
+        onTransactionsChanged(tx1, tx2);
+        assertBalances(Coin.COIN.multiply(2), Coin.ZERO);
+
+        // Spend both by a later tx with change
+        Transaction spendingTx = new Transaction(params);
+        spendingTx.addInput(tx1.getOutput(0));
+        spendingTx.addInput(tx2.getOutput(0));
+        spendingTx.addOutput(Coin.COIN, new ECKey().toAddress(params));
+        spendingTx.addOutput(Coin.CENT, wallet.freshReceiveAddress());
+        wallet.receivePending(spendingTx, null);
+        assertEquals(PENDING, spendingTx.getConfidence().getConfidenceType());
+        onTransactionsChanged(spendingTx);
+        assertBalances(Coin.CENT, Coin.CENT);
+
+        // A tx spending the output of tx2 gets confirmed, so spendingTx turns dead and tx1 is unspent again.
+        // We only pass the changed txs, tx1 has to be found by the outpoint of the disconnected input.
+        Transaction doubleSpendTx = new Transaction(params);
+        doubleSpendTx.addInput(tx2.getOutput(0));
+        doubleSpendTx.addOutput(Coin.COIN, new ECKey().toAddress(params));
+        StoredBlock nextBlock = FakeTxBuilder.createFakeBlock(blockStore, doubleSpendTx).storedBlock;
+        wallet.receiveFromBlock(doubleSpendTx, nextBlock, AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
+        wallet.notifyNewBestBlock(nextBlock);
+        assertEquals(DEAD, spendingTx.getConfidence().getConfidenceType());
+        onTransactionsChanged(spendingTx, doubleSpendTx);
+        assertBalances(Coin.COIN, Coin.ZERO);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Utils
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onTransactionsChanged(Transaction... transactions) {
+        bsqBalanceTracker.onTransactionsChanged(wallet, Arrays.asList(transactions));
+    }
+
+    private void assertBalances(Coin expectedAvailable, Coin expectedUnverified) {
+        BsqBalanceTracker fullRecalculation = new BsqBalanceTracker(bsqCoinSelector);
+        fullRecalculation.recalculateAll(wallet, wallet.getTransactions(false));
+        assertEquals(fullRecalculation.getAvailableBalance(), bsqBalanceTracker.getAvailableBalance());
+        assertEquals(fullRecalculation.getUnverifiedBalance(), bsqBalanceTracker.getUnverifiedBalance());
+
+        // As calculated before BsqBalanceTracker
+        Coin available = bsqCoinSelector.select(NetworkParameters.MAX_MONEY,
+                wallet.calculateAllSpendCandidates()).valueGathered;
+        Coin unverified = Coin.valueOf(wallet.getTransactions(false).stream()
+                .flatMap(tx -> tx.getOutputs().stream())
+                .filter(out -> out.isMine(wallet) &&
+                        out.getParentTransaction().getConfidence().getConfidenceType() == PENDING)
+                .mapToLong(out -> out.getValue().value)
+                .sum());
+        assertEquals(available, bsqBalanceTracker.getAvailableBalance());
+        assertEquals(unverified, bsqBalanceTracker.getUnverifiedBalance());
+
+        assertEquals(expectedAvailable, bsqBalanceTracker.getAvailableBalance());
+        assertEquals(expectedUnverified, bsqBalanceTracker.getUnverifiedBalance());
+    }
+}
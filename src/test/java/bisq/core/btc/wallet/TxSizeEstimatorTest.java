@@ -0,0 +1,178 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.CoinSelection;
+import org.bitcoinj.wallet.CoinSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class TxSizeEstimatorTest {
+    private final NetworkParameters params = MainNetParams.get();
+    private final ECKey key = new ECKey();
+    private final Coin txFeePerByte = Coin.valueOf(50);
+
+    // Takes the candidates in the given order until the target is reached
+    private final CoinSelector coinSelector = (target, candidates) -> {
+        List<TransactionOutput> gathered = new ArrayList<>();
+        long total = 0;
+        for (TransactionOutput output : candidates) {
+            if (total >= target.value)
+                break;
+            gathered.add(output);
+            total += output.getValue().value;
+        }
+        return new CoinSelection(Coin.valueOf(total), gathered);
+    };
+
+    @Test
+    public void testGetSizeOfSignedP2PKHTx() {
+        List<TransactionOutput> utxos = getUtxos(5, Coin.valueOf(100_000));
+        // We sign many txs as the signature size varies
+        for (int i = 0; i < 20; i++) {
+            Transaction tx = new Transaction(params);
+            utxos.forEach(tx::addInput);
+            tx.addOutput(Coin.valueOf(300_000), new ECKey().toAddress(params));
+            tx.addOutput(Coin.valueOf(150_000), key.toAddress(params));
+            final int estimatedSize = TxSizeEstimator.getSize(tx);
+
+            sign(tx);
+            final int size = tx.bitcoinSerialize().length;
+            assertTrue("estimatedSize=" + estimatedSize + ", size=" + size, estimatedSize >= size);
+            assertTrue("estimatedSize=" + estimatedSize + ", size=" + size, estimatedSize - size <= utxos.size());
+            // Signed inputs are counted with their actual size
+            assertEquals(size, TxSizeEstimator.getSize(tx));
+        }
+    }
+
+    @Test
+    public void testGetFeeWithFeeInOutputs() {
+        List<TransactionOutput> candidates = getUtxos(100, Coin.valueOf(10_000));
+        Transaction tx = new Transaction(params);
+        tx.addOutput(Coin.valueOf(255_000), new ECKey().toAddress(params));
+
+        Coin fee = TxSizeEstimator.getFee(tx, coinSelector, candidates, txFeePerByte, true, 0);
+
+        // 26 inputs and a change output
+        assertEquals(txFeePerByte.multiply(getCompletedTxSize(tx, candidates.subList(0, 26), true)), fee);
+    }
+
+    @Test
+    public void testGetFeeWithFeeAddedToValue() {
+        List<TransactionOutput> candidates = getUtxos(100, Coin.valueOf(10_000));
+        Transaction tx = new Transaction(params);
+        tx.addOutput(Coin.valueOf(250_000), new ECKey().toAddress(params));
+
+        final Coin lowTxFeePerByte = Coin.valueOf(10);
+
+        Coin fee = TxSizeEstimator.getFee(tx, coinSelector, candidates, lowTxFeePerByte, false, 0);
+
+        // 250_000 + fee needs 30 inputs and a change output
+        final int size = getCompletedTxSize(tx, candidates.subList(0, 30), true);
+        assertEquals(lowTxFeePerByte.multiply(size), fee);
+        assertTrue(Coin.valueOf(300_000).isGreaterThan(Coin.valueOf(250_000).add(fee)));
+        assertTrue(Coin.valueOf(290_000).isLessThan(Coin.valueOf(250_000).add(fee)));
+    }
+
+    @Test
+    public void testGetFeeWithAdditionalOutput() {
+        List<TransactionOutput> candidates = getUtxos(10, Coin.valueOf(10_000));
+        Transaction tx = new Transaction(params);
+        tx.addOutput(Coin.valueOf(20_000), new ECKey().toAddress(params));
+        final int opReturnOutputSize = TxSizeEstimator.getOutputSize(ScriptBuilder.createOpReturnScript(new byte[22]));
+
+        Coin fee = TxSizeEstimator.getFee(tx, coinSelector, candidates, txFeePerByte, true, 0);
+        Coin feeWithOpReturn = TxSizeEstimator.getFee(tx, coinSelector, candidates, txFeePerByte, true, opReturnOutputSize);
+
+        assertEquals(fee.add(txFeePerByte.multiply(opReturnOutputSize)), feeWithOpReturn);
+    }
+
+    // Run manually to compare with the former approach of serializing the completed tx in each round
+    @Ignore
+    @Test
+    public void testGetFeeWithManySmallUtxosBenchmark() {
+        List<TransactionOutput> candidates = getUtxos(4000, Coin.valueOf(5_000));
+        Transaction tx = new Transaction(params);
+        tx.addOutput(Coin.valueOf(4_000_000), new ECKey().toAddress(params));
+        final Coin lowTxFeePerByte = Coin.valueOf(10);
+        final int iterations = 100;
+
+        long ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            TxSizeEstimator.getFee(tx, coinSelector, candidates, lowTxFeePerByte, false, 0);
+        log.info("getFee: {} µs per tx", (System.nanoTime() - ts) / 1000 / iterations);
+
+        ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            CoinSelection selection = coinSelector.select(Coin.valueOf(4_000_000), candidates);
+            Transaction completedTx = new Transaction(params);
+            selection.gathered.forEach(completedTx::addInput);
+            completedTx.addOutput(Coin.valueOf(4_000_000), new ECKey().toAddress(params));
+            completedTx.bitcoinSerialize();
+        }
+        log.info("One round of selection and serialization: {} µs per tx", (System.nanoTime() - ts) / 1000 / iterations);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private List<TransactionOutput> getUtxos(int numOutputs, Coin value) {
+        Transaction fundingTx = new Transaction(params);
+        for (int i = 0; i < numOutputs; i++)
+            fundingTx.addOutput(value, key.toAddress(params));
+        return new ArrayList<>(fundingTx.getOutputs());
+    }
+
+    private int getCompletedTxSize(Transaction tx, List<TransactionOutput> inputs, boolean hasChange) {
+        Transaction completedTx = new Transaction(params);
+        inputs.forEach(completedTx::addInput);
+        tx.getOutputs().forEach(output -> completedTx.addOutput(output.getValue(), output.getScriptPubKey()));
+        if (hasChange)
+            completedTx.addOutput(Coin.valueOf(1), key.toAddress(params));
+        return TxSizeEstimator.getSize(completedTx);
+    }
+
+    private void sign(Transaction tx) {
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            TransactionOutput connectedOutput = tx.getInput(i).getConnectedOutput();
+            TransactionSignature signature = tx.calculateSignature(i, key, connectedOutput.getScriptPubKey(),
+                    Transaction.SigHash.ALL, false);
+            tx.getInput(i).setScriptSig(ScriptBuilder.createInputScript(signature, key));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import bisq.core.app.BisqEnvironment;
+
+import org.bitcoinj.core.AbstractBlockChain;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.MemoryBlockStore;
+import org.bitcoinj.testing.FakeTxBuilder;
+import org.bitcoinj.utils.Threading;
+import org.bitcoinj.wallet.Wallet;
+import org.bitcoinj.wallet.listeners.AbstractWalletEventListener;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.bitcoinj.core.TransactionConfidence.ConfidenceType.DEAD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class WalletAddressIndexTest {
+    // WalletService.getAddressFromOutput uses the parameters of the BisqEnvironment
+    private final NetworkParameters params = BisqEnvironment.getParameters();
+    private final WalletAddressIndex walletAddressIndex = new WalletAddressIndex();
+    private final List<Address> addresses = new ArrayList<>();
+    private Wallet wallet;
+    private BlockStore blockStore;
+
+    @Before
+    public void setup() throws Exception {
+        Context.propagate(new Context(params));
+        wallet = new Wallet(params);
+        wallet.setAcceptRiskyTransactions(true);
+        blockStore = new MemoryBlockStore(params);
+        // Same callbacks as WalletService.BisqWalletListener
+        wallet.addEventListener(new AbstractWalletEventListener() {
+            @Override
+            public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+                walletAddressIndex.onTransactionChanged(wallet, tx);
+            }
+
+            @Override
+            public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+                walletAddressIndex.onTransactionChanged(wallet, tx);
+            }
+
+            @Override
+            public void onReorganize(Wallet wallet) {
+                walletAddressIndex.invalidate();
+            }
+
+            @Override
+            public void onWalletChanged(Wallet wallet) {
+                walletAddressIndex.onWalletChanged();
+            }
+
+            @Override
+            public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+                walletAddressIndex.onTransactionChanged(wallet, tx);
+            }
+        }, Threading.SAME_THREAD);
+
+        for (int i = 0; i < 4; i++)
+            addresses.add(wallet.freshReceiveAddress());
+        // Not ours
+        addresses.add(new ECKey().toAddress(params));
+    }
+
+    @Test
+    public void testMatchesScanAfterWalletChanges() throws Exception {
+        // Built on the empty wallet, so the following txs are indexed from the wallet events
+        assertMatchesScan();
+        StoredBlock genesis = blockStore.getChainHead();
+
+        // Receive
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, addresses.get(0));
+        Transaction tx2 = FakeTxBuilder.createFakeTx(params, Coin.COIN, addresses.get(1));
+        wallet.receivePending(tx1, null);
+        wallet.receivePending(tx2, null);
+        assertMatchesScan();
+        StoredBlock block = FakeTxBuilder.createFakeBlock(blockStore, tx1, tx2).storedBlock;
+        wallet.receiveFromBlock(tx1, block, AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
+        wallet.receiveFromBlock(tx2, block, AbstractBlockChain.NewBlockType.BEST_CHAIN, 1);
+        wallet.notifyNewBestBlock(block);
+        assertMatchesScan();
+        assertEquals(Coin.COIN, walletAddressIndex.getBalance(wallet, addresses.get(0)));
+
+        // Spend with change to another address
+        Transaction spendingTx = new Transaction(params);
+        spendingTx.addInput(tx1.getOutput(0));
+        spendingTx.addOutput(Coin.CENT.multiply(90), addresses.get(4));
+        spendingTx.addOutput(Coin.CENT, addresses.get(2));
+        wallet.receivePending(spendingTx, null);
+        assertMatchesScan();
+        assertEquals(Coin.ZERO, walletAddressIndex.getBalance(wallet, addresses.get(0)));
+        assertTrue(walletAddressIndex.getTransactions(wallet, addresses.get(0)).contains(spendingTx));
+
+        // Reorg, tx1 and tx2 are pending again
+        blockStore.setChainHead(genesis);
+        StoredBlock otherBlock = FakeTxBuilder.createFakeBlock(blockStore).storedBlock;
+        wallet.reorganize(genesis, Lists.newArrayList(block), Lists.newArrayList(otherBlock));
+        assertMatchesScan();
+
+        // A confirmed double spend of tx1's output kills spendingTx
+        Transaction doubleSpendTx = new Transaction(params);
+        doubleSpendTx.addInput(tx1.getOutput(0));
+        doubleSpendTx.addOutput(Coin.CENT.multiply(90), addresses.get(4));
+        StoredBlock nextBlock = FakeTxBuilder.createFakeBlock(blockStore, tx1, doubleSpendTx).storedBlock;
+        wallet.receiveFromBlock(tx1, nextBlock, AbstractBlockChain.NewBlockType.BEST_CHAIN, 0);
+        wallet.receiveFromBlock(doubleSpendTx, nextBlock, AbstractBlockChain.NewBlockType.BEST_CHAIN, 1);
+        wallet.notifyNewBestBlock(nextBlock);
+        assertEquals(DEAD, spendingTx.getConfidence().getConfidenceType());
+        assertMatchesScan();
+        assertEquals(0, walletAddressIndex.getNumTxOutputs(wallet, addresses.get(2)));
+    }
+
+    @Test
+    public void testIndexSpendingTxWhenInputConnectsLater() throws Exception {
+        assertMatchesScan();
+
+        Transaction parentTx = FakeTxBuilder.createFakeTx(params, Coin.COIN, addresses.get(0));
+        // The input only references the hash, so it is not connected before the wallet knows parentTx
+        Transaction childTx = new Transaction(params);
+        childTx.addInput(new TransactionInput(params, childTx, new byte[]{},
+                new TransactionOutPoint(params, 0, parentTx.getHash())));
+        childTx.addOutput(Coin.CENT.multiply(90), addresses.get(1));
+        wallet.receivePending(childTx, null);
+        assertNull(childTx.getInput(0).getConnectedOutput());
+        assertMatchesScan();
+
+        wallet.receivePending(parentTx, null);
+        assertNotNull(childTx.getInput(0).getConnectedOutput());
+        assertTrue(walletAddressIndex.getTransactions(wallet, addresses.get(0)).contains(childTx));
+        assertMatchesScan();
+    }
+
+    // Compares with the former scan of all wallet transactions for each address. Run manually.
+    @Ignore
+    @Test
+    public void testQueryAllAddressesBenchmark() throws Exception {
+        final int numAddresses = 1000;
+        final int numTxs = 10_000;
+        addresses.clear();
+        for (int i = 0; i < numAddresses; i++)
+            addresses.add(wallet.freshReceiveAddress());
+        StoredBlock block = FakeTxBuilder.createFakeBlock(blockStore).storedBlock;
+        for (int i = 0; i < numTxs; i++) {
+            Transaction tx = FakeTxBuilder.createFakeTx(params, Coin.CENT, addresses.get(i % numAddresses));
+            wallet.receiveFromBlock(tx, block, AbstractBlockChain.NewBlockType.BEST_CHAIN, i);
+        }
+        wallet.notifyNewBestBlock(block);
+
+        long ts = System.currentTimeMillis();
+        for (Address address : addresses) {
+            scanTransactions(address);
+            scanNumTxOutputs(address);
+            scanBalance(address);
+        }
+        log.info("Scan of {} txs for {} addresses took {} ms", numTxs, numAddresses, System.currentTimeMillis() - ts);
+
+        ts = System.currentTimeMillis();
+        for (Address address : addresses) {
+            walletAddressIndex.getTransactions(wallet, address);
+            walletAddressIndex.getNumTxOutputs(wallet, address);
+            walletAddressIndex.getBalance(wallet, address);
+        }
+        log.info("Index of {} txs for {} addresses took {} ms including the build", numTxs, numAddresses,
+                System.currentTimeMillis() - ts);
+
+        ts = System.currentTimeMillis();
+        for (Address address : addresses) {
+            walletAddressIndex.getTransactions(wallet, address);
+            walletAddressIndex.getNumTxOutputs(wallet, address);
+            walletAddressIndex.getBalance(wallet, address);
+        }
+        log.info("Index of {} txs for {} addresses took {} ms", numTxs, numAddresses, System.currentTimeMillis() - ts);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Utils
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void assertMatchesScan() {
+        for (Address address : addresses) {
+            // WalletService.getConfidenceForAddress ignores dead transactions
+            Set<Transaction> transactions = walletAddressIndex.getTransactions(wallet, address).stream()
+                    .filter(tx -> tx.getConfidence().getConfidenceType() != DEAD)
+                    .collect(Collectors.toSet());
+            assertEquals(address.toString(), scanTransactions(address), transactions);
+            assertEquals(address.toString(), scanNumTxOutputs(address),
+                    walletAddressIndex.getNumTxOutputs(wallet, address));
+            assertEquals(address.toString(), scanBalance(address), walletAddressIndex.getBalance(wallet, address));
+        }
+    }
+
+    private Set<Transaction> scanTransactions(Address address) {
+        return wallet.getTransactions(false).stream()
+                .filter(tx -> tx.getOutputs().stream().anyMatch(output -> isToAddress(output, address)) ||
+                        tx.getInputs().stream()
+                                .map(TransactionInput::getConnectedOutput)
+                                .filter(Objects::nonNull)
+                                .anyMatch(output -> isToAddress(output, address)))
+                .collect(Collectors.toSet());
+    }
+
+    private int scanNumTxOutputs(Address address) {
+        return (int) wallet.getTransactions(false).stream()
+                .flatMap(tx -> tx.getOutputs().stream())
+                .filter(output -> isToAddress(output, address))
+                .count();
+    }
+
+    private Coin scanBalance(Address address) {
+        return Coin.valueOf(wallet.calculateAllSpendCandidates().stream()
+                .filter(output -> isToAddress(output, address))
+                .mapToLong(output -> output.getValue().value)
+                .sum());
+    }
+
+    private boolean isToAddress(TransactionOutput output, Address address) {
+        return address.equals(WalletService.getAddressFromOutput(output));
+    }
+}
@@ -17,10 +17,18 @@
 
 package bisq.core.dao.blockchain;
 
+import bisq.core.dao.blockchain.vo.BsqBlock;
+import bisq.core.dao.blockchain.vo.Tx;
+import bisq.core.dao.blockchain.vo.TxOutput;
+
 import bisq.common.proto.persistable.PersistenceProtoResolver;
 
 import java.io.File;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -30,6 +38,7 @@ import org.junit.runner.RunWith;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -73,4 +82,43 @@ public class BsqBlockChainTest {
         assertFalse(snapshotManager.isSnapshotHeight(102, 201, 10));
         assertFalse(snapshotManager.isSnapshotHeight(102, 199, 10));
     }
+
+    @Test
+    public void testGetClonedBlocksFrom() {
+        BsqBlockChain bsqBlockChain = getBsqBlockChain(100, 20);
+
+        List<BsqBlock> blocks = bsqBlockChain.getClonedBlocksFrom(110, 5, Integer.MAX_VALUE);
+        assertEquals(5, blocks.size());
+        assertEquals(110, blocks.get(0).getHeight());
+        assertEquals(114, blocks.get(4).getHeight());
+        assertEquals(bsqBlockChain.getBsqBlocks().get(10).getHash(), blocks.get(0).getHash());
+        assertNotSame(bsqBlockChain.getBsqBlocks().get(10), blocks.get(0));
+
+        // Request below the first block starts at the first block, request above the chain head is empty
+        assertEquals(100, bsqBlockChain.getClonedBlocksFrom(0, 5, Integer.MAX_VALUE).get(0).getHeight());
+        assertEquals(5, bsqBlockChain.getClonedBlocksFrom(115, 100, Integer.MAX_VALUE).size());
+        assertTrue(bsqBlockChain.getClonedBlocksFrom(120, 100, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testGetClonedBlocksFromWithSizeLimit() {
+        BsqBlockChain bsqBlockChain = getBsqBlockChain(100, 20);
+        int blockSize = bsqBlockChain.getBsqBlocks().get(0).toProtoMessage().getSerializedSize();
+
+        assertEquals(3, bsqBlockChain.getClonedBlocksFrom(100, 100, blockSize * 3 + blockSize / 2).size());
+        // We always deliver at least one block
+        assertEquals(1, bsqBlockChain.getClonedBlocksFrom(100, 100, 1).size());
+    }
+
+    private static BsqBlockChain getBsqBlockChain(int firstBlockHeight, int numBlocks) {
+        BsqBlockChain bsqBlockChain = new BsqBlockChain("genesisTxId", firstBlockHeight);
+        for (int height = firstBlockHeight; height < firstBlockHeight + numBlocks; height++) {
+            String txId = "tx" + height;
+            Tx tx = new Tx(txId, height, "blockHash" + height, 0, new ArrayList<>(),
+                    Collections.singletonList(new TxOutput(0, 100, txId, null, null, null, height)));
+            bsqBlockChain.addBlock(new BsqBlock(height, "blockHash" + height, "blockHash" + (height - 1),
+                    Collections.singletonList(tx)));
+        }
+        return bsqBlockChain;
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.blockchain;
+
+import bisq.core.dao.blockchain.vo.BsqBlock;
+
+import io.bisq.generated.protobuffer.PB;
+
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BsqBlockJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File storageDir;
+    private BsqBlockJournal journal;
+
+    @Before
+    public void setup() throws IOException {
+        storageDir = folder.newFolder();
+        journal = new BsqBlockJournal(storageDir);
+    }
+
+    @Test
+    public void testReadBlocksWithTruncatedLastRecord() throws IOException {
+        journal.startNewSegment(1);
+        appendBlocks(1, 3);
+        assertEquals(createBlocks(1, 3), journal.readBlocks());
+
+        // Incomplete write of block 3 at a crash
+        try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "BsqBlockJournal_1"), "rw")) {
+            file.setLength(file.length() - 2);
+        }
+        assertEquals(createBlocks(1, 2), journal.readBlocks());
+
+        // After the replay at startup we continue in a new segment
+        journal = new BsqBlockJournal(storageDir);
+        journal.startNewSegment(3);
+        appendBlocks(3, 4);
+        assertEquals(createBlocks(1, 4), journal.readBlocks());
+    }
+
+    @Test
+    public void testPromoteCheckpointDeletesCoveredSegments() {
+        journal.startNewSegment(1);
+        appendBlocks(1, 3);
+        journal.writePendingCheckpoint(PB.PersistableEnvelope.getDefaultInstance(), 3);
+        journal.startNewSegment(4);
+        appendBlocks(4, 5);
+        assertEquals(createBlocks(1, 5), journal.readBlocks());
+        assertFiles("BsqBlockChain_pending_3", "BsqBlockJournal_1", "BsqBlockJournal_4");
+
+        journal.promotePendingCheckpoint();
+        assertEquals(createBlocks(4, 5), journal.readBlocks());
+        assertFiles(BsqBlockJournal.CHECKPOINT_FILE_NAME, "BsqBlockJournal_4");
+    }
+
+    @Test
+    public void testDeletePendingCheckpointOfPreviousRun() {
+        journal.startNewSegment(1);
+        appendBlocks(1, 3);
+        journal.writePendingCheckpoint(PB.PersistableEnvelope.getDefaultInstance(), 3);
+        journal.readBlocks();
+
+        // Restart
+        journal = new BsqBlockJournal(storageDir);
+        journal.deletePendingCheckpoints();
+        journal.promotePendingCheckpoint();
+        assertEquals(createBlocks(1, 3), journal.readBlocks());
+        assertFiles("BsqBlockJournal_1");
+    }
+
+    @Test
+    public void testResetReplacesSegments() {
+        journal.startNewSegment(1);
+        appendBlocks(1, 3);
+        journal.startNewSegment(4);
+        appendBlocks(4, 5);
+
+        // Re-org rollback to height 2
+        journal.reset(createBlocks(1, 2), 1);
+        assertEquals(createBlocks(1, 2), journal.readBlocks());
+        assertFiles("BsqBlockJournal_1");
+
+        appendBlocks(3, 3);
+        assertEquals(createBlocks(1, 3), journal.readBlocks());
+    }
+
+    @Test
+    public void testNoAppendAfterFailureUntilNextCheckpoint() {
+        journal.startNewSegment(1);
+        appendBlocks(1, 1);
+        journal.startNewSegment(2);
+        // The segment file cannot be opened
+        assertTrue(new File(storageDir, "BsqBlockJournal_2").mkdir());
+        appendBlocks(2, 3);
+        assertEquals(createBlocks(1, 1), journal.readBlocks());
+
+        // The segment after the next checkpoint is written again, but not replayed after the gap
+        journal.writePendingCheckpoint(PB.PersistableEnvelope.getDefaultInstance(), 3);
+        journal.startNewSegment(4);
+        appendBlocks(4, 5);
+        assertEquals(createBlocks(1, 1), journal.readBlocks());
+
+        // Once the checkpoint is active the journal is complete again
+        journal.promotePendingCheckpoint();
+        assertEquals(createBlocks(4, 5), journal.readBlocks());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Utils
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void appendBlocks(int fromHeight, int toHeight) {
+        createBlocks(fromHeight, toHeight).forEach(journal::append);
+    }
+
+    private List<BsqBlock> createBlocks(int fromHeight, int toHeight) {
+        List<BsqBlock> bsqBlocks = new ArrayList<>();
+        for (int height = fromHeight; height <= toHeight; height++)
+            bsqBlocks.add(new BsqBlock(height, "hash" + height, "hash" + (height - 1), new ArrayList<>()));
+        return bsqBlocks;
+    }
+
+    private void assertFiles(String... fileNames) {
+        String[] files = storageDir.list();
+        Arrays.sort(files);
+        List<String> expected = Lists.newArrayList(fileNames);
+        expected.sort(String::compareTo);
+        assertEquals(expected, Arrays.asList(files));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.blockchain;
+
+import bisq.core.dao.blockchain.vo.TxOutput;
+import bisq.core.dao.blockchain.vo.util.TxIdIndexTuple;
+import bisq.core.dao.blockchain.vo.util.TxOutputKey;
+
+import org.bitcoinj.core.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UnspentTxOutputStoreTest {
+    private static final String TX_ID = "e5c8313c4144d219b5f6b2dacf1d36f2d43a9039bb2fcd1bd57f8352a9c9809a";
+
+    @Test
+    public void testAddGetRemove() {
+        UnspentTxOutputStore store = new UnspentTxOutputStore();
+        TxOutput txOutput0 = new TxOutput(0, 100, TX_ID, null, null, null, 1);
+        TxOutput txOutput1 = new TxOutput(1, 200, TX_ID, null, null, null, 1);
+        store.add(txOutput0);
+        store.add(txOutput1);
+
+        assertEquals(2, store.size());
+        assertEquals(txOutput0, store.get(TX_ID, 0).get());
+        assertEquals(txOutput1, store.get(TxOutputKey.from(new TxIdIndexTuple(TX_ID, 1))).get());
+        assertFalse(store.get(TX_ID, 2).isPresent());
+
+        store.remove(txOutput0);
+        assertFalse(store.contains(TX_ID, 0));
+        assertTrue(store.contains(TX_ID, 1));
+    }
+
+    @Test
+    public void testNonHexTxId() {
+        UnspentTxOutputStore store = new UnspentTxOutputStore();
+        store.add(new TxOutput(0, 100, "tx1", null, null, null, 1));
+        assertTrue(store.contains("tx1", 0));
+        assertFalse(store.contains("tx1", 1));
+        assertFalse(store.contains("tx2", 0));
+    }
+
+    @Test
+    public void testNonHexTxIdDoesNotCollideWithHexTxId() {
+        // 32 chars, so the UTF-8 bytes have the length of a decoded txId
+        String nonHexTxId = "abcdefghijklmnopqrstuvwxyz012345";
+        String hexTxId = Utils.HEX.encode(nonHexTxId.getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(new TxOutputKey(hexTxId, 0), new TxOutputKey(nonHexTxId, 0));
+        assertEquals(0, new TxOutputKey(nonHexTxId, 0).getIndex());
+
+        UnspentTxOutputStore store = new UnspentTxOutputStore();
+        store.add(new TxOutput(0, 100, hexTxId, null, null, null, 1));
+        assertFalse(store.contains(nonHexTxId, 0));
+        store.add(new TxOutput(0, 200, nonHexTxId, null, null, null, 1));
+        assertEquals(2, store.size());
+        assertEquals(100, store.get(hexTxId, 0).get().getValue());
+        assertEquals(200, store.get(nonHexTxId, 0).get().getValue());
+    }
+
+    @Test
+    public void testProtoRoundTrip() {
+        UnspentTxOutputStore store = new UnspentTxOutputStore();
+        store.add(new TxOutput(3, 100, TX_ID, null, null, null, 1));
+        UnspentTxOutputStore restored = UnspentTxOutputStore.fromProto(store.toProtoMap());
+        assertEquals(1, restored.size());
+        assertTrue(restored.contains(TX_ID, 3));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node;
+
+import bisq.core.dao.blockchain.vo.Tx;
+import bisq.core.dao.blockchain.vo.TxInput;
+import bisq.core.dao.blockchain.vo.TxOutput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@Slf4j
+public class BsqParserTest {
+
+    @Test
+    public void testSortByIntraBlockDependency() {
+        // tx3 spends tx1, tx1 spends tx4, tx2 and tx0 are independent
+        List<Tx> txs = asList(getTx("tx0", "outside"),
+                getTx("tx1", "tx4"),
+                getTx("tx2", "outside"),
+                getTx("tx3", "tx1"),
+                getTx("tx4", "outside"));
+
+        List<Tx> sorted = BsqParser.getTxsSortedByIntraBlockDependency(txs, 1);
+
+        assertEquals(asList("tx0", "tx2", "tx4", "tx1", "tx3"), getIds(sorted));
+    }
+
+    @Test
+    public void testTxWithMultipleIntraBlockInputs() {
+        // tx0 spends tx1 and tx2, tx2 spends tx1
+        List<Tx> txs = asList(getTx("tx0", "tx1", "tx2"),
+                getTx("tx1", "outside"),
+                getTx("tx2", "tx1"));
+
+        List<Tx> sorted = BsqParser.getTxsSortedByIntraBlockDependency(txs, 1);
+
+        assertEquals(asList("tx1", "tx2", "tx0"), getIds(sorted));
+    }
+
+    // Worst case of a full block where each tx spends the previous one, in reverse order. That caused a
+    // StackOverflowError with the former recursive resolution.
+    @Test
+    public void testLongChainInReverseOrder() {
+        int numTxs = 6000;
+        List<Tx> txs = new ArrayList<>();
+        for (int i = 0; i < numTxs; i++)
+            txs.add(getTx("tx" + i, i == 0 ? "outside" : "tx" + (i - 1)));
+        Collections.reverse(txs);
+
+        long ts = System.currentTimeMillis();
+        List<Tx> sorted = BsqParser.getTxsSortedByIntraBlockDependency(txs, 1);
+        long duration = System.currentTimeMillis() - ts;
+
+        assertEquals(numTxs, sorted.size());
+        for (int i = 0; i < numTxs; i++)
+            assertEquals("tx" + i, sorted.get(i).getId());
+        log.info("Sorting a chain of {} txs took {} ms", numTxs, duration);
+    }
+
+    private static Tx getTx(String txId, String... spentTxIds) {
+        List<TxInput> inputs = new ArrayList<>();
+        for (String spentTxId : spentTxIds)
+            inputs.add(new TxInput(spentTxId, 0));
+        return new Tx(txId, 1, "blockHash", 0, inputs,
+                Collections.singletonList(new TxOutput(0, 100, txId, null, null, null, 1)));
+    }
+
+    private static List<String> getIds(List<Tx> txs) {
+        return txs.stream().map(Tx::getId).collect(Collectors.toList());
+    }
+}
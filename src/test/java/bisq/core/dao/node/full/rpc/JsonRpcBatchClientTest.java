@@ -0,0 +1,107 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.rpc;
+
+import bisq.core.dao.blockchain.exceptions.BsqBlockchainException;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class JsonRpcBatchClientTest {
+    private static final int TXS_PER_BLOCK = 500;
+
+    private StubBitcoindServer server;
+    private CloseableHttpClient httpClient;
+    private JsonRpcBatchClient batchClient;
+
+    @Before
+    public void setup() throws Exception {
+        server = new StubBitcoindServer(TXS_PER_BLOCK, 100, 1);
+        server.start();
+        httpClient = HttpClients.createDefault();
+        batchClient = new JsonRpcBatchClient(httpClient, "http://127.0.0.1:" + server.getPort(), "user", "password");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        httpClient.close();
+        server.stop();
+    }
+
+    @Test
+    public void testBatchResultsInRequestOrder() throws BsqBlockchainException {
+        List<List<Object>> paramsList = new ArrayList<>();
+        for (int i = 0; i < TXS_PER_BLOCK; i++)
+            paramsList.add(Arrays.asList(StubBitcoindServer.getTxId(10, i), 1));
+
+        List<JsonNode> results = batchClient.call("getrawtransaction", paramsList);
+
+        assertEquals(TXS_PER_BLOCK, results.size());
+        for (int i = 0; i < TXS_PER_BLOCK; i++)
+            assertEquals(StubBitcoindServer.getTxId(10, i), results.get(i).get("txid").asText());
+    }
+
+    @Test
+    public void testErrorInBatch() throws BsqBlockchainException {
+        try {
+            batchClient.call("unknownmethod", Collections.singletonList(Collections.emptyList()));
+            fail("Expected JsonRpcException");
+        } catch (JsonRpcException e) {
+            assertEquals("unknownmethod", e.getMethod());
+            assertEquals(-32601, e.getCode());
+        }
+    }
+
+    // Compares one batch call with single calls of getrawtransaction. Run manually.
+    @Ignore
+    @Test
+    public void testBatchVsSingleThroughput() throws BsqBlockchainException {
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < TXS_PER_BLOCK; i++)
+            batchClient.call("getrawtransaction", Collections.singletonList(Arrays.asList(StubBitcoindServer.getTxId(10, i), 1)));
+        long singleDuration = System.currentTimeMillis() - ts;
+
+        List<List<Object>> paramsList = new ArrayList<>();
+        for (int i = 0; i < TXS_PER_BLOCK; i++)
+            paramsList.add(Arrays.asList(StubBitcoindServer.getTxId(10, i), 1));
+        ts = System.currentTimeMillis();
+        batchClient.call("getrawtransaction", paramsList);
+        long batchDuration = System.currentTimeMillis() - ts;
+
+        log.info("Requesting {} txs took {} ms with single calls and {} ms with one batch call",
+                TXS_PER_BLOCK, singleDuration, batchDuration);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.rpc;
+
+import bisq.core.dao.blockchain.exceptions.BsqBlockchainException;
+import bisq.core.dao.blockchain.vo.Tx;
+
+import bisq.common.util.Tuple2;
+
+import com.neemre.btcdcli4j.core.client.BtcdClient;
+import com.neemre.btcdcli4j.core.domain.Block;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.integration.junit4.JMockit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+@RunWith(JMockit.class)
+public class RpcServiceTest {
+    private static final int CHAIN_HEIGHT = 100;
+    private static final int TXS_PER_BLOCK = 2000;
+    private static final int BLOCK_HEIGHT = 10;
+
+    private StubBitcoindServer server;
+    private CloseableHttpClient httpClient;
+    private RpcService rpcService;
+
+    @Before
+    public void setup() throws Exception {
+        server = new StubBitcoindServer(TXS_PER_BLOCK, CHAIN_HEIGHT, 0);
+        server.start();
+        httpClient = HttpClients.createDefault();
+        rpcService = new RpcService("user", "password", String.valueOf(server.getPort()), "", true, false);
+        rpcService.setBatchClient(new JsonRpcBatchClient(httpClient, "http://127.0.0.1:" + server.getPort(), "user", "password"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        rpcService.shutDown();
+        httpClient.close();
+        server.stop();
+    }
+
+    @Test
+    public void testVerboseBlock() throws BsqBlockchainException {
+        Tuple2<Block, List<Tx>> blockWithTxs = rpcService.requestVerboseBlock(BLOCK_HEIGHT);
+        Block block = blockWithTxs.first;
+        List<Tx> txs = blockWithTxs.second;
+
+        assertEquals(BLOCK_HEIGHT, (int) block.getHeight());
+        assertEquals(StubBitcoindServer.getBlockHash(BLOCK_HEIGHT), block.getHash());
+        assertEquals(StubBitcoindServer.getBlockHash(BLOCK_HEIGHT - 1), block.getPreviousBlockHash());
+        assertEquals(TXS_PER_BLOCK, block.getTx().size());
+        assertEquals(TXS_PER_BLOCK, txs.size());
+
+        Tx tx = txs.get(1);
+        assertEquals(StubBitcoindServer.getTxId(BLOCK_HEIGHT, 1), tx.getId());
+        assertEquals(block.getHash(), tx.getBlockHash());
+        assertEquals(block.getTime() * 1000, tx.getTime());
+        assertEquals(StubBitcoindServer.getTxId(BLOCK_HEIGHT, 0), tx.getInputs().get(0).getTxId());
+        assertEquals(2, tx.getOutputs().size());
+        assertEquals(100000, tx.getOutputs().get(0).getValue());
+    }
+
+    @Test
+    public void testVerboseBlockEqualsBatchedTxs() throws BsqBlockchainException {
+        List<Tx> verboseTxs = rpcService.requestVerboseBlock(BLOCK_HEIGHT).second;
+        List<String> txIds = new ArrayList<>();
+        verboseTxs.forEach(tx -> txIds.add(tx.getId()));
+        List<Tx> batchedTxs = rpcService.requestTxs(txIds, BLOCK_HEIGHT);
+        assertEquals(batchedTxs, verboseTxs);
+    }
+
+    @Test
+    public void testFallbackIfVerbosityNotSupported(@Injectable BtcdClient client) throws Exception {
+        Tuple2<Block, List<Tx>> verboseBlockWithTxs = rpcService.requestVerboseBlock(BLOCK_HEIGHT);
+        new Expectations() {{
+            client.getBlockHash(BLOCK_HEIGHT);
+            result = StubBitcoindServer.getBlockHash(BLOCK_HEIGHT);
+            client.getBlock(StubBitcoindServer.getBlockHash(BLOCK_HEIGHT));
+            result = verboseBlockWithTxs.first;
+        }};
+        rpcService.setClient(client);
+        server.setVerboseBlocksSupported(false);
+
+        Tuple2<Block, List<Tx>> blockWithTxs = rpcService.requestBlockWithTxs(BLOCK_HEIGHT).get();
+
+        assertFalse(rpcService.isVerboseBlocks());
+        assertEquals(verboseBlockWithTxs.second, blockWithTxs.second);
+    }
+
+    @Test
+    public void testNoFallbackAtOtherErrors() throws InterruptedException {
+        try {
+            rpcService.requestBlockWithTxs(CHAIN_HEIGHT + 1).get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JsonRpcException);
+            assertFalse(RpcService.isVerbosityNotSupported((JsonRpcException) e.getCause()));
+        }
+        assertTrue(rpcService.isVerboseBlocks());
+
+        // Connection errors don't disable verbose blocks either
+        rpcService.setBatchClient(new JsonRpcBatchClient(httpClient, "http://127.0.0.1:1", "user", "password"));
+        try {
+            rpcService.requestBlockWithTxs(BLOCK_HEIGHT).get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertFalse(e.getCause() instanceof JsonRpcException);
+        }
+        assertTrue(rpcService.isVerboseBlocks());
+    }
+
+    // Compares the batched getrawtransaction calls with getblock and verbosity 2. Run manually.
+    @Ignore
+    @Test
+    public void testVerboseBlockThroughput() throws BsqBlockchainException {
+        List<String> txIds = new ArrayList<>();
+        for (int i = 0; i < TXS_PER_BLOCK; i++)
+            txIds.add(StubBitcoindServer.getTxId(BLOCK_HEIGHT, i));
+
+        // Warm up
+        rpcService.requestVerboseBlock(BLOCK_HEIGHT);
+        rpcService.requestTxs(txIds, BLOCK_HEIGHT);
+
+        int iterations = 5;
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++)
+            rpcService.requestTxs(txIds, BLOCK_HEIGHT);
+        long batchedDuration = (System.currentTimeMillis() - ts) / iterations;
+
+        ts = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++)
+            rpcService.requestVerboseBlock(BLOCK_HEIGHT);
+        long verboseDuration = (System.currentTimeMillis() - ts) / iterations;
+
+        log.info("Requesting a block with {} txs took {} ms with batched getrawtransaction calls and {} ms with a verbose block",
+                TXS_PER_BLOCK, batchedDuration, verboseDuration);
+    }
+}
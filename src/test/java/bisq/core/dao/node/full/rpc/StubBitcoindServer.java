@@ -0,0 +1,211 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.rpc;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.InetSocketAddress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal bitcoind JSON-RPC stub serving synthetic blocks and txs, for measuring the rpc throughput offline.
+ * Supports single and batch requests of getblockcount, getblockhash, getblock (verbosity 1 and 2) and
+ * getrawtransaction.
+ * An optional latency per http request simulates a remote or busy node.
+ */
+public class StubBitcoindServer {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final int txsPerBlock;
+    private final int chainHeight;
+    private final long latencyMs;
+    // If false getblock fails for verbosity 2 like Bitcoin Core before 0.15
+    private volatile boolean verboseBlocksSupported = true;
+
+    public StubBitcoindServer(int txsPerBlock, int chainHeight, long latencyMs) throws IOException {
+        this.txsPerBlock = txsPerBlock;
+        this.chainHeight = chainHeight;
+        this.latencyMs = latencyMs;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public void setVerboseBlocksSupported(boolean verboseBlocksSupported) {
+        this.verboseBlocksSupported = verboseBlocksSupported;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static String getBlockHash(int height) {
+        return String.format("%064x", height);
+    }
+
+    public static String getTxId(int height, int index) {
+        return String.format("%032x%032x", height, index);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+        JsonNode response;
+        if (request.isArray()) {
+            ArrayNode array = MAPPER.createArrayNode();
+            request.forEach(call -> array.add(getResponse(call)));
+            response = array;
+        } else {
+            response = getResponse(request);
+        }
+
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException ignore) {
+            }
+        }
+
+        byte[] bytes = MAPPER.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private ObjectNode getResponse(JsonNode call) {
+        ObjectNode response = MAPPER.createObjectNode();
+        response.set("id", call.get("id"));
+        response.putNull("error");
+        JsonNode params = call.get("params");
+        switch (call.get("method").asText()) {
+            case "getblockcount":
+                response.put("result", chainHeight);
+                break;
+            case "getblockhash":
+                if (params.get(0).asInt() > chainHeight) {
+                    setError(response, -8, "Block height out of range");
+                    break;
+                }
+                response.put("result", getBlockHash(params.get(0).asInt()));
+                break;
+            case "getblock":
+                if (params.path(1).asInt(1) == 2 && !verboseBlocksSupported) {
+                    setError(response, -32700, "JSON value is not a boolean as expected");
+                    break;
+                }
+                response.set("result", getBlock(Integer.parseInt(params.get(0).asText(), 16), params.path(1).asInt(1)));
+                break;
+            case "getrawtransaction":
+                response.set("result", getRawTransaction(params.get(0).asText()));
+                break;
+            default:
+                setError(response, -32601, "Method not found");
+        }
+        return response;
+    }
+
+    private void setError(ObjectNode response, int code, String message) {
+        ObjectNode error = response.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+    }
+
+    // With verbosity 2 the txs are included as objects like Bitcoin Core does
+    private ObjectNode getBlock(int height, int verbosity) {
+        ObjectNode block = MAPPER.createObjectNode();
+        block.put("hash", getBlockHash(height));
+        block.put("confirmations", chainHeight - height + 1);
+        block.put("size", 1000);
+        block.put("height", height);
+        block.put("version", 1);
+        block.put("merkleroot", getBlockHash(height));
+        ArrayNode tx = block.putArray("tx");
+        for (int i = 0; i < txsPerBlock; i++) {
+            if (verbosity == 2) {
+                ObjectNode rawTransaction = getRawTransaction(getTxId(height, i));
+                rawTransaction.remove(Arrays.asList("blockhash", "confirmations", "time", "blocktime"));
+                tx.add(rawTransaction);
+            } else {
+                tx.add(getTxId(height, i));
+            }
+        }
+        block.put("time", 1500000000L + height * 600L);
+        block.put("nonce", 0);
+        block.put("bits", "1d00ffff");
+        block.put("difficulty", 1);
+        block.put("chainwork", getBlockHash(height));
+        block.put("previousblockhash", getBlockHash(height - 1));
+        if (height < chainHeight)
+            block.put("nextblockhash", getBlockHash(height + 1));
+        return block;
+    }
+
+    private ObjectNode getRawTransaction(String txId) {
+        int height = Integer.parseInt(txId.substring(0, 32), 16);
+        int index = Integer.parseInt(txId.substring(32), 16);
+        ObjectNode tx = MAPPER.createObjectNode();
+        tx.put("hex", "");
+        tx.put("txid", txId);
+        tx.put("version", 1);
+        tx.put("locktime", 0);
+        ArrayNode vin = tx.putArray("vin");
+        ObjectNode input = vin.addObject();
+        // Each tx spends the first output of the previous tx in the same block to produce intra block dependencies
+        input.put("txid", index > 0 ? getTxId(height, index - 1) : getTxId(height - 1, 0));
+        input.put("vout", 0);
+        input.put("sequence", 4294967295L);
+        ArrayNode vout = tx.putArray("vout");
+        for (int n = 0; n < 2; n++) {
+            ObjectNode output = vout.addObject();
+            output.put("value", 0.001);
+            output.put("n", n);
+            ObjectNode scriptPubKey = output.putObject("scriptPubKey");
+            scriptPubKey.put("asm", "OP_DUP OP_HASH160 0000000000000000000000000000000000000000 OP_EQUALVERIFY OP_CHECKSIG");
+            scriptPubKey.put("hex", "76a914000000000000000000000000000000000000000088ac");
+            scriptPubKey.put("reqSigs", 1);
+            scriptPubKey.put("type", "pubkeyhash");
+            scriptPubKey.putArray("addresses").add("1111111111111111111114oLvT2");
+        }
+        tx.put("blockhash", getBlockHash(height));
+        tx.put("confirmations", chainHeight - height + 1);
+        tx.put("time", 1500000000L + height * 600L);
+        tx.put("blocktime", 1500000000L + height * 600L);
+        return tx;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(OfferPayload.class)
+public class OfferBookIndexTest {
+
+    @Test
+    public void testAddAndQuery() {
+        OfferBookIndex index = new OfferBookIndex(Offer::new);
+        index.add(getOfferPayload("id1", "EUR", OfferPayload.Direction.BUY, "SEPA"));
+        index.add(getOfferPayload("id2", "EUR", OfferPayload.Direction.SELL, "SEPA"));
+        index.add(getOfferPayload("id3", "USD", OfferPayload.Direction.BUY, "ZELLE"));
+
+        assertEquals(3, index.getOffers().size());
+        assertEquals(2, index.getOffers("EUR").size());
+        assertEquals("id2", index.getOffers("EUR", OfferPayload.Direction.SELL).get(0).getId());
+        assertTrue(index.getOffers("USD", OfferPayload.Direction.SELL).isEmpty());
+        assertEquals(2, index.getOffersByPaymentMethodId("SEPA").size());
+        assertTrue(index.getOffer("id3").isPresent());
+    }
+
+    @Test
+    public void testSameOfferForSamePayload() {
+        OfferBookIndex index = new OfferBookIndex(Offer::new);
+        OfferPayload payload = getOfferPayload("id1", "EUR", OfferPayload.Direction.BUY, "SEPA");
+        Offer offer = index.add(payload);
+        assertSame(offer, index.add(payload));
+        assertSame(offer, index.getOffers().get(0));
+        assertSame(offer, index.remove(payload));
+        assertEquals(0, index.size());
+        assertTrue(index.getOffers("EUR").isEmpty());
+        assertTrue(index.getOffersByPaymentMethodId("SEPA").isEmpty());
+    }
+
+    @Test
+    public void testReplacedPayload() {
+        OfferBookIndex index = new OfferBookIndex(Offer::new);
+        OfferPayload oldPayload = getOfferPayload("id1", "EUR", OfferPayload.Direction.BUY, "SEPA");
+        OfferPayload newPayload = getOfferPayload("id1", "USD", OfferPayload.Direction.BUY, "SEPA");
+        index.add(oldPayload);
+        Offer offer = index.add(newPayload);
+        assertTrue(index.getOffers("EUR").isEmpty());
+        assertEquals(1, index.getOffers("USD").size());
+
+        // A late remove of the old payload does not remove the new one
+        assertNotSame(offer, index.remove(oldPayload));
+        assertEquals(1, index.size());
+        assertFalse(index.getOffers("USD").isEmpty());
+    }
+
+    private static OfferPayload getOfferPayload(String id, String counterCurrencyCode, OfferPayload.Direction direction,
+                                                String paymentMethodId) {
+        OfferPayload payload = mock(OfferPayload.class);
+        when(payload.getId()).thenReturn(id);
+        when(payload.getBaseCurrencyCode()).thenReturn("BTC");
+        when(payload.getCounterCurrencyCode()).thenReturn(counterCurrencyCode);
+        when(payload.getDirection()).thenReturn(direction);
+        when(payload.getPaymentMethodId()).thenReturn(paymentMethodId);
+        return payload;
+    }
+}
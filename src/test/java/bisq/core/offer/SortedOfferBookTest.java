@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import java.time.Instant;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({OfferPayload.class, PriceFeedService.class})
+public class SortedOfferBookTest {
+    private PriceFeedService priceFeedService;
+    private SortedOfferBook sortedOfferBook;
+
+    @Before
+    public void setup() {
+        priceFeedService = mock(PriceFeedService.class);
+        sortedOfferBook = new SortedOfferBook();
+    }
+
+    @Test
+    public void testMergesFixedAndMarketBasedOffers() {
+        setMarketPrice(10000);
+        sortedOfferBook.add(getFixedPriceOffer("fixed1", 9000_0000));
+        sortedOfferBook.add(getFixedPriceOffer("fixed2", 10500_0000));
+        sortedOfferBook.add(getMarketBasedOffer("market1", 0.02));  // 10200
+        sortedOfferBook.add(getMarketBasedOffer("market2", -0.02)); // 9800
+
+        assertEquals("fixed1,market2,market1,fixed2", getSortedIds());
+    }
+
+    @Test
+    public void testRepricingOnMarketPriceChange() {
+        setMarketPrice(10000);
+        sortedOfferBook.add(getFixedPriceOffer("fixed1", 10500_0000));
+        sortedOfferBook.add(getMarketBasedOffer("market1", 0.02));
+        assertEquals("market1,fixed1", getSortedIds());
+
+        // Cached price is used until we get notified
+        setMarketPrice(11000);
+        assertEquals("market1,fixed1", getSortedIds());
+
+        sortedOfferBook.onMarketPriceChanged();
+        assertEquals("fixed1,market1", getSortedIds());
+    }
+
+    @Test
+    public void testRemoveAndMissingMarketPrice() {
+        Offer fixed = getFixedPriceOffer("fixed1", 10500_0000);
+        sortedOfferBook.add(fixed);
+        sortedOfferBook.add(getMarketBasedOffer("market1", 0.02));
+        assertEquals("fixed1,market1", getSortedIds());
+
+        sortedOfferBook.remove(fixed);
+        assertEquals("market1", getSortedIds());
+    }
+
+    private String getSortedIds() {
+        List<Offer> offers = sortedOfferBook.getOffersSortedByPrice("EUR", OfferPayload.Direction.SELL);
+        return offers.stream().map(Offer::getId).collect(Collectors.joining(","));
+    }
+
+    private void setMarketPrice(double price) {
+        when(priceFeedService.getMarketPrice("EUR"))
+                .thenReturn(new MarketPrice("EUR", price, Instant.now().getEpochSecond(), true));
+    }
+
+    private Offer getFixedPriceOffer(String id, long price) {
+        OfferPayload payload = getOfferPayload(id);
+        when(payload.getPrice()).thenReturn(price);
+        return getOffer(payload);
+    }
+
+    private Offer getMarketBasedOffer(String id, double marketPriceMargin) {
+        OfferPayload payload = getOfferPayload(id);
+        when(payload.isUseMarketBasedPrice()).thenReturn(true);
+        when(payload.getMarketPriceMargin()).thenReturn(marketPriceMargin);
+        return getOffer(payload);
+    }
+
+    private Offer getOffer(OfferPayload payload) {
+        Offer offer = new Offer(payload);
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
+
+    private static OfferPayload getOfferPayload(String id) {
+        OfferPayload payload = mock(OfferPayload.class);
+        when(payload.getId()).thenReturn(id);
+        when(payload.getBaseCurrencyCode()).thenReturn("BTC");
+        when(payload.getCounterCurrencyCode()).thenReturn("EUR");
+        when(payload.getDirection()).thenReturn(OfferPayload.Direction.SELL);
+        return payload;
+    }
+}
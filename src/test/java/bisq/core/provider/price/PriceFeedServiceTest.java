@@ -0,0 +1,243 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import bisq.core.app.BisqEnvironment;
+import bisq.core.monetary.Price;
+import bisq.core.provider.ProvidersRepository;
+import bisq.core.trade.statistics.TradeStatistics2;
+import bisq.core.user.Preferences;
+
+import bisq.common.util.Tuple2;
+
+import com.sun.net.httpserver.HttpServer;
+
+import com.google.common.collect.Lists;
+
+import java.nio.charset.StandardCharsets;
+
+import java.net.InetSocketAddress;
+
+import java.time.Instant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.integration.junit4.JMockit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JMockit.class)
+public class PriceFeedServiceTest {
+    @Injectable
+    private ProvidersRepository providersRepository;
+    @Injectable
+    private Preferences preferences;
+    private PriceFeedService priceFeedService;
+    private final List<MarketPrice> usdPrices = new ArrayList<>();
+    private final List<MarketPrice> eurPrices = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        new Expectations() {{
+            providersRepository.getBaseUrl();
+            result = "http://provider/";
+            minTimes = 0;
+        }};
+        priceFeedService = new PriceFeedService(null, providersRepository, preferences);
+        priceFeedService.addMarketPriceListener("USD", usdPrices::add);
+        priceFeedService.addMarketPriceListener("EUR", eurPrices::add);
+    }
+
+    @Test
+    public void testListenerOnlyCalledIfPriceChanged() {
+        applyExternalPrice("USD", 10000);
+        assertEquals(1, usdPrices.size());
+        assertEquals(10000, usdPrices.get(0).getPrice(), 0);
+        assertTrue(eurPrices.isEmpty());
+
+        applyExternalPrice("USD", 10000);
+        assertEquals(1, usdPrices.size());
+
+        applyExternalPrice("USD", 10001);
+        assertEquals(2, usdPrices.size());
+        assertEquals(10001, usdPrices.get(1).getPrice(), 0);
+
+        PriceFeedService.MarketPriceListener listener = marketPrice -> usdPrices.add(marketPrice);
+        priceFeedService.addMarketPriceListener("USD", listener);
+        priceFeedService.removeMarketPriceListener("USD", listener);
+        applyExternalPrice("USD", 10002);
+        // Only called once by the listener added at setup
+        assertEquals(3, usdPrices.size());
+    }
+
+    @Test
+    public void testListenerCalledIfSourceChanged(@Injectable TradeStatistics2 eurTradeStatistics) {
+        new Expectations() {{
+            eurTradeStatistics.getCurrencyCode();
+            result = "EUR";
+            minTimes = 0;
+            eurTradeStatistics.getTradePrice();
+            result = Price.valueOf("EUR", 90_000_000L);
+            minTimes = 0;
+        }};
+        priceFeedService.applyLatestBisqMarketPrice(Lists.newArrayList(eurTradeStatistics));
+        assertEquals(1, eurPrices.size());
+        assertEquals(9000, eurPrices.get(0).getPrice(), 0);
+        assertFalse(eurPrices.get(0).isExternallyProvidedPrice());
+
+        // Same price from the provider
+        applyExternalPrice("EUR", 9000);
+        assertEquals(2, eurPrices.size());
+        assertTrue(eurPrices.get(1).isExternallyProvidedPrice());
+    }
+
+    @Test
+    public void testBisqPriceDoesNotOverrideExternalPrice(@Injectable TradeStatistics2 usdTradeStatistics) {
+        new Expectations() {{
+            usdTradeStatistics.getCurrencyCode();
+            result = "USD";
+            minTimes = 0;
+            usdTradeStatistics.getTradePrice();
+            result = Price.valueOf("USD", 50_000_000L);
+            minTimes = 0;
+        }};
+        applyExternalPrice("USD", 10000);
+        priceFeedService.applyLatestBisqMarketPrice(Lists.newArrayList(usdTradeStatistics));
+
+        assertEquals(1, usdPrices.size());
+        MarketPrice marketPrice = priceFeedService.getMarketPrice("USD");
+        assertEquals(10000, marketPrice.getPrice(), 0);
+        assertTrue(marketPrice.isExternallyProvidedPrice());
+    }
+
+    @Test
+    public void testHedgedRequestOvertakesSlowPrimary(@Injectable BisqEnvironment bisqEnvironment) throws Exception {
+        StubPriceServer slowServer = new StubPriceServer(6000, 10000);
+        StubPriceServer fastServer = new StubPriceServer(0, 10001);
+        try {
+            ProvidersRepository repository = new ProvidersRepository(bisqEnvironment,
+                    slowServer.getBaseUrl() + "," + fastServer.getBaseUrl(), false);
+            PriceFeedService service = new PriceFeedService(null, repository, preferences);
+            // The slow provider is usually fast, so the hedged request is sent after MIN_HEDGE_DELAY_MS
+            for (int i = 0; i < 5; i++)
+                service.getLatencyTracker().add(slowServer.getBaseUrl(), 100);
+            assertEquals(PriceProviderLatencyTracker.MIN_HEDGE_DELAY_MS,
+                    service.getLatencyTracker().getHedgeDelayMs(slowServer.getBaseUrl()));
+
+            service.setCurrencyCode("USD");
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicReference<Double> price = new AtomicReference<>();
+            final long ts = System.currentTimeMillis();
+            service.requestPriceFeed(result -> {
+                price.set(result);
+                latch.countDown();
+            }, (errorMessage, throwable) -> {
+            });
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(System.currentTimeMillis() - ts >= PriceProviderLatencyTracker.MIN_HEDGE_DELAY_MS);
+            assertEquals(10001, price.get(), 0);
+            assertEquals(fastServer.getBaseUrl(), service.getProviderNodeAddress());
+            assertEquals(1, slowServer.getNumRequests());
+            assertEquals(1, fastServer.getNumRequests());
+
+            // The late response of the slow provider is ignored but recorded under its own base url
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (service.getLatencyTracker().getNumSamples(slowServer.getBaseUrl()) < 6 &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(6, service.getLatencyTracker().getNumSamples(slowServer.getBaseUrl()));
+            assertTrue(service.getLatencyTracker().getPercentile(slowServer.getBaseUrl(), 1) >= 6000);
+            assertEquals(1, service.getLatencyTracker().getNumSamples(fastServer.getBaseUrl()));
+            assertTrue(service.getLatencyTracker().getPercentile(fastServer.getBaseUrl(), 1) < 6000);
+            assertEquals(10001, service.getMarketPrice("USD").getPrice(), 0);
+        } finally {
+            slowServer.stop();
+            fastServer.stop();
+        }
+    }
+
+    private void applyExternalPrice(String currencyCode, double price) {
+        final long now = Instant.now().getEpochSecond();
+        Map<String, Long> timeStampMap = new HashMap<>();
+        timeStampMap.put("btcAverageTs", now);
+        Map<String, MarketPrice> priceMap = new HashMap<>();
+        priceMap.put(currencyCode, new MarketPrice(currencyCode, price, now, true));
+        priceFeedService.applyPrices(new Tuple2<>(timeStampMap, priceMap));
+    }
+
+    // Serves getAllMarketPrices with a USD price after the given delay
+    private static final class StubPriceServer {
+        private final HttpServer server;
+        private final AtomicInteger numRequests = new AtomicInteger();
+
+        StubPriceServer(long delayMs, double usdPrice) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/getAllMarketPrices", exchange -> {
+                numRequests.incrementAndGet();
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException ignore) {
+                }
+                final long now = Instant.now().getEpochSecond();
+                byte[] bytes = ("{\"data\":[{\"currencyCode\":\"USD\",\"price\":" + usdPrice +
+                        ",\"timestampSec\":" + now + "}],\"btcAverageTs\":" + now + ",\"poloniexTs\":" + now +
+                        ",\"coinmarketcapTs\":" + now + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(bytes);
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        String getBaseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        }
+
+        int getNumRequests() {
+            return numRequests.get();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PriceProviderLatencyTrackerTest {
+    private static final String URL = "http://provider.onion/";
+
+    @Test
+    public void testDefaultHedgeDelayWithoutSamples() {
+        PriceProviderLatencyTracker tracker = new PriceProviderLatencyTracker();
+        assertEquals(-1, tracker.getPercentile(URL, 0.5));
+        assertEquals(PriceProviderLatencyTracker.DEFAULT_HEDGE_DELAY_MS, tracker.getHedgeDelayMs(URL));
+
+        tracker.add(URL, 4000);
+        assertEquals(PriceProviderLatencyTracker.DEFAULT_HEDGE_DELAY_MS, tracker.getHedgeDelayMs(URL));
+    }
+
+    @Test
+    public void testPercentile() {
+        PriceProviderLatencyTracker tracker = new PriceProviderLatencyTracker();
+        for (int i = 10; i >= 1; i--)
+            tracker.add(URL, i * 1000);
+
+        assertEquals(5000, tracker.getPercentile(URL, 0.5));
+        assertEquals(9000, tracker.getPercentile(URL, 0.9));
+        assertEquals(10000, tracker.getPercentile(URL, 1));
+        assertEquals(9000, tracker.getHedgeDelayMs(URL));
+    }
+
+    @Test
+    public void testHedgeDelayBounds() {
+        PriceProviderLatencyTracker tracker = new PriceProviderLatencyTracker();
+        for (int i = 0; i < 10; i++) {
+            tracker.add(URL, 100);
+            tracker.add("slow", 120_000);
+        }
+        assertEquals(PriceProviderLatencyTracker.MIN_HEDGE_DELAY_MS, tracker.getHedgeDelayMs(URL));
+        assertEquals(PriceProviderLatencyTracker.MAX_HEDGE_DELAY_MS, tracker.getHedgeDelayMs("slow"));
+    }
+
+    @Test
+    public void testOnlyRecentSamplesAreUsed() {
+        PriceProviderLatencyTracker tracker = new PriceProviderLatencyTracker();
+        for (int i = 0; i < 50; i++)
+            tracker.add(URL, 20_000);
+        for (int i = 0; i < 50; i++)
+            tracker.add(URL, 5000);
+
+        assertEquals(50, tracker.getNumSamples(URL));
+        assertEquals(5000, tracker.getPercentile(URL, 1));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.provider.price;
+
+import bisq.common.util.Tuple2;
+
+import com.google.common.io.Resources;
+
+import com.google.gson.Gson;
+import com.google.gson.internal.LinkedTreeMap;
+
+import java.nio.charset.StandardCharsets;
+
+import java.io.IOException;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@Slf4j
+public class PriceProviderTest {
+
+    @Test
+    public void testParse() throws IOException {
+        Tuple2<Map<String, Long>, Map<String, MarketPrice>> result = PriceProvider.parse(getPayload());
+        assertEquals(1517932790L, (long) result.first.get("btcAverageTs"));
+        assertEquals(1517932785L, (long) result.first.get("poloniexTs"));
+        assertEquals(1517932700L, (long) result.first.get("coinmarketcapTs"));
+        assertFalse(result.first.containsKey("btcAverageSTs"));
+
+        assertEquals(18, result.second.size());
+        MarketPrice eur = result.second.get("EUR");
+        assertEquals(8934.12, eur.getPrice(), 0);
+        assertEquals(1517932800L, eur.getTimestampSec());
+        assertEquals(0.00000055, result.second.get("DOGE").getPrice(), 0);
+    }
+
+    @Test
+    public void testParseSkipsInvalidItems() throws IOException {
+        String json = "{\"data\":[{\"currencyCode\":\"EUR\",\"provider\":\"BTCA_S\"}," +
+                "{\"currencyCode\":\"USD\",\"price\":10000.5,\"timestampSec\":1517932800.0,\"extra\":{\"a\":[1,2]}}]," +
+                "\"btcAverageTs\":1,\"poloniexTs\":2,\"coinmarketcapTs\":3}";
+        Map<String, MarketPrice> map = PriceProvider.parse(json).second;
+        assertEquals(1, map.size());
+        assertEquals(10000.5, map.get("USD").getPrice(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseMissingTimestamp() throws IOException {
+        PriceProvider.parse("{\"data\":[],\"btcAverageTs\":1}");
+    }
+
+    // Compares the streaming parser with the former Gson LinkedTreeMap based parsing. Run manually.
+    @Ignore
+    @Test
+    public void benchmarkParse() throws IOException {
+        String json = getPayload();
+        final int iterations = 100_000;
+        for (int i = 0; i < iterations; i++) {
+            PriceProvider.parse(json);
+            parseWithGson(json);
+        }
+
+        long ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            PriceProvider.parse(json);
+        log.info("Streaming parser: {} µs per response", (System.nanoTime() - ts) / iterations / 1000d);
+
+        ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            parseWithGson(json);
+        log.info("Gson LinkedTreeMap: {} µs per response", (System.nanoTime() - ts) / iterations / 1000d);
+    }
+
+    private static String getPayload() throws IOException {
+        return Resources.toString(Resources.getResource(PriceProviderTest.class, "getAllMarketPrices.json"),
+                StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int parseWithGson(String json) {
+        LinkedTreeMap<String, Object> map = new Gson().fromJson(json, LinkedTreeMap.class);
+        List<LinkedTreeMap<String, Object>> list = (List<LinkedTreeMap<String, Object>>) map.get("data");
+        return list.size();
+    }
+}
@@ -25,6 +25,8 @@ import bisq.common.storage.Storage;
 
 import io.bisq.generated.protobuffer.PB;
 
+import mockit.Expectations;
+import mockit.Injectable;
 import mockit.Mocked;
 import mockit.integration.junit4.JMockit;
 
@@ -33,6 +35,8 @@ import org.junit.runner.RunWith;
 
 import static io.bisq.generated.protobuffer.PB.PersistableEnvelope.MessageCase.TRADABLE_LIST;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(JMockit.class)
@@ -54,4 +58,31 @@ public class TradableListTest {
         assertTrue(message.getMessageCase().equals(TRADABLE_LIST));
         assertEquals(1, message.getTradableList().getTradableList().size());
     }
+
+    @Test
+    public void testGetTradableById(@Injectable OfferPayload offerPayload1, @Injectable OfferPayload offerPayload2) {
+        new Expectations() {{
+            offerPayload1.getId();
+            result = "id1";
+            minTimes = 0;
+            offerPayload2.getId();
+            result = "id2";
+            minTimes = 0;
+        }};
+        Storage<TradableList<OpenOffer>> storage = new Storage<>(null, null);
+        TradableList<OpenOffer> openOfferTradableList = new TradableList<>(storage, "filename");
+        OpenOffer openOffer1 = new OpenOffer(new Offer(offerPayload1), storage);
+        OpenOffer openOffer2 = new OpenOffer(new Offer(offerPayload2), storage);
+        openOfferTradableList.add(openOffer1);
+        openOfferTradableList.add(openOffer2);
+        assertSame(openOffer1, openOfferTradableList.getTradableById("id1").get());
+        assertSame(openOffer2, openOfferTradableList.getTradableById("id2").get());
+
+        openOfferTradableList.remove(openOffer1);
+        assertFalse(openOfferTradableList.getTradableById("id1").isPresent());
+
+        // Changes at the observable list are reflected as well
+        openOfferTradableList.getList().clear();
+        assertFalse(openOfferTradableList.getTradableById("id2").isPresent());
+    }
 }
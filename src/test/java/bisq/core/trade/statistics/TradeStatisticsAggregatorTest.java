@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+import bisq.core.trade.statistics.TradeStatisticsAggregator.Candle;
+import bisq.core.trade.statistics.TradeStatisticsAggregator.Interval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TradeStatisticsAggregatorTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    public void testHourlyCandles() {
+        TradeStatisticsAggregator aggregator = new TradeStatisticsAggregator();
+        // Added out of order to cover inserts and open/close by trade date
+        TradeStatistics2 t1 = getTradeStatistics("offer1", 10 * HOUR + 100, 50000000, 100000000);
+        TradeStatistics2 t2 = getTradeStatistics("offer2", 10 * HOUR + 300, 52000000, 200000000);
+        TradeStatistics2 t3 = getTradeStatistics("offer3", 10 * HOUR + 200, 48000000, 100000000);
+        TradeStatistics2 t4 = getTradeStatistics("offer4", 12 * HOUR, 51000000, 100000000);
+        TradeStatistics2 t5 = getTradeStatistics("offer5", 8 * HOUR, 49000000, 100000000);
+        aggregator.add(t4);
+        aggregator.add(t2);
+        aggregator.add(t1);
+        aggregator.add(t5);
+        aggregator.add(t3);
+        String currencyCode = t1.getCurrencyCode();
+
+        List<Candle> candles = aggregator.getCandles(currencyCode, Interval.HOUR, 0, DAY);
+        assertEquals(3, candles.size());
+        Candle candle = candles.get(1);
+        assertEquals(10 * HOUR, candle.getDate());
+        assertEquals(50000000, candle.getOpen());
+        assertEquals(52000000, candle.getHigh());
+        assertEquals(48000000, candle.getLow());
+        assertEquals(52000000, candle.getClose());
+        assertEquals(400000000, candle.getAmount());
+        assertEquals(3, candle.getNumTrades());
+        assertEquals(t1.getTradeVolume().getValue() + t2.getTradeVolume().getValue() + t3.getTradeVolume().getValue(),
+                candle.getVolume());
+
+        assertEquals(51000000, aggregator.getLastPrice(currencyCode));
+        assertEquals(600000000, aggregator.getAmount(currencyCode, Interval.DAY, 0, DAY));
+        assertEquals(500000000, aggregator.getAmount(currencyCode, Interval.HOUR, 9 * HOUR, 13 * HOUR));
+        assertEquals(1, aggregator.getCandles(currencyCode, Interval.WEEK, 0, 7 * DAY).size());
+    }
+
+    @Test
+    public void testUnknownCurrency() {
+        TradeStatisticsAggregator aggregator = new TradeStatisticsAggregator();
+        assertEquals(0, aggregator.getLastPrice("EUR"));
+        assertEquals(0, aggregator.getAmount("EUR", Interval.DAY, 0, DAY));
+        assertTrue(aggregator.getCandles("EUR", Interval.DAY, 0, DAY).isEmpty());
+    }
+
+    @Test
+    public void testAddAllInRandomOrder() {
+        List<TradeStatistics2> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            list.add(getTradeStatistics("offer" + i, i * HOUR, 50000000 + i, 100000000));
+        Collections.shuffle(list);
+
+        TradeStatisticsAggregator aggregator = new TradeStatisticsAggregator();
+        aggregator.addAll(list);
+        String currencyCode = list.get(0).getCurrencyCode();
+
+        assertEquals(1000, aggregator.getCandles(currencyCode, Interval.HOUR, 0, 1000 * HOUR).size());
+        assertEquals(50000000 + 999, aggregator.getLastPrice(currencyCode));
+        List<Candle> days = aggregator.getCandles(currencyCode, Interval.DAY, 0, 1000 * HOUR);
+        assertEquals(42, days.size());
+        assertEquals(50000000, days.get(0).getOpen());
+        assertEquals(50000000 + 23, days.get(0).getClose());
+    }
+
+    private static TradeStatistics2 getTradeStatistics(String offerId, long tradeDate, long tradePrice, long tradeAmount) {
+        return new TradeStatistics2(OfferPayload.Direction.BUY,
+                "BTC",
+                "EUR",
+                "SEPA",
+                0,
+                false,
+                0,
+                tradeAmount,
+                tradeAmount,
+                offerId,
+                tradePrice,
+                tradeAmount,
+                tradeDate,
+                "depositTxId",
+                null,
+                null);
+    }
+}
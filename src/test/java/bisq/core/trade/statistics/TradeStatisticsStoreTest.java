@@ -0,0 +1,105 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.offer.OfferPayload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TradeStatisticsStoreTest {
+
+    @Test
+    public void testDuplicateOfferId() {
+        TradeStatisticsStore store = new TradeStatisticsStore();
+        assertTrue(store.add(getTradeStatistics("offer1", "EUR", 1000, 100)));
+        // The peer's statistics has the same offer ID but a different trade date
+        assertFalse(store.add(getTradeStatistics("offer1", "EUR", 1001, 100)));
+        assertEquals(1, store.size());
+        assertEquals(1000, store.getByOfferId("offer1").get().getTradeDate().getTime());
+    }
+
+    @Test
+    public void testLatestByCurrency() {
+        TradeStatisticsStore store = new TradeStatisticsStore();
+        TradeStatistics2 eur1 = getTradeStatistics("offer1", "EUR", 2000, 100);
+        TradeStatistics2 eur2 = getTradeStatistics("offer2", "EUR", 1000, 200);
+        TradeStatistics2 usd = getTradeStatistics("offer3", "USD", 500, 300);
+        store.add(eur1);
+        store.add(eur2);
+        store.add(usd);
+
+        assertSame(eur1, store.getLatest(eur1.getCurrencyCode()).get());
+        assertSame(usd, store.getLatest(usd.getCurrencyCode()).get());
+        assertEquals(2, store.getLatestByCurrencyCode().size());
+
+        TradeStatistics2 eur3 = getTradeStatistics("offer4", "EUR", 3000, 400);
+        store.add(eur3);
+        assertSame(eur3, store.getLatest(eur3.getCurrencyCode()).get());
+    }
+
+    @Test
+    public void testGetTradeStatisticsInRange() {
+        TradeStatisticsStore store = new TradeStatisticsStore();
+        List<TradeStatistics2> list = new ArrayList<>();
+        for (int i = 9; i >= 0; i--)
+            list.add(getTradeStatistics("offer" + i, "EUR", i * 100, 100));
+        // Same trade date as offer3
+        list.add(getTradeStatistics("offer3b", "EUR", 300, 100));
+        list.forEach(store::add);
+        String currencyCode = list.get(0).getCurrencyCode();
+
+        assertEquals(asList("offer3", "offer3b", "offer4"), getOfferIds(store.getTradeStatistics(currencyCode, 300, 500)));
+        assertEquals(11, store.getTradeStatistics(currencyCode, 0, 1000).size());
+        assertTrue(store.getTradeStatistics(currencyCode, 500, 500).isEmpty());
+        assertTrue(store.getTradeStatistics("XYZ", 0, 1000).isEmpty());
+    }
+
+    private static List<String> getOfferIds(Collection<TradeStatistics2> collection) {
+        return collection.stream().map(TradeStatistics2::getOfferId).collect(Collectors.toList());
+    }
+
+    private static TradeStatistics2 getTradeStatistics(String offerId, String counterCurrency, long tradeDate, long tradePrice) {
+        return new TradeStatistics2(OfferPayload.Direction.BUY,
+                "BTC",
+                counterCurrency,
+                "SEPA",
+                0,
+                false,
+                0,
+                100000,
+                100000,
+                offerId,
+                tradePrice,
+                100000,
+                tradeDate,
+                "depositTxId",
+                null,
+                null);
+    }
+}
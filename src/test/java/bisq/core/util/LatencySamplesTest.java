@@ -0,0 +1,50 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencySamplesTest {
+    @Test
+    public void testPercentile() {
+        LatencySamples samples = new LatencySamples(10);
+        assertEquals(-1, samples.getPercentile(0.9));
+
+        for (int i = 10; i >= 1; i--)
+            samples.add(i * 100);
+        assertEquals(10, samples.size());
+        assertEquals(900, samples.getPercentile(0.9));
+        assertEquals(100, samples.getPercentile(0));
+        assertEquals(1000, samples.getPercentile(1));
+    }
+
+    @Test
+    public void testOldestSampleIsReplaced() {
+        LatencySamples samples = new LatencySamples(3);
+        samples.add(5000);
+        samples.add(100);
+        samples.add(200);
+        assertEquals(5000, samples.getPercentile(1));
+
+        samples.add(300);
+        assertEquals(3, samples.size());
+        assertEquals(300, samples.getPercentile(1));
+    }
+}